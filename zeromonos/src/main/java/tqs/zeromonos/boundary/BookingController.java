@@ -1,24 +1,41 @@
 package tqs.zeromonos.boundary;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import tqs.zeromonos.dto.AvailabilityResponseDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
 import tqs.zeromonos.services.BookingService;
 
 /**
@@ -32,34 +49,75 @@ import tqs.zeromonos.services.BookingService;
 @RequestMapping("/api/bookings")
 @Tag(name = "Civilian", description = "Endpoints públicos para cidadãos")
 public class BookingController {
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private BookingService bookingService;
+    private BookingEventStreams bookingEventStreams;
+
+    // Tempo durante o qual browsers e CDNs podem reutilizar a lista de municípios
+    @Value("${municipalities.http.max-age-seconds:86400}")
+    private long municipalitiesMaxAgeSeconds;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingEventStreams bookingEventStreams) {
         this.bookingService = bookingService;
+        this.bookingEventStreams = bookingEventStreams;
     }
 
-    @Operation(summary = "Criar novo agendamento", description = "Permite criar um novo agendamento de recolha de resíduos volumosos")
+    @Operation(summary = "Criar novo agendamento", description = "Permite criar um novo agendamento de recolha de resíduos volumosos. Com o cabeçalho Idempotency-Key, repetir o mesmo pedido devolve o agendamento criado da primeira vez em vez de criar outro")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Agendamento criado com sucesso"),
-            @ApiResponse(responseCode = "400", description = "Dados inválidos"),
-            @ApiResponse(responseCode = "409", description = "Limite de agendamentos atingido para o município")
+            @ApiResponse(responseCode = "200", description = "Agendamento criado com sucesso (ou resposta original de um pedido repetido)"),
+            @ApiResponse(responseCode = "400", description = "Dados inválidos, ou Idempotency-Key já usada com um pedido diferente"),
+            @ApiResponse(responseCode = "409", description = "Limite de agendamentos atingido para o município, ou pedido com a mesma Idempotency-Key ainda em curso")
     })
     @PostMapping
-    public ResponseEntity<BookingResponseDTO> createBooking(@Valid @RequestBody BookingRequestDTO request) {
-        BookingResponseDTO bookingResponse = bookingService.createBooking(request);
+    public ResponseEntity<BookingResponseDTO> createBooking(@Valid @RequestBody BookingRequestDTO request,
+            @Parameter(description = "Chave única escolhida pelo cliente para poder repetir o pedido com segurança") @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        BookingResponseDTO bookingResponse = idempotencyKey == null
+                ? bookingService.createBooking(request)
+                : bookingService.createBooking(request, idempotencyKey);
         return ResponseEntity.ok(bookingResponse);
     }
 
-    @Operation(summary = "Consultar agendamento por token", description = "Retorna os detalhes de um agendamento usando o token único")
+    @Operation(summary = "Criar agendamentos em lote", description = "Cria vários agendamentos num único pedido (até 500), por exemplo a partir de um centro de atendimento. Cada pedido é validado e tratado de forma independente: a resposta tem um resultado por pedido, pela mesma ordem, com o código que o pedido teria sozinho (200, 400 ou 409)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado; ver o resultado de cada pedido"),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou com mais pedidos do que o permitido")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BookingBatchResponseDTO> createBookings(@RequestBody List<BookingRequestDTO> requests) {
+        return ResponseEntity.ok(bookingService.createBookings(requests));
+    }
+
+    @Operation(summary = "Consultar agendamento por token", description = "Retorna os detalhes de um agendamento usando o token único. A resposta tem um ETag; com If-None-Match igual, é devolvido 304 sem corpo")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Agendamento encontrado"),
+            @ApiResponse(responseCode = "200", description = "Agendamento encontrado", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookingResponseDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Agendamento não mudou desde o ETag indicado"),
             @ApiResponse(responseCode = "404", description = "Agendamento não encontrado")
     })
-    @GetMapping("/{token}")
-    public ResponseEntity<BookingResponseDTO> getBookingByToken(
+    @GetMapping(value = "/{token}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getBookingByToken(
             @Parameter(description = "Token único do agendamento", required = true) @PathVariable String token) {
-        BookingResponseDTO bookingResponse = bookingService.getBookingByToken(token);
-        return ResponseEntity.ok(bookingResponse);
+        // O JSON já vem serializado da cache; o Spring responde 304 quando o
+        // If-None-Match do pedido coincide com o ETag
+        EncodedBookingResponse bookingResponse = bookingService.getEncodedBookingByToken(token);
+        return ResponseEntity.ok()
+                .eTag(bookingResponse.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(bookingResponse.getJson());
+    }
+
+    @Operation(summary = "Acompanhar agendamento em tempo real", description = "Abre um canal Server-Sent Events que envia o estado atual (evento 'snapshot') e cada mudança de estado (evento 'status') do agendamento")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Canal de eventos aberto"),
+            @ApiResponse(responseCode = "404", description = "Agendamento não encontrado")
+    })
+    @GetMapping("/{token}/events")
+    public SseEmitter streamBookingEvents(
+            @Parameter(description = "Token único do agendamento", required = true) @PathVariable String token) {
+        // Valida o token antes de abrir o canal (e obtém o estado inicial)
+        BookingResponseDTO booking = bookingService.getBookingByToken(token);
+        return bookingEventStreams.openForToken(booking.getToken(), booking);
     }
 
     @Operation(summary = "Cancelar agendamento", description = "Cancela um agendamento que ainda não foi iniciado")
@@ -75,13 +133,77 @@ public class BookingController {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Listar municípios disponíveis", description = "Retorna a lista de todos os municípios onde é possível agendar recolhas")
+    @Operation(summary = "Consultar disponibilidade", description = "Retorna, dia a dia, os períodos com vagas num município para um intervalo de datas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Disponibilidade retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Intervalo de datas inválido"),
+            @ApiResponse(responseCode = "404", description = "Município não encontrado")
+    })
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponseDTO> getAvailability(
+            @Parameter(description = "Nome do município", required = true) @RequestParam("municipality") String municipalityName,
+            @Parameter(description = "Data inicial (inclusive)", required = true) @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Data final (inclusive)", required = true) @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        AvailabilityResponseDTO availability = bookingService.getAvailability(municipalityName, from, to);
+        return ResponseEntity.ok(availability);
+    }
+
+    @Operation(summary = "Listar municípios disponíveis", description = "Retorna a lista de todos os municípios onde é possível agendar recolhas. A resposta pode ser guardada em cache (Cache-Control público) e tem um ETag; com If-None-Match igual, é devolvido 304 sem corpo. Com Accept-Encoding gzip, o corpo é enviado já comprimido")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de municípios retornada com sucesso")
+            @ApiResponse(responseCode = "200", description = "Lista de municípios retornada com sucesso", content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = String.class)))),
+            @ApiResponse(responseCode = "304", description = "A lista não mudou desde o ETag indicado")
     })
-    @GetMapping("/municipalities")
-    public ResponseEntity<List<String>> getAvailableMunicipalities() {
-        List<String> municipalities = bookingService.getAvailableMunicipalities();
-        return ResponseEntity.ok(municipalities);
+    @GetMapping(value = "/municipalities", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAvailableMunicipalities(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // JSON e gzip pré-calculados: só mudam quando a importação muda os
+        // municípios. O Spring responde 304 quando o If-None-Match coincide
+        EncodedMunicipalityList municipalities = bookingService.getEncodedMunicipalities();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(municipalitiesMaxAgeSeconds)).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.eTag(municipalities.getGzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(municipalities.getGzip());
+        }
+        return response.eTag(municipalities.getEtag()).body(municipalities.getJson());
+    }
+
+    @Operation(summary = "Sugerir municípios", description = "Retorna os municípios cujo nome (ou uma palavra do nome) começa pelo texto indicado, ignorando acentos e maiúsculas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugestões retornadas com sucesso (lista vazia se não houver correspondências)")
+    })
+    @GetMapping("/municipalities/suggest")
+    public ResponseEntity<List<String>> suggestMunicipalities(
+            @Parameter(description = "Início do nome do município (ex.: \"evo\" para Évora)", required = true) @RequestParam(value = "q", defaultValue = "") String query,
+            @Parameter(description = "Número máximo de sugestões (1 a 20)") @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookingService.suggestMunicipalities(query, limit));
+    }
+
+    // "gzip" (ou "*") presente no Accept-Encoding e sem q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].replace(" ", "");
+                if (parameter.matches("(?i)q=0(\\.0*)?")) {
+                    refused = true;
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
     }
 }
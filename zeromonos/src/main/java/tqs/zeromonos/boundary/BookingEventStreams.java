@@ -0,0 +1,127 @@
+package tqs.zeromonos.boundary;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.services.BookingEventBus;
+
+/**
+ * Liga o {@link BookingEventBus} a ligações Server-Sent Events.
+ *
+ * Cada ligação é um {@link SseEmitter} assíncrono: enquanto não há eventos não
+ * ocupa nenhuma thread do servidor. Um heartbeat periódico mantém as ligações
+ * abertas atrás de proxies e deteta clientes que já saíram.
+ *
+ * Os envios de cada ligação são serializados com um {@link ReentrantLock} e
+ * não com {@code synchronized}: a escrita na rede pode bloquear e, com threads
+ * virtuais, bloquear dentro de um monitor prenderia a thread de plataforma.
+ */
+@Component
+public class BookingEventStreams {
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventStreams.class);
+
+    private final BookingEventBus eventBus;
+    private final long timeoutMs;
+
+    // Ligações abertas, com a respetiva subscrição e o lock de envio
+    private final Map<SseEmitter, Stream> streams = new ConcurrentHashMap<>();
+
+    private record Stream(BookingEventBus.Subscription subscription, ReentrantLock sendLock) {
+    }
+
+    public BookingEventStreams(BookingEventBus eventBus,
+            @Value("${booking.events.timeout-ms:1800000}") long timeoutMs) {
+        this.eventBus = eventBus;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Abre uma ligação com os eventos de uma reserva.
+     */
+    public SseEmitter openForToken(String token, Object initialState) {
+        return open(initialState, (listener, onOverflow) -> eventBus.subscribeToken(token, listener, onOverflow));
+    }
+
+    /**
+     * Abre uma ligação com os eventos de um município (ou de todos).
+     */
+    public SseEmitter openForMunicipality(String municipalityName) {
+        return open(null,
+                (listener, onOverflow) -> eventBus.subscribeMunicipality(municipalityName, listener, onOverflow));
+    }
+
+    public int openStreams() {
+        return streams.size();
+    }
+
+    /**
+     * Envia um comentário a todas as ligações; as que falharem são fechadas.
+     */
+    @Scheduled(fixedRateString = "${booking.events.heartbeat-ms:15000}", initialDelayString = "${booking.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        streams.forEach((emitter, stream) -> send(emitter, stream.sendLock(), SseEmitter.event().comment("heartbeat")));
+    }
+
+    @FunctionalInterface
+    private interface Subscriber {
+        BookingEventBus.Subscription subscribe(Consumer<BookingEventDTO> listener,
+                Runnable onOverflow);
+    }
+
+    private SseEmitter open(Object initialState, Subscriber subscriber) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        ReentrantLock sendLock = new ReentrantLock();
+        BookingEventBus.Subscription subscription = subscriber.subscribe(
+                event -> send(emitter, sendLock, toSseEvent(event)),
+                emitter::complete);
+        streams.put(emitter, new Stream(subscription, sendLock));
+
+        Runnable cleanup = () -> unsubscribe(emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        // Estado atual, para o cliente não precisar de um pedido extra
+        if (initialState != null) {
+            send(emitter, sendLock, SseEmitter.event().name("snapshot").data(initialState, MediaType.APPLICATION_JSON));
+        }
+        return emitter;
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(BookingEventDTO event) {
+        return SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON);
+    }
+
+    // SseEmitter não é thread-safe para envios concorrentes do mesmo emitter
+    private void send(SseEmitter emitter, ReentrantLock sendLock, SseEmitter.SseEventBuilder event) {
+        sendLock.lock();
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // O contentor termina o pedido e chama onError/onCompletion
+            logger.debug("Ligação SSE fechada: {}", e.getMessage());
+            unsubscribe(emitter);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void unsubscribe(SseEmitter emitter) {
+        Stream stream = streams.remove(emitter);
+        if (stream != null) {
+            stream.subscription().cancel();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package tqs.zeromonos.boundary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import tqs.zeromonos.dto.BookingResponseDTO;
+
+/**
+ * Formatos suportados pela exportação de bookings do staff. Cada formato
+ * escreve um booking de cada vez diretamente no stream de resposta.
+ */
+public enum BookingExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final String CSV_HEADER = "id,token,municipality,description,requestedDate,timeSlot,status,createdAt,updatedAt\n";
+
+    private final String mediaType;
+    private final String extension;
+
+    BookingExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Converte o parâmetro "format" do pedido (sem distinguir maiúsculas).
+     *
+     * @throws IllegalArgumentException se o formato não for suportado
+     */
+    public static BookingExportFormat fromParam(String value) {
+        for (BookingExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportação inválido: " + value);
+    }
+
+    /**
+     * Cria um escritor para este formato sobre o stream de resposta.
+     */
+    public Writer writer(ObjectMapper objectMapper, OutputStream out) {
+        if (this == CSV) {
+            return new CsvWriter(out);
+        }
+        return new NdjsonWriter(objectMapper, out);
+    }
+
+    /**
+     * Escreve bookings, um a um, num stream de saída.
+     */
+    public interface Writer {
+        void write(BookingResponseDTO booking);
+    }
+
+    private static final class NdjsonWriter implements Writer {
+        private final ObjectWriter jsonWriter;
+        private final OutputStream out;
+
+        private NdjsonWriter(ObjectMapper objectMapper, OutputStream out) {
+            // Não fechar o stream de resposta depois de cada linha
+            this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.out = out;
+        }
+
+        @Override
+        public void write(BookingResponseDTO booking) {
+            try {
+                jsonWriter.writeValue(out, booking);
+                out.write(NEWLINE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class CsvWriter implements Writer {
+        private final OutputStream out;
+        private boolean headerWritten;
+
+        private CsvWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(BookingResponseDTO booking) {
+            StringBuilder line = new StringBuilder(256);
+            if (!headerWritten) {
+                line.append(CSV_HEADER);
+                headerWritten = true;
+            }
+            line.append(escape(booking.getId())).append(',')
+                    .append(escape(booking.getToken())).append(',')
+                    .append(escape(booking.getMunicipalityName())).append(',')
+                    .append(escape(booking.getDescription())).append(',')
+                    .append(escape(booking.getRequestedDate())).append(',')
+                    .append(escape(booking.getTimeSlot())).append(',')
+                    .append(escape(booking.getStatus())).append(',')
+                    .append(escape(booking.getCreatedAt())).append(',')
+                    .append(escape(booking.getUpdatedAt())).append('\n');
+            try {
+                out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Campos com vírgulas, aspas ou quebras de linha são delimitados por aspas
+        private static String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package tqs.zeromonos.boundary;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import tqs.zeromonos.utils.LogHash;
+
+/**
+ * Um único evento de log por pedido à API, com o método, a rota (o padrão do
+ * endpoint, não o URI), o estado HTTP, a latência e, quando o endpoint tem um
+ * token, um hash do token (o token dá acesso à reserva e não é escrito no
+ * log).
+ *
+ * Os eventos vão para o logger {@value #LOGGER_NAME}, que pode ter um nível e
+ * um appender próprios. As consultas com sucesso (GET com estado abaixo de
+ * 400) são amostradas ({@code zeromonos.request-log.success-sample-rate});
+ * erros e escritas são sempre registados.
+ */
+@Component
+public class RequestSummaryFilter extends OncePerRequestFilter {
+    public static final String LOGGER_NAME = "tqs.zeromonos.requests";
+
+    private static final Logger summary = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final boolean enabled;
+    private final double successSampleRate;
+
+    public RequestSummaryFilter(@Value("${zeromonos.request-log.enabled:true}") boolean enabled,
+            @Value("${zeromonos.request-log.success-sample-rate:1.0}") double successSampleRate) {
+        this.enabled = enabled;
+        this.successSampleRate = successSampleRate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int status = response.getStatus();
+            if (summary.isInfoEnabled() && sampled(request.getMethod(), status)) {
+                long latencyMicros = (System.nanoTime() - start) / 1_000;
+                Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                summary.info("request method={} route={} status={} latencyUs={} token={}", request.getMethod(),
+                        route != null ? route : "-", status, latencyMicros, tokenHash(request));
+            }
+        }
+    }
+
+    private boolean sampled(String method, int status) {
+        if (status >= 400 || !"GET".equals(method) || successSampleRate >= 1.0) {
+            return true;
+        }
+        return ThreadLocalRandom.current().nextDouble() < successSampleRate;
+    }
+
+    private static String tokenHash(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map && map.get("token") instanceof String token) {
+            return LogHash.ofToken(token);
+        }
+        return "-";
+    }
+}
@@ -2,7 +2,9 @@ package tqs.zeromonos.boundary;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -11,8 +13,17 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tqs.zeromonos.services.BookingBusinessError;
+import tqs.zeromonos.services.BookingConflictException;
+import tqs.zeromonos.services.BookingNotFoundException;
+import tqs.zeromonos.services.InvalidBookingRequestException;
 
 @ControllerAdvice
 @ResponseBody
@@ -28,6 +39,14 @@ public class RestExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(RestExceptionHandler.class);
 
+    // Número máximo de corpos de erro pré-calculados (as mensagens podem
+    // incluir texto do pedido, como o nome do município)
+    private static final int MAX_PRECOMPUTED_BODIES = 1024;
+
+    // Parte constante do corpo JSON de cada erro de negócio (status, error e
+    // message), calculada uma única vez por estado e mensagem
+    private final Map<String, String> precomputedBodies = new ConcurrentHashMap<>();
+
     // Estrutura genérica de um erro na api
     public static class ApiError {
         private final OffsetDateTime timestamp;
@@ -67,6 +86,31 @@ public class RestExceptionHandler {
 
     // ---------- Specific Exception Handlers ----------
 
+    // Erros de negócio esperados: sem stack trace, sem log acima de debug e com
+    // o corpo pré-calculado; só o instante e o caminho são escritos por pedido.
+    // Os campos são os mesmos de ApiError
+    @ExceptionHandler({ BookingNotFoundException.class, InvalidBookingRequestException.class,
+            BookingConflictException.class })
+    public ResponseEntity<byte[]> handleBusinessError(RuntimeException ex, WebRequest req) {
+        BookingBusinessError error = (BookingBusinessError) ex;
+        HttpStatus status = error.getStatus();
+        if (log.isDebugEnabled()) {
+            log.debug("Business error {}: {}", status.value(), error.getMessage());
+        }
+        String path = req.getDescription(false).replace("uri=", "");
+        StringBuilder body = new StringBuilder(256)
+                .append("{\"timestamp\":\"")
+                .append(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(OffsetDateTime.now()))
+                .append('"')
+                .append(precomputedBody(status, error.getMessage()))
+                .append(",\"path\":\"");
+        appendEscaped(body, path);
+        body.append("\"}");
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiError> handleBadRequest(IllegalArgumentException ex, WebRequest req) {
         log.warn("Invalid request: {}", ex.getMessage());
@@ -99,6 +143,14 @@ public class RestExceptionHandler {
         return buildResponse(HttpStatus.CONFLICT, ex.getMessage(), req);
     }
 
+    // Alteração concorrente que não foi repetida pelo serviço (ex.: operações em lote)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleConcurrentModification(OptimisticLockingFailureException ex,
+            WebRequest req) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        return buildResponse(HttpStatus.CONFLICT, "The resource was modified by another request; please retry", req);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleUnexpectedError(Exception ex, WebRequest req) {
         // Ignora erros do SpringDoc OpenAPI para não interferir com a geração de
@@ -118,6 +170,52 @@ public class RestExceptionHandler {
 
     // ---------- Helper ----------
 
+    // ,"status":...,"error":"...","message":"..." para o estado e a mensagem
+    private String precomputedBody(HttpStatus status, String message) {
+        String key = status.value() + ":" + message;
+        String cached = precomputedBodies.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        StringBuilder fragment = new StringBuilder(128)
+                .append(",\"status\":").append(status.value())
+                .append(",\"error\":\"").append(status.getReasonPhrase())
+                .append("\",\"message\":");
+        if (message == null) {
+            fragment.append("null");
+        } else {
+            fragment.append('"');
+            appendEscaped(fragment, message);
+            fragment.append('"');
+        }
+        String computed = fragment.toString();
+        if (precomputedBodies.size() < MAX_PRECOMPUTED_BODIES) {
+            precomputedBodies.putIfAbsent(key, computed);
+        }
+        return computed;
+    }
+
+    // Texto como conteúdo de uma string JSON
+    private static void appendEscaped(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+    }
+
     private ResponseEntity<ApiError> buildResponse(HttpStatus status, String message, WebRequest req) {
         String path = req.getDescription(false).replace("uri=", "");
         return ResponseEntity.status(status)
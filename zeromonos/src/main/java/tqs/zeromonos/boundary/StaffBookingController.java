@@ -1,14 +1,23 @@
 package tqs.zeromonos.boundary;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,7 +25,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.BookingStatusBatchRequestDTO;
+import tqs.zeromonos.dto.StaffBookingFilter;
+import tqs.zeromonos.services.BookingExportService;
 import tqs.zeromonos.services.BookingService;
 
 @RestController
@@ -24,12 +40,19 @@ import tqs.zeromonos.services.BookingService;
 @Tag(name = "Staff", description = "Endpoints administrativos para gestão de agendamentos")
 public class StaffBookingController {
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
+    private final ObjectMapper objectMapper;
+    private final BookingEventStreams bookingEventStreams;
 
-    public StaffBookingController(BookingService bookingService) {
+    public StaffBookingController(BookingService bookingService, BookingExportService bookingExportService,
+            ObjectMapper objectMapper, BookingEventStreams bookingEventStreams) {
         this.bookingService = bookingService;
+        this.bookingExportService = bookingExportService;
+        this.objectMapper = objectMapper;
+        this.bookingEventStreams = bookingEventStreams;
     }
 
-    @Operation(summary = "Listar agendamentos", description = "Retorna todos os agendamentos, opcionalmente filtrados por município")
+    @Operation(summary = "Listar agendamentos", description = "Retorna todos os agendamentos, opcionalmente filtrados por município. O histórico só é incluído com includeHistory=true")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de agendamentos retornada com sucesso"),
         @ApiResponse(responseCode = "404", description = "Município não encontrado")
@@ -37,16 +60,90 @@ public class StaffBookingController {
     @GetMapping
     public ResponseEntity<List<BookingResponseDTO>> listBookings(
             @Parameter(description = "Nome do município para filtrar (opcional)", required = false) 
-            @RequestParam(value = "municipality", required = false) String municipalityName) {
-        List<BookingResponseDTO> responseList = bookingService.listForStaff(municipalityName);
+            @RequestParam(value = "municipality", required = false) String municipalityName,
+            @Parameter(description = "Incluir o histórico de estados de cada agendamento (opcional)", required = false)
+            @RequestParam(value = "includeHistory", defaultValue = "false") boolean includeHistory) {
+        List<BookingResponseDTO> responseList = bookingService.listForStaff(municipalityName, includeHistory);
         return ResponseEntity.ok(responseList);
     }
 
+    @Operation(summary = "Listar agendamentos (paginado)", description = "Retorna uma página de agendamentos, dos mais recentes para os mais antigos, com filtros opcionais e um cursor para a página seguinte")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de agendamentos retornada com sucesso"),
+        @ApiResponse(responseCode = "400", description = "Cursor ou filtros inválidos"),
+        @ApiResponse(responseCode = "404", description = "Município não encontrado")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<BookingPageDTO> listBookingsPage(
+            @Parameter(description = "Nome do município para filtrar (opcional)", required = false)
+            @RequestParam(value = "municipality", required = false) String municipalityName,
+            @Parameter(description = "Estado do agendamento (opcional)", required = false)
+            @RequestParam(value = "status", required = false) BookingStatus status,
+            @Parameter(description = "Data pedida mínima, inclusive (opcional)", required = false)
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Data pedida máxima, inclusive (opcional)", required = false)
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Período do dia (opcional)", required = false)
+            @RequestParam(value = "timeSlot", required = false) TimeSlot timeSlot,
+            @Parameter(description = "Cursor devolvido pela página anterior (opcional)", required = false)
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Número de agendamentos por página (máximo 200)", required = false)
+            @RequestParam(value = "size", defaultValue = "50") int size,
+            @Parameter(description = "Incluir o histórico de estados de cada agendamento (opcional)", required = false)
+            @RequestParam(value = "includeHistory", defaultValue = "false") boolean includeHistory) {
+        StaffBookingFilter filter = new StaffBookingFilter(municipalityName, status, from, to, timeSlot);
+        BookingPageDTO page = bookingService.listForStaffPage(filter, cursor, size, includeHistory);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(summary = "Exportar agendamentos", description = "Exporta todos os agendamentos em streaming (NDJSON ou CSV), por ordem de criação, sem carregar o resultado completo em memória")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exportação iniciada com sucesso"),
+        @ApiResponse(responseCode = "400", description = "Formato inválido"),
+        @ApiResponse(responseCode = "404", description = "Município não encontrado")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @Parameter(description = "Nome do município para filtrar (opcional)", required = false)
+            @RequestParam(value = "municipality", required = false) String municipalityName,
+            @Parameter(description = "Formato da exportação (ndjson ou csv)", required = false)
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        BookingExportFormat exportFormat = BookingExportFormat.fromParam(format);
+        // Validado antes de começar a escrever, enquanto ainda é possível devolver 404
+        Municipality municipality = bookingExportService.resolveMunicipality(municipalityName);
+
+        StreamingResponseBody body = out -> {
+            BookingExportFormat.Writer writer = exportFormat.writer(objectMapper, out);
+            bookingExportService.exportForStaff(municipality, writer::write);
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Operation(summary = "Acompanhar agendamentos em tempo real", description = "Abre um canal Server-Sent Events com as reservas criadas ('created') e as mudanças de estado ('status'), opcionalmente apenas de um município")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Canal de eventos aberto"),
+        @ApiResponse(responseCode = "404", description = "Município não encontrado")
+    })
+    @GetMapping("/events")
+    public SseEmitter streamBookingEvents(
+            @Parameter(description = "Nome do município para filtrar (opcional)", required = false)
+            @RequestParam(value = "municipality", required = false) String municipalityName) {
+        // Os eventos são publicados com o nome canónico do município
+        Municipality municipality = bookingExportService.resolveMunicipality(municipalityName);
+        return bookingEventStreams.openForMunicipality(municipality == null ? null : municipality.getName());
+    }
+
     @Operation(summary = "Atualizar estado do agendamento", description = "Permite atualizar o estado de um agendamento (ASSIGNED, IN_PROGRESS, COMPLETED, CANCELLED)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Estado atualizado com sucesso"),
         @ApiResponse(responseCode = "400", description = "Status inválido ou parâmetros em falta"),
-        @ApiResponse(responseCode = "404", description = "Agendamento não encontrado")
+        @ApiResponse(responseCode = "404", description = "Agendamento não encontrado"),
+        @ApiResponse(responseCode = "409", description = "Transição de estado não permitida ou sem vagas para reativar o agendamento")
     })
     @PatchMapping("/{token}/status")
     public ResponseEntity<BookingResponseDTO> updateStatus(
@@ -60,4 +157,17 @@ public class StaffBookingController {
         return ResponseEntity.ok(bookingResponse);
     }
 
+    @Operation(summary = "Atualizar estado de vários agendamentos", description = "Muda o estado de vários agendamentos (até 500) numa única operação, por exemplo no início ou fim de um turno. A resposta tem um resultado por token, pela mesma ordem, com o código que o pedido teria sozinho (200, 400, 404 ou 409)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lote processado; ver o resultado de cada agendamento"),
+        @ApiResponse(responseCode = "400", description = "Estado em falta, lista vazia ou com mais tokens do que o permitido"),
+        @ApiResponse(responseCode = "409", description = "Um dos agendamentos foi alterado por outro pedido em simultâneo; nenhum foi atualizado")
+    })
+    @PatchMapping("/status")
+    public ResponseEntity<BookingBatchResponseDTO> updateStatuses(@RequestBody BookingStatusBatchRequestDTO request) {
+        BookingBatchResponseDTO result = bookingService.updateBookingStatusForStaff(request.getTokens(),
+                request.getStatus());
+        return ResponseEntity.ok(result);
+    }
+
 }
@@ -0,0 +1,74 @@
+package tqs.zeromonos.boundary;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import tqs.zeromonos.config.VirtualThreadDiagnostics;
+import tqs.zeromonos.dto.CacheStatsDTO;
+import tqs.zeromonos.dto.ThreadingStatsDTO;
+import tqs.zeromonos.dto.TokenFilterStatsDTO;
+import tqs.zeromonos.dto.TransitionStatsDTO;
+import tqs.zeromonos.services.BookingLookupCache;
+import tqs.zeromonos.services.BookingStateMachine;
+import tqs.zeromonos.services.BookingTokenFilter;
+
+@RestController
+@RequestMapping("/api/staff/monitoring")
+@Tag(name = "Staff", description = "Endpoints administrativos para gestão de agendamentos")
+public class StaffMonitoringController {
+    private final BookingLookupCache bookingLookupCache;
+    private final VirtualThreadDiagnostics virtualThreadDiagnostics;
+    private final BookingStateMachine bookingStateMachine;
+    private final BookingTokenFilter bookingTokenFilter;
+
+    public StaffMonitoringController(BookingLookupCache bookingLookupCache,
+            VirtualThreadDiagnostics virtualThreadDiagnostics, BookingStateMachine bookingStateMachine,
+            BookingTokenFilter bookingTokenFilter) {
+        this.bookingLookupCache = bookingLookupCache;
+        this.virtualThreadDiagnostics = virtualThreadDiagnostics;
+        this.bookingStateMachine = bookingStateMachine;
+        this.bookingTokenFilter = bookingTokenFilter;
+    }
+
+    @Operation(summary = "Estatísticas da cache de consultas", description = "Retorna o tamanho e os contadores de acertos, falhas e remoções da cache de consulta de agendamentos por token")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso")
+    })
+    @GetMapping("/lookup-cache")
+    public ResponseEntity<CacheStatsDTO> lookupCacheStats() {
+        return ResponseEntity.ok(bookingLookupCache.stats());
+    }
+
+    @Operation(summary = "Modo de execução dos pedidos", description = "Indica se os pedidos são executados em threads virtuais ou de plataforma e, com threads virtuais, quantas vezes e onde uma thread virtual ficou presa à thread de plataforma (pinning)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado retornado com sucesso")
+    })
+    @GetMapping("/threads")
+    public ResponseEntity<ThreadingStatsDTO> threadingStats() {
+        return ResponseEntity.ok(virtualThreadDiagnostics.stats());
+    }
+
+    @Operation(summary = "Transições de estado", description = "Retorna o número de mudanças de estado aceites e recusadas e, para as recusadas, quantas vezes cada transição (origem->destino) foi pedida")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso")
+    })
+    @GetMapping("/transitions")
+    public ResponseEntity<TransitionStatsDTO> transitionStats() {
+        return ResponseEntity.ok(bookingStateMachine.stats());
+    }
+
+    @Operation(summary = "Filtro de tokens", description = "Retorna a dimensão e a memória ocupada pelo filtro de Bloom dos tokens, as taxas de falsos positivos configurada, estimada e observada, e quantas consultas foram rejeitadas sem ir à base de dados")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso")
+    })
+    @GetMapping("/token-filter")
+    public ResponseEntity<TokenFilterStatsDTO> tokenFilterStats() {
+        return ResponseEntity.ok(bookingTokenFilter.stats());
+    }
+}
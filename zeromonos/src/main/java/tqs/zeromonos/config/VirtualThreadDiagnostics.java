@@ -0,0 +1,138 @@
+package tqs.zeromonos.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import tqs.zeromonos.dto.ThreadingStatsDTO;
+
+/**
+ * Diagnóstico do modo de execução dos pedidos.
+ *
+ * Com {@code spring.threads.virtual.enabled=true} (e Java 21+) o Tomcat, o
+ * executor de tarefas e o agendador passam a usar threads virtuais. Uma thread
+ * virtual que bloqueia dentro de um bloco {@code synchronized} (por exemplo no
+ * driver JDBC ou no pool de ligações) fica presa à thread de plataforma que a
+ * transporta ("pinning"), o que anula o ganho. Neste modo é aberto um stream
+ * JFR com os eventos {@code jdk.VirtualThreadPinned} acima de um limiar: cada
+ * evento é contado por local de origem e o primeiro de cada local é registado
+ * no log com a respetiva stack.
+ */
+@Component
+public class VirtualThreadDiagnostics implements ApplicationRunner, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "tqs.zeromonos.";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final boolean virtualThreads;
+    private final boolean pinningEnabled;
+    private final Duration pinningThreshold;
+
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final Map<String, LongAdder> pinnedSites = new ConcurrentHashMap<>();
+
+    private volatile RecordingStream recording;
+
+    public VirtualThreadDiagnostics(Environment environment,
+            @Value("${zeromonos.threads.pinning-diagnostics:true}") boolean pinningEnabled,
+            @Value("${zeromonos.threads.pinning-threshold-ms:20}") long pinningThresholdMs) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.pinningEnabled = pinningEnabled;
+        this.pinningThreshold = Duration.ofMillis(pinningThresholdMs);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!virtualThreads) {
+            logger.info("Pedidos executados em threads de plataforma (Java {})", Runtime.version().feature());
+            return;
+        }
+        logger.info("Pedidos executados em threads virtuais (Java {})", Runtime.version().feature());
+        if (pinningEnabled) {
+            startPinningRecording();
+        }
+    }
+
+    public ThreadingStatsDTO stats() {
+        Map<String, Long> sites = new TreeMap<>();
+        pinnedSites.forEach((site, count) -> sites.put(site, count.sum()));
+        return new ThreadingStatsDTO(virtualThreads ? "virtual" : "platform", recording != null,
+                pinnedEvents.sum(), sites);
+    }
+
+    @Override
+    public void destroy() {
+        RecordingStream current = recording;
+        recording = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void startPinningRecording() {
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(pinningThreshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            recording = stream;
+            logger.info("Diagnóstico de pinning ativo (limiar {} ms)", pinningThreshold.toMillis());
+        } catch (RuntimeException e) {
+            // JFR pode estar indisponível (ex.: imagem nativa ou JVM sem suporte)
+            logger.warn("Não foi possível iniciar o diagnóstico de pinning: {}", e.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String site = siteOf(frames);
+
+        LongAdder created = new LongAdder();
+        LongAdder existing = pinnedSites.putIfAbsent(site, created);
+        (existing != null ? existing : created).increment();
+        if (existing == null) {
+            logger.warn("Thread virtual presa à thread de plataforma durante {} ms em {}:{}",
+                    event.getDuration().toMillis(), site, formatFrames(frames));
+        }
+    }
+
+    // Primeiro frame da aplicação, ou o topo da stack se não houver nenhum
+    private static String siteOf(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return frameName(frame);
+            }
+        }
+        return frames.isEmpty() ? "desconhecido" : frameName(frames.get(0));
+    }
+
+    private static String frameName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static String formatFrames(List<RecordedFrame> frames) {
+        StringBuilder builder = new StringBuilder();
+        frames.stream().limit(LOGGED_FRAMES).forEach(frame -> builder.append(System.lineSeparator())
+                .append("\tat ").append(frameName(frame)).append(':').append(frame.getLineNumber()));
+        return builder.toString();
+    }
+}
@@ -6,29 +6,49 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
-import jakarta.persistence.CascadeType;
+import org.hibernate.annotations.BatchSize;
+
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import tqs.zeromonos.utils.BookingToken;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Listagem paginada do staff: ordenação por (created_at, id), com ou sem filtro de município
+        @Index(name = "idx_bookings_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_bookings_municipality_created_id", columnList = "municipality_id, created_at, id"),
+        // Filtros por estado e por data/período
+        @Index(name = "idx_bookings_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_bookings_date_slot", columnList = "requested_date, time_slot")
+})
 public class Booking {
+    // Número de históricos inicializados de cada vez quando uma listagem os pede
+    public static final int HISTORY_BATCH_SIZE = 50;
 
+    // Chave ordenada pelo tempo: as inserções vão para o fim do índice
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID id;
 
-    @Column(unique = true, nullable = false)
-    private String token; // Este token é usado para consultar ou mudar o estado da reserva
+    // Este token é usado para consultar ou mudar o estado da reserva. Em
+    // memória é o texto em base62; na base de dados são os 16 bytes
+    // (ver BookingToken), ordenados pelo instante de criação
+    @Convert(converter = BookingTokenConverter.class)
+    @Column(unique = true, nullable = false, columnDefinition = "binary(16)")
+    private String token;
 
     // Cada reserva está obrigatoriamoente associada a um município, mas um
     // município pode ter várias reservas
@@ -53,9 +73,22 @@ public class Booking {
     private OffsetDateTime createdAt; // Timestamp de quando o pedido foi criado
     private OffsetDateTime updatedAt; // Timestamp de quando o pedido foi atualizado pela última vez
 
-    @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // O histórico só é carregado quando é pedido: as consultas de detalhe
+    // usam join fetch e, nas listagens, os históricos são lidos em lotes.
+    // É uma tabela só de acrescentar com chave (booking_id, seq): uma mudança
+    // de estado é um INSERT da nova posição e a leitura é um range scan da chave
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "booking_state_changes", joinColumns = @JoinColumn(name = "booking_id"))
+    @OrderColumn(name = "seq")
+    @BatchSize(size = HISTORY_BATCH_SIZE)
     private List<StateChange> history = new ArrayList<>(); // Histórico de mudanças de estado
 
+    // Controlo de concorrência otimista: cada UPDATE verifica e incrementa a
+    // versão, por isso duas mudanças de estado feitas a partir da mesma versão
+    // não podem ambas ser gravadas (a segunda falha em vez de se sobrepor)
+    @Version
+    private long version;
+
     // Construtor padrão necessário para JPA/Hibernate
     public Booking() {
         // Construtor vazio para JPA
@@ -64,7 +97,7 @@ public class Booking {
     // Construtor usado na criação de uma nova reserva: gera um token único,
     // inicializa o estado para RECEIVED
     public Booking(Municipality municipality, String description, LocalDate requestedDate, TimeSlot timeSlot) {
-        this.token = UUID.randomUUID().toString();
+        this.token = BookingToken.generate();
         this.municipality = municipality;
         this.description = description;
         this.requestedDate = requestedDate;
@@ -75,7 +108,6 @@ public class Booking {
 
     // Regista uma alteração de estado e atualiza o timestamp e status atuais
     public void addStateChange(StateChange stateChange) {
-        stateChange.setBooking(this);
         history.add(stateChange);
         this.updatedAt = stateChange.getTimestamp();
         this.status = stateChange.getStatus();
@@ -146,6 +178,10 @@ public class Booking {
         this.updatedAt = updatedAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public List<StateChange> getHistory() {
         return history;
     }
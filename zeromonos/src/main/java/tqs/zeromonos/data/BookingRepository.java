@@ -1,16 +1,48 @@
 package tqs.zeromonos.data;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 // JPA Repository for Bookings
-public interface BookingRepository extends JpaRepository<Booking, UUID>{
+public interface BookingRepository extends JpaRepository<Booking, UUID>, JpaSpecificationExecutor<Booking> {
+    // Número de linhas lidas de cada vez pelo driver JDBC nas exportações
+    int EXPORT_FETCH_SIZE = 500;
+
+    // Colunas da projeção usada nas listagens (sem histórico)
+    String SUMMARY_SELECT = "SELECT b.id AS id, b.token AS token, m.name AS municipalityName, "
+            + "b.description AS description, b.requestedDate AS requestedDate, b.timeSlot AS timeSlot, "
+            + "b.status AS status, b.createdAt AS createdAt, b.updatedAt AS updatedAt "
+            + "FROM Booking b JOIN b.municipality m ";
+
+    // Consulta de detalhe: município e histórico numa única query com join fetch
+    @EntityGraph(attributePaths = { "municipality", "history" })
     Optional<Booking> findByToken(String token);
 
+    // Várias reservas por token numa única query (IN), com município e histórico
+    @EntityGraph(attributePaths = { "municipality", "history" })
+    List<Booking> findByTokenIn(Collection<String> tokens);
+
+    // Listagens leves para o staff: uma única query, sem carregar o histórico
+    @Query(SUMMARY_SELECT + "ORDER BY b.createdAt, b.id")
+    List<BookingSummary> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE b.municipality = :municipality ORDER BY b.createdAt, b.id")
+    List<BookingSummary> findSummariesByMunicipality(@Param("municipality") Municipality municipality);
+
     // Pesquisa os bookings dado o município ou apenas o seu nome
     List<Booking> findByMunicipality(Municipality municipality);
     List<Booking> findByMunicipalityName(String municipalityName);
@@ -25,4 +57,43 @@ public interface BookingRepository extends JpaRepository<Booking, UUID>{
 
     // Conta o total de bookings de um município (independente da data)
     int countByMunicipality(Municipality municipality);
+
+    // Percorre os bookings com um cursor só de leitura (exportação), por ordem de criação
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT b FROM Booking b ORDER BY b.createdAt, b.id")
+    Stream<Booking> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT b FROM Booking b WHERE b.municipality = :municipality ORDER BY b.createdAt, b.id")
+    Stream<Booking> streamByMunicipality(@Param("municipality") Municipality municipality);
+
+    // Todos os tokens, com um cursor só de leitura (construção do filtro de tokens)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT b.token FROM Booking b")
+    Stream<String> streamAllTokens();
+
+    // Conta os bookings de um município excluindo um estado (ex.: cancelados)
+    long countByMunicipalityIdAndStatusNot(Long municipalityId, BookingStatus status);
+
+    // Total de bookings por município excluindo um estado, numa única query agregada
+    @Query("SELECT b.municipality.id, COUNT(b) FROM Booking b WHERE b.status <> :excluded GROUP BY b.municipality.id")
+    List<Object[]> countActiveGroupedByMunicipality(@Param("excluded") BookingStatus excluded);
+
+    // Total de bookings por (município, dia, período) a partir de uma data, excluindo um estado
+    @Query("SELECT b.municipality.id, b.requestedDate, b.timeSlot, COUNT(b) FROM Booking b "
+            + "WHERE b.requestedDate >= :from AND b.status <> :excluded "
+            + "GROUP BY b.municipality.id, b.requestedDate, b.timeSlot")
+    List<Object[]> countActiveGroupedBySlot(@Param("from") LocalDate from, @Param("excluded") BookingStatus excluded);
 }
@@ -0,0 +1,57 @@
+package tqs.zeromonos.data;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtros reutilizáveis para consultas de bookings (listagem paginada do
+ * staff). Cada filtro devolve null quando o parâmetro não é fornecido, o que o
+ * torna neutro ao ser combinado com os restantes.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+        throw new AssertionError("Esta classe não deve ser instanciada");
+    }
+
+    public static Specification<Booking> hasMunicipality(Municipality municipality) {
+        return (root, query, cb) -> municipality == null ? null : cb.equal(root.get("municipality"), municipality);
+    }
+
+    public static Specification<Booking> hasStatus(BookingStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Booking> hasTimeSlot(TimeSlot timeSlot) {
+        return (root, query, cb) -> timeSlot == null ? null : cb.equal(root.get("timeSlot"), timeSlot);
+    }
+
+    public static Specification<Booking> requestedFrom(LocalDate from) {
+        return (root, query, cb) -> from == null ? null
+                : cb.greaterThanOrEqualTo(root.<LocalDate>get("requestedDate"), from);
+    }
+
+    public static Specification<Booking> requestedUntil(LocalDate to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThanOrEqualTo(root.<LocalDate>get("requestedDate"), to);
+    }
+
+    /**
+     * Condição de keyset para ordenação descendente por (createdAt, id): devolve
+     * apenas os bookings que vêm depois do cursor.
+     */
+    public static Specification<Booking> before(OffsetDateTime createdAt, UUID id) {
+        return (root, query, cb) -> {
+            if (createdAt == null || id == null) {
+                return null;
+            }
+            return cb.or(
+                    cb.lessThan(root.<OffsetDateTime>get("createdAt"), createdAt),
+                    cb.and(
+                            cb.equal(root.get("createdAt"), createdAt),
+                            cb.lessThan(root.<UUID>get("id"), id)));
+        };
+    }
+}
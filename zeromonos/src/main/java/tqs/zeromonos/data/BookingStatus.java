@@ -1,5 +1,7 @@
 package tqs.zeromonos.data;
 
+// O histórico (StateChange) guarda o ordinal: novos estados só podem ser
+// acrescentados no fim, sem reordenar os existentes
 public enum BookingStatus {
     // Given a booking request, the booking response can give a booking status of:
     RECEIVED,
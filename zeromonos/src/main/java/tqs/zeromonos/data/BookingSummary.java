@@ -0,0 +1,29 @@
+package tqs.zeromonos.data;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Projeção de um booking para listagens: apenas as colunas da própria reserva
+ * e o nome do município, sem o histórico de estados.
+ */
+public interface BookingSummary {
+    UUID getId();
+
+    String getToken();
+
+    String getMunicipalityName();
+
+    String getDescription();
+
+    LocalDate getRequestedDate();
+
+    TimeSlot getTimeSlot();
+
+    BookingStatus getStatus();
+
+    OffsetDateTime getCreatedAt();
+
+    OffsetDateTime getUpdatedAt();
+}
@@ -0,0 +1,26 @@
+package tqs.zeromonos.data;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import tqs.zeromonos.utils.BookingToken;
+
+/**
+ * Guarda o token de uma reserva como 16 bytes ({@code BINARY(16)}).
+ *
+ * Também é aplicado aos parâmetros das consultas por token: um token antigo
+ * (UUID em texto) encontra a mesma reserva que o token em base62, e um texto
+ * que não é um token passa a null, que não corresponde a nenhuma linha.
+ */
+@Converter
+public class BookingTokenConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String token) {
+        return BookingToken.toBytes(token);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : BookingToken.fromBytes(bytes);
+    }
+}
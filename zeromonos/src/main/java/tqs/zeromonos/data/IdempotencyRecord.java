@@ -0,0 +1,83 @@
+package tqs.zeromonos.data;
+
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+// Resposta original de um pedido de criação com Idempotency-Key (para repetições)
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+    // Tamanho máximo aceite para o valor do cabeçalho Idempotency-Key
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Id
+    @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+    private String key;
+
+    // SHA-256 (hex) do corpo do pedido original
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private String bookingToken;
+
+    @Lob
+    @Column(nullable = false)
+    private String responseJson;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, String requestHash, String bookingToken, String responseJson,
+            OffsetDateTime createdAt) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.bookingToken = bookingToken;
+        this.responseJson = responseJson;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public String getBookingToken() {
+        return bookingToken;
+    }
+    public void setBookingToken(String bookingToken) {
+        this.bookingToken = bookingToken;
+    }
+
+    public String getResponseJson() {
+        return responseJson;
+    }
+    public void setResponseJson(String responseJson) {
+        this.responseJson = responseJson;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,18 @@
+package tqs.zeromonos.data;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+// JPA Repository for Idempotency Keys
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // Remove as chaves expiradas numa única instrução DELETE
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
@@ -5,13 +5,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "municipalities")
 public class Municipality {
+    // Sequência (e não IDENTITY) para o Hibernate poder agrupar os INSERT em
+    // batches JDBC; cada ida à sequência reserva ID_ALLOCATION_SIZE ids
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "municipality_seq")
+    @SequenceGenerator(name = "municipality_seq", sequenceName = "municipalities_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
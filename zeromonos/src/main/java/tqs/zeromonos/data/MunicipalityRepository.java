@@ -1,10 +1,16 @@
 package tqs.zeromonos.data;
 
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 // JPA Repository for Municipalities
 public interface MunicipalityRepository extends JpaRepository<Municipality, Long>{
     Optional<Municipality> findByName(String municipalityName);
-}
\ No newline at end of file
+
+    // Nomes de todos os municípios numa única query (sem carregar entidades)
+    @Query("SELECT m.name FROM Municipality m")
+    Set<String> findAllNames();
+}
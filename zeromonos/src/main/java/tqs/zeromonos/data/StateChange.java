@@ -1,57 +1,44 @@
 package tqs.zeromonos.data;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
-import java.util.UUID;
+import java.time.ZoneOffset;
 
 import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
+import jakarta.persistence.Embeddable;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.Table;
 
-@Entity
-@Table(name = "booking_state_changes")
+/**
+ * Uma entrada do histórico de estados de uma reserva.
+ *
+ * Não é uma entidade: as entradas são linhas de uma tabela só de
+ * acrescentar ({@code booking_state_changes}), com chave (booking_id, seq),
+ * pertencentes à reserva. O estado é guardado como ordinal e o instante em
+ * milissegundos desde a época, para manter as linhas pequenas.
+ */
+@Embeddable
 public class StateChange {
-    @Id
-    @GeneratedValue
-    private UUID id;
 
-    // Um booking pode ter várias mudanças de estado, mas cada mudança de estado estará sempre associada a um único booking
-    @ManyToOne(optional = false)
-    @JoinColumn(name = "booking_id")
-    private Booking booking;
-
-    @Enumerated(EnumType.STRING)
+    // Guardado como ordinal: a ordem dos valores de BookingStatus não pode mudar
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "status", nullable = false)
     private BookingStatus status;
 
-    @Column(nullable = false)
-    private OffsetDateTime timestamp;
+    // Milissegundos desde a época (UTC)
+    @Column(name = "at_epoch_ms", nullable = false)
+    private long epochMillis;
 
     public StateChange() {
+        // Construtor vazio para JPA
     }
 
     public StateChange(BookingStatus status, OffsetDateTime timestamp) {
         this.status = status;
-        this.timestamp = timestamp;
+        setTimestamp(timestamp);
     }
 
     // Getters and Setters
-    public UUID getUuid() {
-        return id;
-    }
-    // Não fazemos setter do id porque é auto-gerado
-
-    public Booking getBooking() {
-        return booking;
-    }
-    public void setBooking(Booking booking) {
-        this.booking = booking;
-    }
-
     public BookingStatus getStatus() {
         return status;
     }
@@ -59,10 +46,15 @@ public class StateChange {
         this.status = status;
     }
 
+    // Instante da mudança, em UTC e com precisão de milissegundos
     public OffsetDateTime getTimestamp() {
-        return timestamp;
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
     }
     public void setTimestamp(OffsetDateTime timestamp) {
-        this.timestamp = timestamp;
+        this.epochMillis = timestamp.toInstant().toEpochMilli();
+    }
+
+    public long getEpochMillis() {
+        return epochMillis;
     }
 }
@@ -0,0 +1,21 @@
+package tqs.zeromonos.data;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Chave primária {@link java.util.UUID} gerada por
+ * {@link TimeOrderedUuidGenerator}: ordenada pelo instante de inserção, em vez
+ * de aleatória.
+ */
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface TimeOrderedUuid {
+}
@@ -0,0 +1,118 @@
+package tqs.zeromonos.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import tqs.zeromonos.data.TimeSlot;
+
+/**
+ * Disponibilidade de um município num intervalo de datas, dia a dia.
+ */
+public class AvailabilityResponseDTO {
+    private String municipalityName;
+    private LocalDate from;
+    private LocalDate to;
+    private int slotCapacity;
+    private List<DayAvailability> days;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public AvailabilityResponseDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public AvailabilityResponseDTO(String municipalityName, LocalDate from, LocalDate to, int slotCapacity,
+            List<DayAvailability> days) {
+        this.municipalityName = municipalityName;
+        this.from = from;
+        this.to = to;
+        this.slotCapacity = slotCapacity;
+        this.days = days;
+    }
+
+    /**
+     * Disponibilidade de um único dia: se o dia aceita reservas e que períodos
+     * ainda têm vagas.
+     */
+    public static class DayAvailability {
+        private LocalDate date;
+        private boolean bookable;
+        private List<TimeSlot> openSlots;
+
+        public DayAvailability() {
+            // Construtor vazio intencionalmente - necessário para deserialização JSON
+        }
+
+        public DayAvailability(LocalDate date, boolean bookable, List<TimeSlot> openSlots) {
+            this.date = date;
+            this.bookable = bookable;
+            this.openSlots = openSlots;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public boolean isBookable() {
+            return bookable;
+        }
+
+        public void setBookable(boolean bookable) {
+            this.bookable = bookable;
+        }
+
+        public List<TimeSlot> getOpenSlots() {
+            return openSlots;
+        }
+
+        public void setOpenSlots(List<TimeSlot> openSlots) {
+            this.openSlots = openSlots;
+        }
+    }
+
+    // Getters and Setters
+    public String getMunicipalityName() {
+        return municipalityName;
+    }
+
+    public void setMunicipalityName(String municipalityName) {
+        this.municipalityName = municipalityName;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public int getSlotCapacity() {
+        return slotCapacity;
+    }
+
+    public void setSlotCapacity(int slotCapacity) {
+        this.slotCapacity = slotCapacity;
+    }
+
+    public List<DayAvailability> getDays() {
+        return days;
+    }
+
+    public void setDays(List<DayAvailability> days) {
+        this.days = days;
+    }
+}
@@ -0,0 +1,69 @@
+package tqs.zeromonos.dto;
+
+/**
+ * Resultado de um pedido dentro de um lote (criação ou mudança de estado): o
+ * código HTTP que o pedido teria se fosse enviado sozinho (200, 400, 404 ou
+ * 409), a reserva resultante ou a mensagem de erro.
+ */
+public class BookingBatchItemDTO {
+    private int index;
+    private int status;
+    private BookingResponseDTO booking;
+    private String message;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public BookingBatchItemDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public static BookingBatchItemDTO created(int index, BookingResponseDTO booking) {
+        BookingBatchItemDTO item = new BookingBatchItemDTO();
+        item.index = index;
+        item.status = 200;
+        item.booking = booking;
+        return item;
+    }
+
+    public static BookingBatchItemDTO rejected(int index, int status, String message) {
+        BookingBatchItemDTO item = new BookingBatchItemDTO();
+        item.index = index;
+        item.status = status;
+        item.message = message;
+        return item;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public BookingResponseDTO getBooking() {
+        return booking;
+    }
+
+    public void setBooking(BookingResponseDTO booking) {
+        this.booking = booking;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,51 @@
+package tqs.zeromonos.dto;
+
+import java.util.List;
+
+/**
+ * Resposta de uma operação em lote: um resultado por pedido, pela ordem em
+ * que foram enviados, e os totais de aceites ("created") e rejeitados.
+ */
+public class BookingBatchResponseDTO {
+    private List<BookingBatchItemDTO> items;
+    private int created;
+    private int rejected;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public BookingBatchResponseDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public BookingBatchResponseDTO(List<BookingBatchItemDTO> items) {
+        this.items = items;
+        this.created = (int) items.stream().filter(item -> item.getBooking() != null).count();
+        this.rejected = items.size() - created;
+    }
+
+    // Getters and Setters
+    public List<BookingBatchItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BookingBatchItemDTO> items) {
+        this.items = items;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+}
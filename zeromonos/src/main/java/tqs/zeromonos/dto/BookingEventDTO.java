@@ -0,0 +1,86 @@
+package tqs.zeromonos.dto;
+
+import java.time.OffsetDateTime;
+
+import tqs.zeromonos.data.BookingStatus;
+
+/**
+ * Evento publicado quando uma reserva é criada ou muda de estado.
+ */
+public class BookingEventDTO {
+    public static final String CREATED = "created";
+    public static final String STATUS_CHANGED = "status";
+
+    private String type;
+    private String token;
+    private String municipalityName;
+    private BookingStatus previousStatus;
+    private BookingStatus status;
+    private OffsetDateTime timestamp;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public BookingEventDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public BookingEventDTO(String type, String token, String municipalityName, BookingStatus previousStatus,
+            BookingStatus status, OffsetDateTime timestamp) {
+        this.type = type;
+        this.token = token;
+        this.municipalityName = municipalityName;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getMunicipalityName() {
+        return municipalityName;
+    }
+
+    public void setMunicipalityName(String municipalityName) {
+        this.municipalityName = municipalityName;
+    }
+
+    public BookingStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(BookingStatus previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BookingStatus status) {
+        this.status = status;
+    }
+
+    public OffsetDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(OffsetDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,51 @@
+package tqs.zeromonos.dto;
+
+import java.util.List;
+
+/**
+ * Página de bookings da listagem do staff, com o cursor para a página seguinte
+ * (null quando não há mais resultados).
+ */
+public class BookingPageDTO {
+    private List<BookingResponseDTO> items;
+    private String nextCursor;
+    private int size;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public BookingPageDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public BookingPageDTO(List<BookingResponseDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = items.size();
+    }
+
+    // Getters and Setters
+    public List<BookingResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BookingResponseDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -5,8 +5,11 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import tqs.zeromonos.data.Booking;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.BookingSummary;
 import tqs.zeromonos.data.TimeSlot;
 import tqs.zeromonos.utils.HistoryMapper;
 
@@ -20,6 +23,8 @@ public class BookingResponseDTO {
     private BookingStatus status;
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
+    // Omitido nas listagens em que o histórico não foi pedido
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> history;
 
     /**
@@ -32,6 +37,14 @@ public class BookingResponseDTO {
     }
 
     public static BookingResponseDTO fromEntity(Booking booking) {
+        return fromEntity(booking, true);
+    }
+
+    /**
+     * Converte um booking em DTO, incluindo o histórico apenas quando pedido.
+     * Sem histórico, a coleção (lazy) nunca é acedida e não gera queries.
+     */
+    public static BookingResponseDTO fromEntity(Booking booking, boolean includeHistory) {
         if (booking == null) {
             return null;
         }
@@ -70,7 +83,9 @@ public class BookingResponseDTO {
             bookingResponseDTO.setUpdatedAt(booking.getUpdatedAt());
 
             // Mapeia o histórico de mudanças de estado para uma lista de strings legíveis
-            bookingResponseDTO.setHistory(HistoryMapper.mapHistoryToStrings(booking.getHistory()));
+            if (includeHistory) {
+                bookingResponseDTO.setHistory(HistoryMapper.mapHistoryToStrings(booking.getHistory()));
+            }
 
             return bookingResponseDTO;
         } catch (Exception e) {
@@ -78,6 +93,27 @@ public class BookingResponseDTO {
         }
     }
 
+    /**
+     * Converte a projeção usada nas listagens (sem histórico) em DTO.
+     */
+    public static BookingResponseDTO fromSummary(BookingSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+
+        BookingResponseDTO bookingResponseDTO = new BookingResponseDTO();
+        bookingResponseDTO.setId(summary.getId());
+        bookingResponseDTO.setToken(summary.getToken());
+        bookingResponseDTO.setMunicipalityName(summary.getMunicipalityName());
+        bookingResponseDTO.setDescription(summary.getDescription());
+        bookingResponseDTO.setRequestedDate(summary.getRequestedDate());
+        bookingResponseDTO.setTimeSlot(summary.getTimeSlot());
+        bookingResponseDTO.setStatus(summary.getStatus());
+        bookingResponseDTO.setCreatedAt(summary.getCreatedAt());
+        bookingResponseDTO.setUpdatedAt(summary.getUpdatedAt());
+        return bookingResponseDTO;
+    }
+
     // Getters and Setters
     public UUID getId() {
         return id;
@@ -0,0 +1,43 @@
+package tqs.zeromonos.dto;
+
+import java.util.List;
+
+import tqs.zeromonos.data.BookingStatus;
+
+/**
+ * Pedido de mudança de estado em lote: os tokens das reservas e o novo estado
+ * comum a todas.
+ */
+public class BookingStatusBatchRequestDTO {
+    private List<String> tokens;
+    private BookingStatus status;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public BookingStatusBatchRequestDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public BookingStatusBatchRequestDTO(List<String> tokens, BookingStatus status) {
+        this.tokens = tokens;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BookingStatus status) {
+        this.status = status;
+    }
+}
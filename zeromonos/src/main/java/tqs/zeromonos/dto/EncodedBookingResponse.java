@@ -0,0 +1,59 @@
+package tqs.zeromonos.dto;
+
+import java.time.OffsetDateTime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Resposta de consulta de uma reserva já serializada em JSON (UTF-8), com o
+ * ETag correspondente. Construída uma vez por versão da reserva e reutilizada
+ * em todas as consultas seguintes.
+ */
+public final class EncodedBookingResponse {
+    private final BookingResponseDTO booking;
+    private final byte[] json;
+    private final String etag;
+
+    private EncodedBookingResponse(BookingResponseDTO booking, byte[] json, String etag) {
+        this.booking = booking;
+        this.json = json;
+        this.etag = etag;
+    }
+
+    /**
+     * Serializa o DTO e calcula o ETag a partir da versão da reserva.
+     */
+    public static EncodedBookingResponse of(BookingResponseDTO booking, ObjectMapper objectMapper) {
+        try {
+            return new EncodedBookingResponse(booking, objectMapper.writeValueAsBytes(booking), etagOf(booking));
+        } catch (JsonProcessingException e) {
+            throw new DtoConversionException("Erro ao serializar reserva: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * ETag forte da reserva: muda sempre que o estado muda (novo estado, nova
+     * data de atualização e mais uma entrada no histórico).
+     */
+    public static String etagOf(BookingResponseDTO booking) {
+        OffsetDateTime version = booking.getUpdatedAt() != null ? booking.getUpdatedAt() : booking.getCreatedAt();
+        long versionNanos = version == null ? 0
+                : version.toEpochSecond() * 1_000_000_000L + version.getNano();
+        int historySize = booking.getHistory() == null ? 0 : booking.getHistory().size();
+        return "\"" + Long.toHexString(versionNanos) + "-" + booking.getStatus() + "-" + historySize + "\"";
+    }
+
+    public BookingResponseDTO getBooking() {
+        return booking;
+    }
+
+    // O array é partilhado entre pedidos e não deve ser alterado
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -0,0 +1,91 @@
+package tqs.zeromonos.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lista de nomes de municípios já serializada em JSON (UTF-8) e comprimida
+ * com gzip, com um ETag forte por representação. Construída apenas quando o
+ * conjunto de municípios muda e reutilizada em todos os pedidos.
+ */
+public final class EncodedMunicipalityList {
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    private EncodedMunicipalityList(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    /**
+     * Serializa e comprime a lista. O ETag é derivado do conteúdo (SHA-256),
+     * por isso é o mesmo em todas as instâncias e reinícios enquanto a lista
+     * não mudar.
+     */
+    public static EncodedMunicipalityList of(List<String> names, ObjectMapper objectMapper) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(names);
+            return new EncodedMunicipalityList(json, gzip(json), "\"" + contentHash(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new DtoConversionException("Erro ao serializar municípios: " + e.getMessage(), e);
+        }
+    }
+
+    // O array é partilhado entre pedidos e não deve ser alterado
+    public byte[] getJson() {
+        return json;
+    }
+
+    // O array é partilhado entre pedidos e não deve ser alterado
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * ETag da representação comprimida: tem de ser diferente da não
+     * comprimida, porque os bytes são outros.
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        // Comprimido uma única vez: vale a pena o nível máximo
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentHash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tqs.zeromonos.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lista versionada de municípios guardada em ficheiro (snapshot), usada para
+ * arrancar sem depender da API externa.
+ */
+public class MunicipalitySnapshot {
+    private int version;
+    private LocalDate generatedAt;
+    private String source;
+    private List<String> municipalities;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public MunicipalitySnapshot() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public MunicipalitySnapshot(int version, LocalDate generatedAt, String source, List<String> municipalities) {
+        this.version = version;
+        this.generatedAt = generatedAt;
+        this.source = source;
+        this.municipalities = municipalities;
+    }
+
+    // Getters and Setters
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public LocalDate getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDate generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public List<String> getMunicipalities() {
+        return municipalities;
+    }
+
+    public void setMunicipalities(List<String> municipalities) {
+        this.municipalities = municipalities;
+    }
+}
@@ -0,0 +1,71 @@
+package tqs.zeromonos.dto;
+
+import java.time.LocalDate;
+
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.TimeSlot;
+
+/**
+ * Filtros opcionais da listagem paginada do staff. Campos a null não filtram.
+ */
+public class StaffBookingFilter {
+    private String municipalityName;
+    private BookingStatus status;
+    private LocalDate from;
+    private LocalDate to;
+    private TimeSlot timeSlot;
+
+    public StaffBookingFilter() {
+        // Sem filtros por omissão
+    }
+
+    public StaffBookingFilter(String municipalityName, BookingStatus status, LocalDate from, LocalDate to,
+            TimeSlot timeSlot) {
+        this.municipalityName = municipalityName;
+        this.status = status;
+        this.from = from;
+        this.to = to;
+        this.timeSlot = timeSlot;
+    }
+
+    // Getters and Setters
+    public String getMunicipalityName() {
+        return municipalityName;
+    }
+
+    public void setMunicipalityName(String municipalityName) {
+        this.municipalityName = municipalityName;
+    }
+
+    public BookingStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BookingStatus status) {
+        this.status = status;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    public void setTimeSlot(TimeSlot timeSlot) {
+        this.timeSlot = timeSlot;
+    }
+}
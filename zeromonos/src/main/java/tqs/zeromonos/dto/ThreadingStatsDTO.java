@@ -0,0 +1,62 @@
+package tqs.zeromonos.dto;
+
+import java.util.Map;
+
+/**
+ * Modo de execução dos pedidos (threads virtuais ou de plataforma) e
+ * contadores de diagnóstico de "pinning" das threads virtuais.
+ */
+public class ThreadingStatsDTO {
+    private String mode;
+    private boolean pinningDiagnostics;
+    private long pinnedEvents;
+    private Map<String, Long> pinnedSites;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public ThreadingStatsDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public ThreadingStatsDTO(String mode, boolean pinningDiagnostics, long pinnedEvents,
+            Map<String, Long> pinnedSites) {
+        this.mode = mode;
+        this.pinningDiagnostics = pinningDiagnostics;
+        this.pinnedEvents = pinnedEvents;
+        this.pinnedSites = pinnedSites;
+    }
+
+    // Getters and Setters
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public boolean isPinningDiagnostics() {
+        return pinningDiagnostics;
+    }
+
+    public void setPinningDiagnostics(boolean pinningDiagnostics) {
+        this.pinningDiagnostics = pinningDiagnostics;
+    }
+
+    public long getPinnedEvents() {
+        return pinnedEvents;
+    }
+
+    public void setPinnedEvents(long pinnedEvents) {
+        this.pinnedEvents = pinnedEvents;
+    }
+
+    public Map<String, Long> getPinnedSites() {
+        return pinnedSites;
+    }
+
+    public void setPinnedSites(Map<String, Long> pinnedSites) {
+        this.pinnedSites = pinnedSites;
+    }
+}
@@ -0,0 +1,151 @@
+package tqs.zeromonos.dto;
+
+/**
+ * Estado do filtro de tokens (filtro de Bloom) usado nas consultas por token:
+ * dimensão, memória ocupada, taxa de falsos positivos configurada e estimada,
+ * e contadores de consultas, rejeições e falsos positivos observados.
+ */
+public class TokenFilterStatsDTO {
+    private boolean ready;
+    private long tokens;
+    private long capacity;
+    private long bits;
+    private int hashFunctions;
+    private long memoryBytes;
+    private double targetFalsePositiveRate;
+    private double estimatedFalsePositiveRate;
+    private long checks;
+    private long rejected;
+    private long falsePositives;
+    private long rebuilds;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public TokenFilterStatsDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public TokenFilterStatsDTO(boolean ready, long tokens, long capacity, long bits, int hashFunctions,
+            long memoryBytes, double targetFalsePositiveRate, double estimatedFalsePositiveRate, long checks,
+            long rejected, long falsePositives, long rebuilds) {
+        this.ready = ready;
+        this.tokens = tokens;
+        this.capacity = capacity;
+        this.bits = bits;
+        this.hashFunctions = hashFunctions;
+        this.memoryBytes = memoryBytes;
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+        this.estimatedFalsePositiveRate = estimatedFalsePositiveRate;
+        this.checks = checks;
+        this.rejected = rejected;
+        this.falsePositives = falsePositives;
+        this.rebuilds = rebuilds;
+    }
+
+    /**
+     * Fração das consultas que passaram o filtro e acabaram por não encontrar
+     * a reserva (0 quando nenhuma consulta passou o filtro).
+     */
+    public double getObservedFalsePositiveRate() {
+        long passed = checks - rejected;
+        return passed <= 0 ? 0.0 : (double) falsePositives / passed;
+    }
+
+    // Getters and Setters
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(long tokens) {
+        this.tokens = tokens;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public void setBits(long bits) {
+        this.bits = bits;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public void setHashFunctions(int hashFunctions) {
+        this.hashFunctions = hashFunctions;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public void setMemoryBytes(long memoryBytes) {
+        this.memoryBytes = memoryBytes;
+    }
+
+    public double getTargetFalsePositiveRate() {
+        return targetFalsePositiveRate;
+    }
+
+    public void setTargetFalsePositiveRate(double targetFalsePositiveRate) {
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+    }
+
+    public double getEstimatedFalsePositiveRate() {
+        return estimatedFalsePositiveRate;
+    }
+
+    public void setEstimatedFalsePositiveRate(double estimatedFalsePositiveRate) {
+        this.estimatedFalsePositiveRate = estimatedFalsePositiveRate;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public void setChecks(long checks) {
+        this.checks = checks;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    public void setFalsePositives(long falsePositives) {
+        this.falsePositives = falsePositives;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    public void setRebuilds(long rebuilds) {
+        this.rebuilds = rebuilds;
+    }
+}
@@ -0,0 +1,51 @@
+package tqs.zeromonos.dto;
+
+import java.util.Map;
+
+/**
+ * Contadores das mudanças de estado das reservas: aceites, recusadas e, das
+ * recusadas, quantas por transição ("ORIGEM->DESTINO").
+ */
+public class TransitionStatsDTO {
+    private long accepted;
+    private long rejected;
+    private Map<String, Long> rejectedTransitions;
+
+    /**
+     * Construtor vazio necessário para deserialização JSON.
+     */
+    public TransitionStatsDTO() {
+        // Construtor vazio intencionalmente - necessário para deserialização JSON
+    }
+
+    public TransitionStatsDTO(long accepted, long rejected, Map<String, Long> rejectedTransitions) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.rejectedTransitions = rejectedTransitions;
+    }
+
+    // Getters and Setters
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public Map<String, Long> getRejectedTransitions() {
+        return rejectedTransitions;
+    }
+
+    public void setRejectedTransitions(Map<String, Long> rejectedTransitions) {
+        this.rejectedTransitions = rejectedTransitions;
+    }
+}
@@ -0,0 +1,162 @@
+package tqs.zeromonos.services;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.TimeSlot;
+
+/**
+ * Calendário de disponibilidade em memória por (município, dia, período).
+ *
+ * Cada dia com reservas tem um contador por {@link TimeSlot} e um bitmap com os
+ * períodos que já estão cheios (bit i = período com ordinal i). Criar ou
+ * cancelar uma reserva atualiza apenas uma célula em O(1), e a consulta de
+ * disponibilidade lê diretamente os bitmaps sem ir à base de dados.
+ *
+ * O calendário só é reconstruído a partir da base de dados no arranque.
+ */
+@Component
+public class AvailabilityCalendar implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityCalendar.class);
+
+    private static final TimeSlot[] SLOTS = TimeSlot.values();
+    private static final int ALL_SLOTS_MASK = (1 << SLOTS.length) - 1;
+    private static final ZoneId ZONE = ZoneId.of("Europe/Lisbon");
+
+    private final BookingRepository bookingRepository;
+    private final int slotCapacity;
+
+    // Município -> (dia em epoch days -> célula do dia)
+    private final Map<Long, Map<Long, DayCell>> calendar = new ConcurrentHashMap<>();
+
+    public AvailabilityCalendar(BookingRepository bookingRepository,
+            @Value("${booking.capacity.per-slot:8}") int slotCapacity) {
+        this.bookingRepository = bookingRepository;
+        this.slotCapacity = slotCapacity;
+    }
+
+    // Ocupação de um dia: contador por período e bitmap de períodos cheios
+    private static final class DayCell {
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(SLOTS.length);
+        private volatile int fullMask;
+
+        // O bit é sempre recalculado a partir do contador atual, para que
+        // atualizações concorrentes não deixem o bitmap desatualizado
+        private synchronized void refreshBit(int slot, int capacity) {
+            boolean full = counts.get(slot) >= capacity;
+            fullMask = full ? (fullMask | (1 << slot)) : (fullMask & ~(1 << slot));
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Reconstrói o calendário a partir da base de dados com uma única query
+     * agregada (apenas dias a partir de hoje).
+     */
+    public void rebuild() {
+        calendar.clear();
+        List<Object[]> rows = bookingRepository.countActiveGroupedBySlot(LocalDate.now(ZONE), BookingStatus.CANCELLED);
+        for (Object[] row : rows) {
+            Long municipalityId = (Long) row[0];
+            LocalDate date = (LocalDate) row[1];
+            TimeSlot slot = (TimeSlot) row[2];
+            int total = ((Number) row[3]).intValue();
+
+            DayCell cell = cellFor(municipalityId, date);
+            cell.counts.set(slot.ordinal(), total);
+            cell.refreshBit(slot.ordinal(), slotCapacity);
+        }
+        logger.info("Calendário de disponibilidade carregado ({} períodos ocupados)", rows.size());
+    }
+
+    /**
+     * Tenta ocupar uma vaga no período indicado sem ultrapassar a capacidade.
+     *
+     * @return true se a vaga foi ocupada, false se o período já está cheio
+     */
+    public boolean tryReserve(Long municipalityId, LocalDate date, TimeSlot slot) {
+        DayCell cell = cellFor(municipalityId, date);
+        int index = slot.ordinal();
+        while (true) {
+            int current = cell.counts.get(index);
+            if (current >= slotCapacity) {
+                return false;
+            }
+            if (cell.counts.compareAndSet(index, current, current + 1)) {
+                if (current + 1 >= slotCapacity) {
+                    cell.refreshBit(index, slotCapacity);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Liberta uma vaga no período indicado (cancelamento ou reserva não
+     * persistida).
+     */
+    public void release(Long municipalityId, LocalDate date, TimeSlot slot) {
+        DayCell cell = cellFor(municipalityId, date);
+        int index = slot.ordinal();
+        int updated = cell.counts.updateAndGet(index, value -> value > 0 ? value - 1 : 0);
+        if (updated == slotCapacity - 1) {
+            cell.refreshBit(index, slotCapacity);
+        }
+    }
+
+    /**
+     * Bitmap dos períodos com vagas num dia (bit i = período com ordinal i).
+     */
+    public int openSlotsMask(Long municipalityId, LocalDate date) {
+        Map<Long, DayCell> days = calendar.get(municipalityId);
+        DayCell cell = days != null ? days.get(date.toEpochDay()) : null;
+        return cell == null ? ALL_SLOTS_MASK : ~cell.fullMask & ALL_SLOTS_MASK;
+    }
+
+    /**
+     * Número de vagas restantes num período.
+     */
+    public int remaining(Long municipalityId, LocalDate date, TimeSlot slot) {
+        Map<Long, DayCell> days = calendar.get(municipalityId);
+        DayCell cell = days != null ? days.get(date.toEpochDay()) : null;
+        int used = cell == null ? 0 : cell.counts.get(slot.ordinal());
+        return Math.max(0, slotCapacity - used);
+    }
+
+    public int getSlotCapacity() {
+        return slotCapacity;
+    }
+
+    /**
+     * Remove diariamente os dias que já passaram, para o calendário não crescer
+     * indefinidamente.
+     */
+    @Scheduled(cron = "${booking.capacity.calendar-prune-cron:0 5 0 * * *}", zone = "Europe/Lisbon")
+    public void pruneExpiredDays() {
+        long today = LocalDate.now(ZONE).toEpochDay();
+        calendar.values().forEach(days -> days.keySet().removeIf(day -> day < today));
+    }
+
+    private DayCell cellFor(Long municipalityId, LocalDate date) {
+        return calendar.computeIfAbsent(municipalityId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(date.toEpochDay(), day -> new DayCell());
+    }
+}
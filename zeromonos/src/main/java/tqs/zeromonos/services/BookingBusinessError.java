@@ -0,0 +1,27 @@
+package tqs.zeromonos.services;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Erro de negócio esperado (token inexistente, data inválida, sem vagas, ...),
+ * devolvido ao cliente como uma resposta de erro e não como uma falha.
+ *
+ * As implementações não capturam a stack trace (que não é usada: o erro é
+ * transformado numa resposta pelo
+ * {@link tqs.zeromonos.boundary.RestExceptionHandler}) e, quando a mensagem
+ * é constante, são instâncias partilhadas criadas uma única vez. Uma
+ * instância partilhada não deve ser alterada ({@code initCause},
+ * {@code addSuppressed}, ...).
+ */
+public interface BookingBusinessError {
+
+    /**
+     * Estado HTTP da resposta de erro.
+     */
+    HttpStatus getStatus();
+
+    /**
+     * Mensagem devolvida ao cliente.
+     */
+    String getMessage();
+}
@@ -0,0 +1,31 @@
+package tqs.zeromonos.services;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Operação incompatível com o estado atual (409): sem vagas, transição de
+ * estado recusada, alteração simultânea. Sem stack trace.
+ */
+public class BookingConflictException extends IllegalStateException implements BookingBusinessError {
+
+    public static final BookingConflictException NOT_CANCELLABLE = new BookingConflictException(
+            "O agendamento não pode ser cancelado no estado atual");
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+
+    public BookingConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.CONFLICT;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,190 @@
+package tqs.zeromonos.services;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.dto.BookingEventDTO;
+
+/**
+ * Barramento de eventos em memória para mudanças de estado de reservas.
+ *
+ * Os subscritores registam-se por token (cidadão), por município ou para todos
+ * os municípios (staff). A publicação nunca bloqueia quem altera a reserva:
+ * cada subscritor tem uma fila limitada, esvaziada por um executor partilhado.
+ * Um subscritor que não consiga acompanhar (fila cheia) é desligado, em vez
+ * de acumular eventos sem limite.
+ */
+@Component
+public class BookingEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventBus.class);
+
+    private final Executor executor;
+    private final int queueCapacity;
+
+    private final Map<String, Set<Subscription>> byToken = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> byMunicipality = new ConcurrentHashMap<>();
+    private final Set<Subscription> allMunicipalities = ConcurrentHashMap.newKeySet();
+
+    public BookingEventBus(@Qualifier("applicationTaskExecutor") Executor executor,
+            @Value("${booking.events.queue-capacity:256}") int queueCapacity) {
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Subscrição de um consumidor de eventos. Deve ser cancelada quando o
+     * consumidor deixa de estar ativo.
+     */
+    public final class Subscription {
+        // Índice e chave onde a subscrição está registada (índice null = todos)
+        private final Map<String, Set<Subscription>> index;
+        private final String key;
+        private final Consumer<BookingEventDTO> listener;
+        private final Runnable onOverflow;
+        private final Queue<BookingEventDTO> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private Subscription(Map<String, Set<Subscription>> index, String key, Consumer<BookingEventDTO> listener,
+                Runnable onOverflow) {
+            this.index = index;
+            this.key = key;
+            this.listener = listener;
+            this.onOverflow = onOverflow;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        public void cancel() {
+            cancelled = true;
+            if (index == null) {
+                allMunicipalities.remove(this);
+            } else {
+                // Remove também o conjunto quando fica vazio, para não acumular chaves
+                index.computeIfPresent(key, (k, group) -> {
+                    group.remove(this);
+                    return group.isEmpty() ? null : group;
+                });
+            }
+            queue.clear();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void offer(BookingEventDTO event) {
+            if (cancelled) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.warn("Subscritor de eventos desligado: fila cheia ({} eventos)", queueCapacity);
+                cancel();
+                onOverflow.run();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        // Apenas uma tarefa de cada vez esvazia a fila, preservando a ordem
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                BookingEventDTO event;
+                while (!cancelled && (event = queue.poll()) != null) {
+                    listener.accept(event);
+                }
+            } catch (RuntimeException e) {
+                logger.debug("Erro ao entregar evento, subscrição cancelada: {}", e.getMessage());
+                cancel();
+            } finally {
+                draining.set(false);
+            }
+            // Um evento pode ter chegado entre o último poll e o reset da flag
+            if (!cancelled && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     * Subscreve os eventos de uma reserva.
+     */
+    public Subscription subscribeToken(String token, Consumer<BookingEventDTO> listener, Runnable onOverflow) {
+        return register(byToken, token, listener, onOverflow);
+    }
+
+    /**
+     * Subscreve os eventos de um município, ou de todos quando o nome é null
+     * ou "all".
+     */
+    public Subscription subscribeMunicipality(String municipalityName, Consumer<BookingEventDTO> listener,
+            Runnable onOverflow) {
+        if (isAll(municipalityName)) {
+            Subscription subscription = new Subscription(null, null, listener, onOverflow);
+            allMunicipalities.add(subscription);
+            return subscription;
+        }
+        return register(byMunicipality, municipalityName, listener, onOverflow);
+    }
+
+    /**
+     * Publica um evento para todos os subscritores interessados, sem bloquear.
+     */
+    public void publish(BookingEventDTO event) {
+        deliver(byToken.get(event.getToken()), event);
+        deliver(byMunicipality.get(event.getMunicipalityName()), event);
+        deliver(allMunicipalities, event);
+    }
+
+    /**
+     * Número de subscrições ativas.
+     */
+    public int subscriberCount() {
+        int total = allMunicipalities.size();
+        for (Set<Subscription> group : byToken.values()) {
+            total += group.size();
+        }
+        for (Set<Subscription> group : byMunicipality.values()) {
+            total += group.size();
+        }
+        return total;
+    }
+
+    private Subscription register(Map<String, Set<Subscription>> index, String key,
+            Consumer<BookingEventDTO> listener, Runnable onOverflow) {
+        Subscription subscription = new Subscription(index, key, listener, onOverflow);
+        index.compute(key, (k, group) -> {
+            Set<Subscription> target = group != null ? group : ConcurrentHashMap.<Subscription>newKeySet();
+            target.add(subscription);
+            return target;
+        });
+        return subscription;
+    }
+
+    private static void deliver(Set<Subscription> group, BookingEventDTO event) {
+        if (group != null) {
+            group.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    private static boolean isAll(String municipalityName) {
+        return municipalityName == null || municipalityName.isEmpty() || "all".equalsIgnoreCase(municipalityName);
+    }
+}
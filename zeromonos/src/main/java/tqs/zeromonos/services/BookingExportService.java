@@ -0,0 +1,83 @@
+package tqs.zeromonos.services;
+
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import tqs.zeromonos.data.Booking;
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.dto.BookingResponseDTO;
+
+/**
+ * Exportação completa de bookings para o staff (reconciliação noturna).
+ *
+ * Os bookings são lidos com um cursor só de leitura e entregues um a um ao
+ * consumidor, sendo removidos do contexto de persistência logo a seguir. Assim
+ * a memória usada não depende do número de linhas exportadas.
+ */
+@Service
+public class BookingExportService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportService.class);
+
+    private final BookingRepository bookingRepository;
+    private final MunicipalityIndex municipalityIndex;
+    private final EntityManager entityManager;
+
+    public BookingExportService(BookingRepository bookingRepository, MunicipalityIndex municipalityIndex,
+            EntityManager entityManager) {
+        this.bookingRepository = bookingRepository;
+        this.municipalityIndex = municipalityIndex;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Resolve o município a exportar antes de a resposta começar a ser escrita,
+     * para que um município inexistente ainda possa resultar num 404.
+     *
+     * @param municipalityName nome do município, ou null/"all" para todos
+     * @return o município, ou null quando se exportam todos
+     * @throws NoSuchElementException se o município não existir
+     */
+    public Municipality resolveMunicipality(String municipalityName) {
+        if (municipalityName == null || municipalityName.isEmpty() || "all".equalsIgnoreCase(municipalityName)) {
+            return null;
+        }
+        return municipalityIndex.findByName(municipalityName)
+                .orElseThrow(() -> BookingNotFoundException.municipality(municipalityName));
+    }
+
+    /**
+     * Percorre todos os bookings (opcionalmente de um município) por ordem de
+     * criação, entregando cada um já convertido em DTO.
+     *
+     * @param municipality município a exportar, ou null para todos
+     * @param sink         consumidor de cada booking exportado
+     * @return número de bookings exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportForStaff(Municipality municipality, Consumer<BookingResponseDTO> sink) {
+        long exported = 0;
+        try (Stream<Booking> bookings = municipality == null
+                ? bookingRepository.streamAll()
+                : bookingRepository.streamByMunicipality(municipality)) {
+            var iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                Booking booking = iterator.next();
+                // Sem histórico: evita uma query por booking durante a exportação
+                sink.accept(BookingResponseDTO.fromEntity(booking, false));
+                // Liberta a entidade do contexto de persistência
+                entityManager.detach(booking);
+                exported++;
+            }
+        }
+        logger.info("Exportação de reservas concluída: {} registos", exported);
+        return exported;
+    }
+}
@@ -0,0 +1,223 @@
+package tqs.zeromonos.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.CacheStatsDTO;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+
+/**
+ * Cache das respostas de consulta por token ({@code GET /api/bookings/{token}}).
+ *
+ * Guarda os {@link BookingResponseDTO} já construídos e serializados em JSON
+ * (com o respetivo ETag), com limite de entradas
+ * (as menos usadas recentemente saem primeiro) e um tempo de vida por entrada.
+ * É preenchida na leitura e na criação de reservas; o cancelamento e a
+ * mudança de estado removem a entrada, para nunca servir um estado antigo
+ * depois de uma escrita.
+ *
+ * As leituras não usam locks: cada entrada guarda o instante do último acesso
+ * e, quando o limite é excedido, uma única thread remove de uma vez as
+ * entradas expiradas e as menos usadas (LRU aproximado).
+ */
+@Component
+public class BookingLookupCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Ordem de acesso: cada leitura ou escrita recebe o valor seguinte
+    private final AtomicLong ticks = new AtomicLong();
+
+    // Só uma thread faz a limpeza de cada vez; as outras seguem sem esperar
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    // Incrementado em cada escrita; uma leitura só preenche a cache se nenhuma
+    // escrita aconteceu entretanto (evita guardar um estado já ultrapassado)
+    private final AtomicLong writes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Entry {
+        private final EncodedBookingResponse value;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        private Entry(EncodedBookingResponse value, long expiresAt, long lastAccess) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private record Candidate(String token, Entry entry, long lastAccess) {
+    }
+
+    @Autowired
+    public BookingLookupCache(@Value("${booking.lookup-cache.max-size:10000}") int maxSize,
+            @Value("${booking.lookup-cache.ttl-seconds:60}") long ttlSeconds, ObjectMapper objectMapper) {
+        this(maxSize, Duration.ofSeconds(ttlSeconds), System::nanoTime, objectMapper);
+    }
+
+    public BookingLookupCache(int maxSize, Duration ttl, LongSupplier clock, ObjectMapper objectMapper) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo da cache tem de ser positivo");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Devolve a resposta em cache para o token, ou null se não existir ou
+     * tiver expirado.
+     */
+    public BookingResponseDTO get(String token) {
+        EncodedBookingResponse encoded = getEncoded(token);
+        return encoded == null ? null : encoded.getBooking();
+    }
+
+    /**
+     * Devolve a resposta já serializada para o token, ou null se não existir
+     * ou tiver expirado.
+     */
+    public EncodedBookingResponse getEncoded(String token) {
+        Entry entry = entries.get(token);
+        if (entry != null && entry.expiresAt - clock.getAsLong() > 0) {
+            entry.lastAccess = ticks.incrementAndGet();
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null && entries.remove(token, entry)) {
+            evictions.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Marca o início de uma leitura da base de dados. O valor devolvido deve ser
+     * passado a {@link #putIfUnchanged}.
+     */
+    public long readStamp() {
+        return writes.get();
+    }
+
+    /**
+     * Guarda o resultado de uma leitura, exceto se alguma escrita aconteceu
+     * desde {@code stamp} (nesse caso o valor lido pode já estar desatualizado).
+     *
+     * @return a resposta serializada, mesmo quando não fica guardada
+     */
+    public EncodedBookingResponse putIfUnchanged(String token, BookingResponseDTO value, long stamp) {
+        // A serialização é feita antes de bloquear a chave
+        EncodedBookingResponse encoded = EncodedBookingResponse.of(value, objectMapper);
+        Entry fresh = newEntry(encoded);
+        // compute serializa a verificação com as escritas na mesma chave
+        entries.compute(token, (key, current) -> writes.get() == stamp ? fresh : current);
+        evictIfFull();
+        return encoded;
+    }
+
+    /**
+     * Guarda a resposta de uma reserva acabada de criar (write-through).
+     *
+     * Não deve ser usado para alterações a reservas existentes: duas escritas
+     * concorrentes podem chegar aqui pela ordem inversa e deixar guardada a mais
+     * antiga; nesses casos usa-se {@link #invalidate(String)}.
+     */
+    public void put(String token, BookingResponseDTO value) {
+        Entry fresh = newEntry(EncodedBookingResponse.of(value, objectMapper));
+        entries.compute(token, (key, current) -> {
+            writes.incrementAndGet();
+            return fresh;
+        });
+        evictIfFull();
+    }
+
+    /**
+     * Remove a entrada depois de uma escrita cujo resultado não está disponível.
+     */
+    public void invalidate(String token) {
+        entries.compute(token, (key, current) -> {
+            writes.incrementAndGet();
+            return null;
+        });
+    }
+
+    public void clear() {
+        writes.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Contadores de utilização para monitorização.
+     */
+    public CacheStatsDTO stats() {
+        return new CacheStatsDTO("booking-lookup", entries.size(), maxSize, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private Entry newEntry(EncodedBookingResponse encoded) {
+        return new Entry(encoded, clock.getAsLong() + ttlNanos, ticks.incrementAndGet());
+    }
+
+    private void evictIfFull() {
+        // Quem termina a limpeza volta a verificar o tamanho: uma inserção feita
+        // enquanto outra thread limpava não fica por tratar
+        while (entries.size() > maxSize && evicting.compareAndSet(false, true)) {
+            try {
+                evictBatch();
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    // Remove as entradas expiradas e, se ainda for preciso, as menos usadas até
+    // ficar abaixo do limite com alguma folga, para que a limpeza seguinte não
+    // aconteça logo na próxima inserção
+    private void evictBatch() {
+        long now = clock.getAsLong();
+        entries.forEach((token, entry) -> {
+            if (entry.expiresAt - now <= 0 && entries.remove(token, entry)) {
+                evictions.increment();
+            }
+        });
+        int excess = entries.size() - (maxSize - maxSize / 16);
+        if (excess <= 0) {
+            return;
+        }
+        // O instante de acesso é copiado antes de ordenar: as leituras
+        // continuam a atualizá-lo durante a limpeza
+        List<Candidate> oldest = new ArrayList<>(entries.size());
+        entries.forEach((token, entry) -> oldest.add(new Candidate(token, entry, entry.lastAccess)));
+        oldest.sort(Comparator.comparingLong(Candidate::lastAccess));
+        for (int i = 0; i < excess && i < oldest.size(); i++) {
+            Candidate candidate = oldest.get(i);
+            if (entries.remove(candidate.token(), candidate.entry())) {
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package tqs.zeromonos.services;
+
+import java.util.NoSuchElementException;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Reserva ou município inexistente (404). Sem stack trace.
+ */
+public class BookingNotFoundException extends NoSuchElementException implements BookingBusinessError {
+
+    public static final BookingNotFoundException TOKEN = new BookingNotFoundException(
+            "Agendamento não encontrado para o token fornecido");
+
+    public static final BookingNotFoundException BOOKING = new BookingNotFoundException("Agendamento não encontrado");
+
+    public BookingNotFoundException(String message) {
+        super(message);
+    }
+
+    public static BookingNotFoundException municipality(String municipalityName) {
+        return new BookingNotFoundException("Município não encontrado: " + municipalityName);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -1,19 +1,34 @@
 package tqs.zeromonos.services;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.AvailabilityResponseDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
+import tqs.zeromonos.dto.StaffBookingFilter;
 
 public interface BookingService {
     // Public methods
     BookingResponseDTO createBooking(BookingRequestDTO request);
+    BookingResponseDTO createBooking(BookingRequestDTO request, String idempotencyKey);
+    BookingBatchResponseDTO createBookings(List<BookingRequestDTO> requests);
     BookingResponseDTO getBookingByToken(String bookingToken);
+    EncodedBookingResponse getEncodedBookingByToken(String bookingToken);
     void cancelBooking(String bookingToken);
     List<String> getAvailableMunicipalities();
+    EncodedMunicipalityList getEncodedMunicipalities();
+    List<String> suggestMunicipalities(String query, int limit);
+    AvailabilityResponseDTO getAvailability(String municipalityName, LocalDate from, LocalDate to);
 
     // Staff-only methods (management)
-    List<BookingResponseDTO> listForStaff(String municipalityCode);
+    List<BookingResponseDTO> listForStaff(String municipalityCode, boolean includeHistory);
+    BookingPageDTO listForStaffPage(StaffBookingFilter filter, String cursor, int size, boolean includeHistory);
     BookingResponseDTO updateBookingStatusForStaff(String token, BookingStatus newStatus);
+    BookingBatchResponseDTO updateBookingStatusForStaff(List<String> tokens, BookingStatus newStatus);
 }
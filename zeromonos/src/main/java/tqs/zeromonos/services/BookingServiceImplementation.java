@@ -1,26 +1,56 @@
 package tqs.zeromonos.services;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import tqs.zeromonos.data.Booking;
 import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingSpecifications;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.BookingSummary;
 import tqs.zeromonos.data.Municipality;
-import tqs.zeromonos.data.MunicipalityRepository;
 import tqs.zeromonos.data.StateChange;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.AvailabilityResponseDTO;
+import tqs.zeromonos.dto.BookingBatchItemDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
 import tqs.zeromonos.dto.DtoConversionException;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
+import tqs.zeromonos.dto.StaffBookingFilter;
+import tqs.zeromonos.services.BookingStateMachine.Actor;
+import tqs.zeromonos.utils.BookingCursor;
+import tqs.zeromonos.utils.BookingToken;
+import tqs.zeromonos.utils.DateValidator;
+import tqs.zeromonos.utils.LogHash;
 
 @Service
 public class BookingServiceImplementation implements BookingService {
@@ -30,44 +60,208 @@ public class BookingServiceImplementation implements BookingService {
     private static final String LOG_CAUSE = "  - Causa: {}";
 
     private BookingRepository bookingRepository;
-    private MunicipalityRepository municipalityRepository;
+    private MunicipalityIndex municipalityIndex;
+    private CapacityLedger capacityLedger;
+    private AvailabilityCalendar availabilityCalendar;
+    private BookingLookupCache bookingLookupCache;
+    private BookingEventBus bookingEventBus;
+    private IdempotencyStore idempotencyStore;
+    private BookingStateMachine bookingStateMachine;
+    private BookingTokenFilter bookingTokenFilter;
     private int maxBookingsPerMunicipality;
 
+    // Intervalo máximo (em dias) aceite numa consulta de disponibilidade
+    private static final int MAX_AVAILABILITY_RANGE_DAYS = 62;
+
+    // Tamanho máximo de uma página da listagem do staff
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Número máximo de sugestões de municípios por pedido
+    private static final int MAX_SUGGESTIONS = 20;
+
+    // Número máximo de pedidos numa criação em lote
+    private static final int MAX_BATCH_SIZE = 500;
+
+    // Tentativas de uma mudança de estado em conflito com um pedido simultâneo
+    private static final int MAX_CONFLICT_ATTEMPTS = 3;
+
     public BookingServiceImplementation(BookingRepository bookingRepository,
-            MunicipalityRepository municipalityRepository) {
+            MunicipalityIndex municipalityIndex, CapacityLedger capacityLedger,
+            AvailabilityCalendar availabilityCalendar, BookingLookupCache bookingLookupCache,
+            BookingEventBus bookingEventBus, IdempotencyStore idempotencyStore,
+            BookingStateMachine bookingStateMachine, BookingTokenFilter bookingTokenFilter) {
         this.bookingRepository = bookingRepository;
-        this.municipalityRepository = municipalityRepository;
+        this.municipalityIndex = municipalityIndex;
+        this.capacityLedger = capacityLedger;
+        this.availabilityCalendar = availabilityCalendar;
+        this.bookingLookupCache = bookingLookupCache;
+        this.bookingEventBus = bookingEventBus;
+        this.idempotencyStore = idempotencyStore;
+        this.bookingStateMachine = bookingStateMachine;
+        this.bookingTokenFilter = bookingTokenFilter;
         this.maxBookingsPerMunicipality = 32;
     }
 
     @Override
     public BookingResponseDTO createBooking(BookingRequestDTO request) {
-        logger.info("Iniciando criação de reserva para município '{}'", request.getMunicipalityName());
+        logger.debug("Iniciando criação de reserva para município '{}'", request.getMunicipalityName());
 
-        // Buscar município — lança exceção se não existir
-        Municipality municipality = municipalityRepository.findByName(request.getMunicipalityName())
+        // Buscar município no índice em memória — lança exceção se não existir
+        Municipality municipality = municipalityIndex.findByName(request.getMunicipalityName())
                 .orElseThrow(() -> {
                     String msg = "Município '" + request.getMunicipalityName() + "' não encontrado";
-                    logger.error(msg);
-                    return new IllegalArgumentException(msg);
+                    logger.debug(msg);
+                    return new InvalidBookingRequestException(msg);
                 });
 
-        logger.debug("Município '{}' encontrado na base de dados", municipality.getName());
+        logger.debug("Município '{}' encontrado no índice", municipality.getName());
 
         // Validar data da reserva
         validateDateOrThrow(request.getRequestedDate());
 
-        // Verificar limite máximo de agendamentos para o município
-        int totalBookings = bookingRepository.countByMunicipality(municipality);
-        if (totalBookings >= maxBookingsPerMunicipality) {
-            String msg = String.format("Limite de %d agendamentos atingido para o município '%s'",
-                    maxBookingsPerMunicipality, municipality.getName());
-            logger.warn(msg);
-            throw new IllegalStateException(msg);
+        // Reservar vaga no registo de capacidade (atómico, sem COUNT na base de dados)
+        if (!capacityLedger.tryReserve(municipality.getId(), maxBookingsPerMunicipality)) {
+            String msg = limitReachedMessage(municipality);
+            logger.debug(msg);
+            throw new BookingConflictException(msg);
+        }
+
+        // Reservar vaga no período pedido
+        if (!availabilityCalendar.tryReserve(municipality.getId(), request.getRequestedDate(), request.getTimeSlot())) {
+            capacityLedger.rollback(municipality.getId());
+            String msg = slotFullMessage(request.getRequestedDate(), request.getTimeSlot(), municipality);
+            logger.debug(msg);
+            throw new BookingConflictException(msg);
         }
 
         // Criar e persistir reserva
-        Booking newBooking = new Booking(
+        Booking newBooking = newBooking(municipality, request);
+
+        try {
+            bookingRepository.save(newBooking);
+        } catch (RuntimeException e) {
+            // A reserva não foi persistida: devolver as vagas
+            capacityLedger.rollback(municipality.getId());
+            availabilityCalendar.release(municipality.getId(), request.getRequestedDate(), request.getTimeSlot());
+            throw e;
+        }
+        capacityLedger.confirm(municipality.getId());
+        bookingTokenFilter.add(newBooking.getToken());
+
+        logger.debug("Reserva criada com sucesso para '{}', data {}", municipality.getName(),
+                request.getRequestedDate());
+
+        // Converter para DTO usando método auxiliar que já faz tratamento de erros
+        BookingResponseDTO response = convertBookingToDto(newBooking);
+        bookingLookupCache.put(response.getToken(), response);
+        publishEvent(BookingEventDTO.CREATED, newBooking, null);
+        return response;
+    }
+
+    @Override
+    public BookingBatchResponseDTO createBookings(List<BookingRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidBookingRequestException("O lote de reservas não pode estar vazio");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new InvalidBookingRequestException(
+                    String.format("Um lote não pode ter mais de %d reservas", MAX_BATCH_SIZE));
+        }
+        long start = System.nanoTime();
+        int total = requests.size();
+        BookingBatchItemDTO[] results = new BookingBatchItemDTO[total];
+        Municipality[] municipalities = new Municipality[total];
+
+        // 1. Validar todos os pedidos numa passagem (índice em memória, sem
+        // queries) e agrupá-los por município, pela ordem de chegada
+        Map<Long, List<Integer>> byMunicipality = new LinkedHashMap<>();
+        for (int i = 0; i < total; i++) {
+            try {
+                municipalities[i] = validateBatchItem(requests.get(i));
+                byMunicipality.computeIfAbsent(municipalities[i].getId(), id -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BookingBatchItemDTO.rejected(i, HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            }
+        }
+
+        // 2. Reservar a capacidade de cada município para o lote inteiro de uma
+        // vez; os pedidos que ficam fora do limite são rejeitados
+        List<Booking> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : byMunicipality.entrySet()) {
+            Long municipalityId = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            int granted = capacityLedger.tryReserve(municipalityId, maxBookingsPerMunicipality, indexes.size());
+            for (int n = 0; n < indexes.size(); n++) {
+                int i = indexes.get(n);
+                BookingRequestDTO request = requests.get(i);
+                Municipality municipality = municipalities[i];
+                if (n >= granted) {
+                    results[i] = BookingBatchItemDTO.rejected(i, HttpStatus.CONFLICT.value(),
+                            limitReachedMessage(municipality));
+                } else if (!availabilityCalendar.tryReserve(municipalityId, request.getRequestedDate(),
+                        request.getTimeSlot())) {
+                    capacityLedger.rollback(municipalityId);
+                    results[i] = BookingBatchItemDTO.rejected(i, HttpStatus.CONFLICT.value(),
+                            slotFullMessage(request.getRequestedDate(), request.getTimeSlot(), municipality));
+                } else {
+                    accepted.add(newBooking(municipality, request));
+                    acceptedIndexes.add(i);
+                }
+            }
+        }
+
+        // 3. Persistir as reservas aceites num único saveAll (uma transação,
+        // INSERT agrupados em batches JDBC)
+        if (!accepted.isEmpty()) {
+            try {
+                bookingRepository.saveAll(accepted);
+            } catch (RuntimeException e) {
+                // Nenhuma reserva do lote foi persistida: devolver todas as vagas
+                for (Booking booking : accepted) {
+                    Long municipalityId = booking.getMunicipality().getId();
+                    capacityLedger.rollback(municipalityId);
+                    availabilityCalendar.release(municipalityId, booking.getRequestedDate(), booking.getTimeSlot());
+                }
+                throw e;
+            }
+        }
+
+        Map<Long, Integer> confirmed = new HashMap<>();
+        for (int n = 0; n < accepted.size(); n++) {
+            Booking booking = accepted.get(n);
+            confirmed.merge(booking.getMunicipality().getId(), 1, Integer::sum);
+            bookingTokenFilter.add(booking.getToken());
+            BookingResponseDTO response = BookingResponseDTO.fromEntity(booking);
+            bookingLookupCache.put(response.getToken(), response);
+            publishEvent(BookingEventDTO.CREATED, booking, null);
+            int i = acceptedIndexes.get(n);
+            results[i] = BookingBatchItemDTO.created(i, response);
+        }
+        confirmed.forEach(capacityLedger::confirm);
+
+        logger.info("Lote de {} reservas processado em {} ms: {} criadas, {} rejeitadas", total,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), accepted.size(), total - accepted.size());
+        return new BookingBatchResponseDTO(Arrays.asList(results));
+    }
+
+    // Validação de um pedido do lote; IllegalArgumentException se for inválido
+    private Municipality validateBatchItem(BookingRequestDTO request) {
+        if (request == null || request.getMunicipalityName() == null || request.getRequestedDate() == null
+                || request.getTimeSlot() == null || request.getDescription() == null) {
+            throw new InvalidBookingRequestException(
+                    "Pedido incompleto: município, data, período e descrição são obrigatórios");
+        }
+        Municipality municipality = municipalityIndex.findByName(request.getMunicipalityName())
+                .orElseThrow(() -> new InvalidBookingRequestException(
+                        "Município '" + request.getMunicipalityName() + "' não encontrado"));
+        validateDateOrThrow(request.getRequestedDate());
+        return municipality;
+    }
+
+    // Nova reserva no estado RECEIVED, com a entrada inicial do histórico
+    private static Booking newBooking(Municipality municipality, BookingRequestDTO request) {
+        Booking booking = new Booking(
                 municipality,
                 request.getDescription(),
                 request.getRequestedDate(),
@@ -76,69 +270,97 @@ public class BookingServiceImplementation implements BookingService {
         // Criar StateChange inicial para RECEIVED
         StateChange initialStateChange = new StateChange(
                 BookingStatus.RECEIVED,
-                newBooking.getCreatedAt());
-        newBooking.addStateChange(initialStateChange);
+                booking.getCreatedAt());
+        booking.addStateChange(initialStateChange);
+        return booking;
+    }
 
-        bookingRepository.save(newBooking);
+    private String limitReachedMessage(Municipality municipality) {
+        return String.format("Limite de %d agendamentos atingido para o município '%s'",
+                maxBookingsPerMunicipality, municipality.getName());
+    }
 
-        logger.info("Reserva criada com sucesso para '{}', data {}",
-                municipality.getName(), request.getRequestedDate());
-        logger.debug("Reserva criada com token: {}", newBooking.getToken());
-        logger.debug("Histórico inicial: {} entradas", newBooking.getHistory().size());
+    private static String slotFullMessage(LocalDate date, TimeSlot slot, Municipality municipality) {
+        return String.format("Sem vagas disponíveis no período %s de %s para o município '%s'",
+                slot, date, municipality.getName());
+    }
 
-        // Converter para DTO usando método auxiliar que já faz tratamento de erros
-        return convertBookingToDto(newBooking);
+    // As regras estão no DateValidator; cada regra violada corresponde a um
+    // erro partilhado, sem stack trace
+    private static void validateDateOrThrow(LocalDate requestedDate) {
+        DateValidator.Rejection rejection = DateValidator.rejectionOf(requestedDate);
+        if (rejection == null) {
+            return;
+        }
+        throw switch (rejection) {
+            case PAST_DATE -> InvalidBookingRequestException.PAST_DATE;
+            case SAME_DAY -> InvalidBookingRequestException.SAME_DAY;
+            case SUNDAY -> InvalidBookingRequestException.SUNDAY;
+        };
     }
 
-    private void validateDateOrThrow(LocalDate requestedDate) {
-        ZoneId zone = ZoneId.of("Europe/Lisbon");
-        LocalDate today = LocalDate.now(zone);
+    @Override
+    public BookingResponseDTO createBooking(BookingRequestDTO request, String idempotencyKey) {
+        // Repetições com a mesma chave devolvem a reserva criada da primeira vez
+        return idempotencyStore.execute(idempotencyKey, request, () -> createBooking(request));
+    }
 
-        if (requestedDate.isBefore(today)) {
-            throw new IllegalArgumentException("A data solicitada não pode ser no passado");
-        }
-        if (requestedDate.isEqual(today)) {
-            throw new IllegalArgumentException("A data solicitada não pode ser no mesmo dia");
-        }
-        if (requestedDate.getDayOfWeek() == DayOfWeek.SUNDAY) {
-            throw new IllegalArgumentException("Não são feitas recolhas ao fim de semana");
+    @Override
+    public BookingResponseDTO getBookingByToken(String token) {
+        // Forma canónica: um token antigo (UUID) usa a mesma entrada da cache
+        String cleanToken = token != null ? BookingToken.normalize(token) : "";
+        if (!cleanToken.isEmpty()) {
+            BookingResponseDTO cached = bookingLookupCache.get(cleanToken);
+            if (cached != null) {
+                logger.debug("Reserva servida a partir da cache");
+                return cached;
+            }
         }
+        long stamp = bookingLookupCache.readStamp();
+        BookingResponseDTO response = loadBookingByToken(cleanToken);
+        bookingLookupCache.putIfUnchanged(cleanToken, response, stamp);
+        return response;
     }
 
     @Override
-    public BookingResponseDTO getBookingByToken(String token) {
-        logger.info("=== GET /api/bookings/{} ===", token);
-        logger.info("Buscando reserva com token: {}", token);
-        logger.info("Tamanho do token: {}", token != null ? token.length() : 0);
+    public EncodedBookingResponse getEncodedBookingByToken(String token) {
+        String cleanToken = token != null ? BookingToken.normalize(token) : "";
+        if (!cleanToken.isEmpty()) {
+            EncodedBookingResponse cached = bookingLookupCache.getEncoded(cleanToken);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long stamp = bookingLookupCache.readStamp();
+        BookingResponseDTO response = loadBookingByToken(cleanToken);
+        return bookingLookupCache.putIfUnchanged(cleanToken, response, stamp);
+    }
 
+    // Lê a reserva da base de dados (sem passar pela cache)
+    // O resultado de cada pedido fica no evento de RequestSummaryFilter; aqui só
+    // há detalhe em debug
+    private BookingResponseDTO loadBookingByToken(String token) {
         try {
             if (token == null || token.trim().isEmpty()) {
-                logger.warn("⚠️ Token inválido ou vazio");
-                throw new IllegalArgumentException("Token inválido ou vazio");
+                logger.debug("Token inválido ou vazio");
+                throw InvalidBookingRequestException.INVALID_TOKEN;
             }
 
             String cleanToken = token.trim();
-            logger.debug("Token limpo: '{}'", cleanToken);
-
-            Optional<Booking> bookingOpt = bookingRepository.findByToken(cleanToken);
-            logger.debug("Resultado da busca no repositório: {}",
-                    bookingOpt.isPresent() ? "encontrado" : "não encontrado");
-
+            Optional<Booking> bookingOpt = findByToken(cleanToken);
             if (bookingOpt.isEmpty()) {
-                logger.warn("⚠️ Agendamento não encontrado para token: {}", cleanToken);
-                throw new NoSuchElementException("Agendamento não encontrado para o token fornecido");
+                logger.debug("Agendamento não encontrado para o token pedido");
+                throw BookingNotFoundException.TOKEN;
             }
 
             Booking booking = bookingOpt.get();
-            logger.info("✅ Reserva encontrada:");
-            logger.info("  - ID: {}", booking.getId());
-            logger.info("  - Token: {}", booking.getToken());
-            logger.info("  - Município: {}",
-                    booking.getMunicipality() != null ? booking.getMunicipality().getName() : "N/A");
-            logger.info("  - Data: {}", booking.getRequestedDate());
-            logger.info("  - Status: {}", booking.getStatus());
-            logger.info("  - TimeSlot: {}", booking.getTimeSlot());
-            logger.info("  - History size: {}", booking.getHistory() != null ? booking.getHistory().size() : 0);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Reserva encontrada: id={}, município={}, data={}, período={}, estado={}, histórico={}",
+                        booking.getId(),
+                        booking.getMunicipality() != null ? booking.getMunicipality().getName() : "N/A",
+                        booking.getRequestedDate(), booking.getTimeSlot(), booking.getStatus(),
+                        booking.getHistory() != null ? booking.getHistory().size() : 0);
+            }
 
             // Converter para DTO com tratamento de erro
             return convertBookingToDto(booking);
@@ -165,108 +387,491 @@ public class BookingServiceImplementation implements BookingService {
 
     @Override
     public void cancelBooking(String token) {
-        logger.info("Tentativa de cancelamento de reserva com token: {}", token);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Tentativa de cancelamento de reserva com token: {}", LogHash.ofToken(token));
+        }
+        retryOnConflict(token, () -> cancel(token));
+    }
 
-        Booking booking = bookingRepository.findByToken(token)
-                .orElseThrow(() -> {
-                    logger.error("Agendamento não encontrado para token: {}", token);
-                    return new NoSuchElementException("Agendamento não encontrado para o token fornecido");
-                });
+    // Uma tentativa de cancelamento, a partir do estado atual na base de dados
+    private Booking cancel(String token) {
+        // O 404 já fica no evento de resumo do pedido
+        Booking booking = findByToken(token)
+                .orElseThrow(() -> BookingNotFoundException.TOKEN);
 
         BookingStatus status = booking.getStatus();
-        if (status == BookingStatus.RECEIVED || status == BookingStatus.ASSIGNED) {
-            StateChange stateChange = new StateChange(BookingStatus.CANCELLED, java.time.OffsetDateTime.now());
-            booking.addStateChange(stateChange);
+        if (!bookingStateMachine.tryTransition(Actor.CITIZEN, status, BookingStatus.CANCELLED)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Não é possível cancelar agendamento com token '{}' no estado {}",
+                        LogHash.ofToken(token), status);
+            }
+            throw BookingConflictException.NOT_CANCELLABLE;
+        }
+        StateChange stateChange = new StateChange(BookingStatus.CANCELLED, java.time.OffsetDateTime.now());
+        booking.addStateChange(stateChange);
+        // Anunciado antes de gravar: a reconciliação não corrige o município
+        // enquanto a vaga não for devolvida
+        Long municipalityId = booking.getMunicipality().getId();
+        capacityLedger.prepareRelease(municipalityId);
+        try {
             bookingRepository.save(booking);
-            logger.info("Agendamento com token '{}' cancelado com sucesso", token);
-        } else {
-            logger.warn("Não é possível cancelar agendamento com token '{}' no estado {}", token, status);
-            throw new IllegalStateException("O agendamento não pode ser cancelado no estado atual");
+        } catch (RuntimeException e) {
+            capacityLedger.abortRelease(municipalityId);
+            throw e;
+        } finally {
+            bookingLookupCache.invalidate(booking.getToken());
+        }
+        releaseCapacity(booking);
+        publishEvent(BookingEventDTO.STATUS_CHANGED, booking, status);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Agendamento com token '{}' cancelado com sucesso", LogHash.ofToken(token));
+        }
+        return booking;
+    }
+
+    // Procura a reserva por token, sem ir à base de dados quando o filtro de
+    // tokens garante que o token não existe
+    private Optional<Booking> findByToken(String token) {
+        if (!bookingTokenFilter.mightContain(token)) {
+            return Optional.empty();
+        }
+        Optional<Booking> booking = bookingRepository.findByToken(token);
+        if (booking.isEmpty()) {
+            bookingTokenFilter.recordFalsePositive();
+        }
+        return booking;
+    }
+
+    /**
+     * Executa uma mudança de estado de uma reserva, repetindo-a quando outro
+     * pedido alterou a mesma reserva entretanto (conflito de versão). Cada
+     * tentativa volta a ler a reserva e a validar a transição: se continuar a
+     * ser permitida a partir do novo estado (por exemplo, o cidadão cancela
+     * enquanto o staff atribui), é aplicada; se não (o staff já concluiu), a
+     * máquina de estados recusa-a com 409. Esgotadas as tentativas, o conflito
+     * também é devolvido como 409.
+     */
+    private <T> T retryOnConflict(String token, Supplier<T> operation) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_CONFLICT_ATTEMPTS) {
+                    logger.debug("Reserva com token {} alterada em simultâneo; desistindo após {} tentativas",
+                            LogHash.ofToken(token), attempt);
+                    throw new BookingConflictException(
+                            "O agendamento foi alterado por outro pedido em simultâneo; tente novamente", e);
+                }
+                logger.debug("Conflito de versão na reserva com token '{}' (tentativa {} de {})",
+                        LogHash.ofToken(token), attempt, MAX_CONFLICT_ATTEMPTS);
+            }
         }
     }
 
     @Override
     public List<String> getAvailableMunicipalities() {
-        logger.info("=== GET /api/bookings/municipalities ===");
-        logger.info("Buscando municípios disponíveis no repositório...");
+        logger.debug("=== GET /api/bookings/municipalities ===");
 
-        List<Municipality> municipalities = municipalityRepository.findAll();
-        logger.info("Municípios encontrados na base de dados: {}", municipalities.size());
+        // Lista imutável já ordenada, mantida pelo índice em memória
+        List<String> municipalityNames = municipalityIndex.names();
 
-        if (municipalities.isEmpty()) {
-            logger.warn("⚠️ Nenhum município disponível encontrado na base de dados!");
+        if (municipalityNames.isEmpty()) {
+            logger.warn("⚠️ Nenhum município disponível no índice!");
             logger.warn("⚠️ Verifique se MunicipalityImportService carregou os municípios corretamente.");
             return List.of(); // Retorna lista vazia
         }
 
-        List<String> municipalityNames = municipalities.stream()
-                .map(Municipality::getName)
-                .toList();
-
-        logger.info("Total de municípios retornados: {}", municipalityNames.size());
-        logger.debug("Primeiros 5 municípios: {}", municipalityNames.stream().limit(5).toList());
+        logger.debug("Total de municípios retornados: {}", municipalityNames.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Primeiros 5 municípios: {}", municipalityNames.stream().limit(5).toList());
+        }
 
         return municipalityNames;
     }
 
-    // Staff: lista bookings de um município
     @Override
-    public List<BookingResponseDTO> listForStaff(String municipalityName) {
-        logger.info("=== GET /api/staff/bookings ===");
-        logger.info("Buscando reservas para município: {}", municipalityName);
+    public EncodedMunicipalityList getEncodedMunicipalities() {
+        return municipalityIndex.encodedNames();
+    }
 
-        List<Booking> bookings;
+    @Override
+    public List<String> suggestMunicipalities(String query, int limit) {
+        int max = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        return municipalityIndex.suggest(query, max);
+    }
 
-        if (municipalityName == null || "all".equalsIgnoreCase(municipalityName) || municipalityName.isEmpty()) {
-            logger.info("Listando TODAS as reservas (município: 'all')");
-            bookings = bookingRepository.findAll();
-            logger.info("Total de reservas encontradas: {}", bookings.size());
+    // Staff: lista bookings de um município (histórico apenas quando pedido)
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDTO> listForStaff(String municipalityName, boolean includeHistory) {
+        logger.debug("Listagem do staff: município={}, histórico={}", municipalityName, includeHistory);
+
+        Municipality municipality = null;
+        if (municipalityName != null && !"all".equalsIgnoreCase(municipalityName) && !municipalityName.isEmpty()) {
+            municipality = municipalityIndex.findByName(municipalityName)
+                    .orElseThrow(() -> BookingNotFoundException.municipality(municipalityName));
+        }
+
+        List<BookingResponseDTO> result;
+        if (includeHistory) {
+            // Entidades completas: os históricos são inicializados em lotes
+            List<Booking> bookings = municipality == null
+                    ? bookingRepository.findAll()
+                    : bookingRepository.findByMunicipality(municipality);
+            result = bookings.stream()
+                    .map(booking -> BookingResponseDTO.fromEntity(booking, true))
+                    .toList();
         } else {
-            logger.info("Filtrando por município: '{}'", municipalityName);
-            Optional<Municipality> municipalityOpt = municipalityRepository.findByName(municipalityName);
+            // Projeção sem histórico: uma única query
+            List<BookingSummary> summaries = municipality == null
+                    ? bookingRepository.findAllSummaries()
+                    : bookingRepository.findSummariesByMunicipality(municipality);
+            result = summaries.stream()
+                    .map(BookingResponseDTO::fromSummary)
+                    .toList();
+        }
 
-            if (municipalityOpt.isEmpty()) {
-                logger.warn("⚠️ Município '{}' não encontrado na base de dados", municipalityName);
-                throw new NoSuchElementException("Município não encontrado: " + municipalityName);
-            }
+        logger.debug("Listagem do staff: {} reservas", result.size());
+        return result;
+    }
 
-            Municipality municipality = municipalityOpt.get();
-            logger.info("Município encontrado: {}", municipality.getName());
-            bookings = bookingRepository.findByMunicipality(municipality);
-            logger.info("Total de reservas encontradas para '{}': {}", municipalityName, bookings.size());
+    // Staff: listagem paginada por keyset (createdAt, id), mais recentes primeiro
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDTO listForStaffPage(StaffBookingFilter filter, String cursor, int size, boolean includeHistory) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        BookingCursor after = BookingCursor.decode(cursor);
+
+        Municipality municipality = null;
+        String municipalityName = filter.getMunicipalityName();
+        if (municipalityName != null && !municipalityName.isEmpty() && !"all".equalsIgnoreCase(municipalityName)) {
+            municipality = municipalityIndex.findByName(municipalityName)
+                    .orElseThrow(() -> BookingNotFoundException.municipality(municipalityName));
         }
 
-        List<BookingResponseDTO> result = bookings.stream()
-                .map(booking -> {
-                    logger.debug("Convertendo reserva: token={}, municipio={}, status={}",
-                            booking.getToken(),
-                            booking.getMunicipality() != null ? booking.getMunicipality().getName() : "N/A",
-                            booking.getStatus());
-                    return BookingResponseDTO.fromEntity(booking);
-                })
-                .toList();
+        Specification<Booking> spec = Specification.allOf(
+                BookingSpecifications.hasMunicipality(municipality),
+                BookingSpecifications.hasStatus(filter.getStatus()),
+                BookingSpecifications.hasTimeSlot(filter.getTimeSlot()),
+                BookingSpecifications.requestedFrom(filter.getFrom()),
+                BookingSpecifications.requestedUntil(filter.getTo()),
+                after == null ? null : BookingSpecifications.before(after.getCreatedAt(), after.getId()));
+
+        // Pede mais um elemento do que o tamanho da página para saber se há página seguinte
+        // O município vem no mesmo select; o histórico só é lido se for pedido
+        List<Booking> rows = bookingRepository.findBy(spec, query -> query
+                .project("municipality")
+                .sortBy(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(pageSize + 1)
+                .all());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Booking> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Booking last = page.get(page.size() - 1);
+            nextCursor = new BookingCursor(last.getCreatedAt(), last.getId()).encode();
+        }
 
-        logger.info("Total de DTOs retornados: {}", result.size());
-        return result;
+        List<BookingResponseDTO> items = page.stream()
+                .map(booking -> BookingResponseDTO.fromEntity(booking, includeHistory))
+                .toList();
+        logger.debug("Página de reservas para staff: {} itens, mais páginas: {}", items.size(), hasMore);
+        return new BookingPageDTO(items, nextCursor);
     }
 
     // Staff: atualiza status de um booking
     @Override
     public BookingResponseDTO updateBookingStatusForStaff(String token, BookingStatus newStatus) {
-        logger.info("Atualizando status da reserva com token: {} para {}", token, newStatus);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Atualizando status da reserva com token: {} para {}", LogHash.ofToken(token), newStatus);
+        }
+        return retryOnConflict(token, () -> updateStatus(token, newStatus));
+    }
+
+    // Uma tentativa de mudança de estado pelo staff, a partir do estado atual
+    // na base de dados
+    private BookingResponseDTO updateStatus(String token, BookingStatus newStatus) {
+        var booking = findByToken(token)
+                .orElseThrow(() -> BookingNotFoundException.BOOKING);
+
+        BookingStatus previousStatus = booking.getStatus();
+        Long municipalityId = booking.getMunicipality().getId();
 
-        var booking = bookingRepository.findByToken(token)
-                .orElseThrow(() -> new NoSuchElementException("Agendamento não encontrado"));
+        // Validada antes de reservar vagas: uma transição inválida não toca na capacidade
+        bookingStateMachine.checkTransition(Actor.STAFF, previousStatus, newStatus);
+
+        // Reativar uma reserva cancelada volta a ocupar uma vaga
+        boolean reactivating = previousStatus == BookingStatus.CANCELLED;
+        if (reactivating && !capacityLedger.tryReserve(municipalityId, maxBookingsPerMunicipality)) {
+            throw new BookingConflictException(limitReachedMessage(booking.getMunicipality()));
+        }
+        if (reactivating && !availabilityCalendar.tryReserve(municipalityId, booking.getRequestedDate(),
+                booking.getTimeSlot())) {
+            capacityLedger.rollback(municipalityId);
+            throw new BookingConflictException(
+                    slotFullMessage(booking.getRequestedDate(), booking.getTimeSlot(), booking.getMunicipality()));
+        }
 
         // Cria e adiciona mudança de estado
         OffsetDateTime ts = java.time.OffsetDateTime.now();
         var stateChange = new StateChange(newStatus, ts);
         booking.addStateChange(stateChange);
 
-        bookingRepository.save(booking);
-        logger.info("{} : Status da reserva com token '{}' atualizado para {}", ts, token, newStatus);
+        boolean cancelling = !reactivating && newStatus == BookingStatus.CANCELLED;
+        if (cancelling) {
+            capacityLedger.prepareRelease(municipalityId);
+        }
+        try {
+            bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            bookingLookupCache.invalidate(booking.getToken());
+            if (reactivating) {
+                capacityLedger.rollback(municipalityId);
+                availabilityCalendar.release(municipalityId, booking.getRequestedDate(), booking.getTimeSlot());
+            } else if (cancelling) {
+                capacityLedger.abortRelease(municipalityId);
+            }
+            throw e;
+        }
+
+        if (reactivating) {
+            capacityLedger.confirm(municipalityId);
+        } else if (cancelling) {
+            // Cancelamento pelo staff devolve a vaga ao município
+            releaseCapacity(booking);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} : Status da reserva com token '{}' atualizado para {}", ts, LogHash.ofToken(token),
+                    newStatus);
+        }
+
+        // Remove em vez de guardar: uma atualização concorrente mais recente
+        // podia ser sobreposta por esta resposta; a próxima leitura repõe-na
+        bookingLookupCache.invalidate(booking.getToken());
+        BookingResponseDTO response = convertBookingToDto(booking);
+        publishEvent(BookingEventDTO.STATUS_CHANGED, booking, previousStatus);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public BookingBatchResponseDTO updateBookingStatusForStaff(List<String> tokens, BookingStatus newStatus) {
+        if (newStatus == null) {
+            throw new InvalidBookingRequestException("O novo estado é obrigatório");
+        }
+        if (tokens == null || tokens.isEmpty()) {
+            throw new InvalidBookingRequestException("A lista de tokens não pode estar vazia");
+        }
+        if (tokens.size() > MAX_BATCH_SIZE) {
+            throw new InvalidBookingRequestException(
+                    String.format("Um lote não pode ter mais de %d reservas", MAX_BATCH_SIZE));
+        }
+        long start = System.nanoTime();
+        int total = tokens.size();
+        BookingBatchItemDTO[] results = new BookingBatchItemDTO[total];
+
+        // Todas as reservas numa única query IN (com município e histórico)
+        // Tokens na forma canónica: um token antigo (UUID) e o mesmo token em
+        // base62 são a mesma reserva
+        List<String> canonicalTokens = tokens.stream().map(BookingToken::normalize).toList();
+        Set<String> distinctTokens = new HashSet<>(canonicalTokens);
+        distinctTokens.remove(null);
+        distinctTokens.removeIf(token -> !bookingTokenFilter.mightContain(token));
+        Map<String, Booking> byToken = new HashMap<>();
+        if (!distinctTokens.isEmpty()) {
+            for (Booking booking : bookingRepository.findByTokenIn(distinctTokens)) {
+                byToken.put(booking.getToken(), booking);
+            }
+        }
+
+        OffsetDateTime ts = OffsetDateTime.now();
+        Set<String> seen = new HashSet<>();
+        List<Booking> changed = new ArrayList<>();
+        List<Integer> changedIndexes = new ArrayList<>();
+        List<BookingStatus> previousStatuses = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            String token = canonicalTokens.get(i);
+            Booking booking = token != null ? byToken.get(token) : null;
+            if (token != null && !seen.add(token)) {
+                results[i] = BookingBatchItemDTO.rejected(i, HttpStatus.BAD_REQUEST.value(), "Token repetido no lote");
+                continue;
+            }
+            if (booking == null) {
+                results[i] = BookingBatchItemDTO.rejected(i, HttpStatus.NOT_FOUND.value(), "Agendamento não encontrado");
+                continue;
+            }
+            String rejection = batchTransitionRejection(booking, newStatus);
+            if (rejection != null) {
+                results[i] = BookingBatchItemDTO.rejected(i, HttpStatus.CONFLICT.value(), rejection);
+                continue;
+            }
+            if (booking.getStatus() != BookingStatus.CANCELLED && newStatus == BookingStatus.CANCELLED) {
+                capacityLedger.prepareRelease(booking.getMunicipality().getId());
+            }
+            previousStatuses.add(booking.getStatus());
+            booking.addStateChange(new StateChange(newStatus, ts));
+            changed.add(booking);
+            changedIndexes.add(i);
+        }
+
+        // Os novos StateChange e as atualizações das reservas são escritos na
+        // mesma transação, em batches JDBC
+        try {
+            bookingRepository.saveAll(changed);
+            bookingRepository.flush();
+        } catch (RuntimeException e) {
+            undoBatchReservations(changed, previousStatuses, newStatus);
+            throw e;
+        }
+
+        for (int n = 0; n < changed.size(); n++) {
+            BookingResponseDTO response = BookingResponseDTO.fromEntity(changed.get(n));
+            int i = changedIndexes.get(n);
+            results[i] = BookingBatchItemDTO.created(i, response);
+        }
+
+        // Capacidade, cache e eventos só mudam depois do commit: se a transação
+        // falhar, ninguém chega a ver um estado que não ficou gravado
+        afterCommit(() -> applyBatchStatusChange(changed, previousStatuses, newStatus),
+                () -> undoBatchReservations(changed, previousStatuses, newStatus));
+
+        logger.info("Mudança de estado para {} em lote ({} reservas) em {} ms: {} atualizadas, {} rejeitadas",
+                newStatus, total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), changed.size(),
+                total - changed.size());
+        return new BookingBatchResponseDTO(Arrays.asList(results));
+    }
+
+    private void applyBatchStatusChange(List<Booking> changed, List<BookingStatus> previousStatuses,
+            BookingStatus newStatus) {
+        for (int n = 0; n < changed.size(); n++) {
+            Booking booking = changed.get(n);
+            BookingStatus previousStatus = previousStatuses.get(n);
+            if (previousStatus == BookingStatus.CANCELLED) {
+                capacityLedger.confirm(booking.getMunicipality().getId());
+            } else if (newStatus == BookingStatus.CANCELLED) {
+                releaseCapacity(booking);
+            }
+            bookingLookupCache.invalidate(booking.getToken());
+            publishEvent(BookingEventDTO.STATUS_CHANGED, booking, previousStatus);
+        }
+    }
+
+    // Devolve as vagas reservadas para reativar reservas de um lote que não
+    // chegou a ser gravado e desfaz os cancelamentos anunciados
+    private void undoBatchReservations(List<Booking> changed, List<BookingStatus> previousStatuses,
+            BookingStatus newStatus) {
+        for (int n = 0; n < changed.size(); n++) {
+            Booking booking = changed.get(n);
+            bookingLookupCache.invalidate(booking.getToken());
+            Long municipalityId = booking.getMunicipality().getId();
+            if (previousStatuses.get(n) == BookingStatus.CANCELLED) {
+                capacityLedger.rollback(municipalityId);
+                availabilityCalendar.release(municipalityId, booking.getRequestedDate(), booking.getTimeSlot());
+            } else if (newStatus == BookingStatus.CANCELLED) {
+                capacityLedger.abortRelease(municipalityId);
+            }
+        }
+    }
 
-        return convertBookingToDto(booking);
+    // Corre onCommit depois do commit da transação atual, ou onRollback se ela
+    // for desfeita. Sem transação ativa, a escrita já está feita e onCommit
+    // corre de imediato
+    private static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                onCommit.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    // Motivo pelo qual a reserva não pode passar para o novo estado, ou null.
+    // Reativar uma reserva cancelada volta a ocupar uma vaga (já reservada
+    // aqui quando é aceite)
+    private String batchTransitionRejection(Booking booking, BookingStatus newStatus) {
+        BookingStatus current = booking.getStatus();
+        if (!bookingStateMachine.tryTransition(Actor.STAFF, current, newStatus)) {
+            return BookingStateMachine.rejectionMessage(current, newStatus);
+        }
+        if (current != BookingStatus.CANCELLED) {
+            return null;
+        }
+        Municipality municipality = booking.getMunicipality();
+        if (!capacityLedger.tryReserve(municipality.getId(), maxBookingsPerMunicipality)) {
+            return limitReachedMessage(municipality);
+        }
+        if (!availabilityCalendar.tryReserve(municipality.getId(), booking.getRequestedDate(), booking.getTimeSlot())) {
+            capacityLedger.rollback(municipality.getId());
+            return slotFullMessage(booking.getRequestedDate(), booking.getTimeSlot(), municipality);
+        }
+        return null;
+    }
+
+    @Override
+    public AvailabilityResponseDTO getAvailability(String municipalityName, LocalDate from, LocalDate to) {
+        if (municipalityName == null || municipalityName.isBlank()) {
+            throw new InvalidBookingRequestException("O município é obrigatório");
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new InvalidBookingRequestException("Intervalo de datas inválido");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_RANGE_DAYS) {
+            throw new InvalidBookingRequestException(
+                    String.format("O intervalo de datas não pode exceder %d dias", MAX_AVAILABILITY_RANGE_DAYS));
+        }
+
+        Municipality municipality = municipalityIndex.findByName(municipalityName)
+                .orElseThrow(() -> BookingNotFoundException.municipality(municipalityName));
+        Long municipalityId = municipality.getId();
+
+        // Sem vagas no município, nenhum período está disponível
+        boolean municipalityFull = capacityLedger.used(municipalityId) >= maxBookingsPerMunicipality;
+        TimeSlot[] slots = TimeSlot.values();
+
+        List<AvailabilityResponseDTO.DayAvailability> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            boolean bookable = !municipalityFull && DateValidator.isValidDate(date);
+            List<TimeSlot> openSlots = new ArrayList<>();
+            if (bookable) {
+                int mask = availabilityCalendar.openSlotsMask(municipalityId, date);
+                for (TimeSlot slot : slots) {
+                    if ((mask & (1 << slot.ordinal())) != 0) {
+                        openSlots.add(slot);
+                    }
+                }
+            }
+            days.add(new AvailabilityResponseDTO.DayAvailability(date, bookable && !openSlots.isEmpty(), openSlots));
+        }
+
+        return new AvailabilityResponseDTO(municipality.getName(), from, to,
+                availabilityCalendar.getSlotCapacity(), days);
+    }
+
+    // Notifica os subscritores (SSE) depois de a alteração estar persistida
+    private void publishEvent(String type, Booking booking, BookingStatus previousStatus) {
+        String municipalityName = booking.getMunicipality() != null ? booking.getMunicipality().getName() : null;
+        OffsetDateTime timestamp = booking.getUpdatedAt() != null ? booking.getUpdatedAt() : booking.getCreatedAt();
+        bookingEventBus.publish(new BookingEventDTO(type, booking.getToken(), municipalityName, previousStatus,
+                booking.getStatus(), timestamp));
+    }
+
+    // Devolve a vaga do município e do período ocupados por uma reserva cancelada
+    private void releaseCapacity(Booking booking) {
+        Long municipalityId = booking.getMunicipality().getId();
+        capacityLedger.release(municipalityId);
+        availabilityCalendar.release(municipalityId, booking.getRequestedDate(), booking.getTimeSlot());
     }
 
     /**
@@ -278,7 +883,6 @@ public class BookingServiceImplementation implements BookingService {
      */
     private BookingResponseDTO convertBookingToDto(Booking booking) {
         try {
-            logger.debug("Iniciando conversão para DTO...");
             BookingResponseDTO dto = BookingResponseDTO.fromEntity(booking);
 
             if (dto == null) {
@@ -286,11 +890,10 @@ public class BookingServiceImplementation implements BookingService {
                 throw new DtoConversionException("Erro ao converter reserva para DTO: resultado null");
             }
 
-            logger.info("✅ DTO criado com sucesso:");
-            logger.info("  - Token: {}", dto.getToken());
-            logger.info("  - Status: {}", dto.getStatus());
-            logger.info("  - History: {}", dto.getHistory() != null ? dto.getHistory().size() : 0);
-
+            if (logger.isDebugEnabled()) {
+                logger.debug("DTO criado: estado={}, histórico={}", dto.getStatus(),
+                        dto.getHistory() != null ? dto.getHistory().size() : 0);
+            }
             return dto;
         } catch (DtoConversionException e) {
             // Re-lança com contexto adicional sobre o contexto da conversão (preservando
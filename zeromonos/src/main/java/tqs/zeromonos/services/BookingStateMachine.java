@@ -0,0 +1,169 @@
+package tqs.zeromonos.services;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.TransitionStatsDTO;
+
+/**
+ * Máquina de estados das reservas.
+ *
+ * As transições permitidas estão numa tabela pré-calculada: para cada estado
+ * de origem, uma máscara de bits com os estados de destino (bit = ordinal do
+ * estado). Validar uma transição é uma consulta ao {@link EnumMap} e uma
+ * operação de bits, sem listas nem ramos por estado.
+ *
+ * Regras:
+ * <ul>
+ * <li>Uma reserva só avança (RECEIVED → ASSIGNED → IN_PROGRESS → COMPLETED),
+ * podendo o staff saltar passos; nunca recua.</li>
+ * <li>COMPLETED é final.</li>
+ * <li>O cidadão só pode cancelar antes do início da recolha (RECEIVED ou
+ * ASSIGNED); o staff pode cancelar até ao fim.</li>
+ * <li>O staff pode reativar uma reserva cancelada (para RECEIVED ou
+ * ASSIGNED).</li>
+ * <li>Mudar para o estado atual não é uma transição (não acrescenta
+ * histórico).</li>
+ * </ul>
+ *
+ * As transições recusadas são contadas por par (origem → destino), para
+ * monitorização.
+ */
+@Component
+public class BookingStateMachine {
+
+    // Quem pede a mudança de estado
+    public enum Actor {
+        CITIZEN,
+        STAFF
+    }
+
+    private static final Map<BookingStatus, Integer> CITIZEN_TRANSITIONS = new EnumMap<>(BookingStatus.class);
+    private static final Map<BookingStatus, Integer> STAFF_TRANSITIONS = new EnumMap<>(BookingStatus.class);
+
+    static {
+        for (BookingStatus status : BookingStatus.values()) {
+            CITIZEN_TRANSITIONS.put(status, 0);
+            STAFF_TRANSITIONS.put(status, 0);
+        }
+        CITIZEN_TRANSITIONS.put(BookingStatus.RECEIVED, mask(BookingStatus.CANCELLED));
+        CITIZEN_TRANSITIONS.put(BookingStatus.ASSIGNED, mask(BookingStatus.CANCELLED));
+
+        STAFF_TRANSITIONS.put(BookingStatus.RECEIVED, mask(BookingStatus.ASSIGNED, BookingStatus.IN_PROGRESS,
+                BookingStatus.COMPLETED, BookingStatus.CANCELLED));
+        STAFF_TRANSITIONS.put(BookingStatus.ASSIGNED, mask(BookingStatus.IN_PROGRESS, BookingStatus.COMPLETED,
+                BookingStatus.CANCELLED));
+        STAFF_TRANSITIONS.put(BookingStatus.IN_PROGRESS, mask(BookingStatus.COMPLETED, BookingStatus.CANCELLED));
+        STAFF_TRANSITIONS.put(BookingStatus.CANCELLED, mask(BookingStatus.RECEIVED, BookingStatus.ASSIGNED));
+    }
+
+    // Erro de cada transição recusada, criado uma única vez (sem stack trace)
+    private static final Map<BookingStatus, Map<BookingStatus, BookingConflictException>> REJECTIONS = new EnumMap<>(
+            BookingStatus.class);
+
+    static {
+        for (BookingStatus from : BookingStatus.values()) {
+            Map<BookingStatus, BookingConflictException> errors = new EnumMap<>(BookingStatus.class);
+            for (BookingStatus to : BookingStatus.values()) {
+                errors.put(to, new BookingConflictException(rejectionMessage(from, to)));
+            }
+            REJECTIONS.put(from, errors);
+        }
+    }
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // Contadores criados à partida (um por par), incrementados sem locks
+    private final Map<BookingStatus, Map<BookingStatus, LongAdder>> rejectedByTransition = new EnumMap<>(
+            BookingStatus.class);
+
+    public BookingStateMachine() {
+        for (BookingStatus from : BookingStatus.values()) {
+            Map<BookingStatus, LongAdder> counters = new EnumMap<>(BookingStatus.class);
+            for (BookingStatus to : BookingStatus.values()) {
+                counters.put(to, new LongAdder());
+            }
+            rejectedByTransition.put(from, counters);
+        }
+    }
+
+    /**
+     * Indica se a transição é permitida, sem contar nas métricas.
+     */
+    public static boolean isAllowed(Actor actor, BookingStatus from, BookingStatus to) {
+        if (from == null || to == null) {
+            return false;
+        }
+        Map<BookingStatus, Integer> table = actor == Actor.CITIZEN ? CITIZEN_TRANSITIONS : STAFF_TRANSITIONS;
+        return (table.get(from) & (1 << to.ordinal())) != 0;
+    }
+
+    /**
+     * Valida a transição e regista o resultado nas métricas.
+     *
+     * @return true se a transição é permitida
+     */
+    public boolean tryTransition(Actor actor, BookingStatus from, BookingStatus to) {
+        if (isAllowed(actor, from, to)) {
+            accepted.increment();
+            return true;
+        }
+        rejected.increment();
+        if (from != null && to != null) {
+            rejectedByTransition.get(from).get(to).increment();
+        }
+        return false;
+    }
+
+    /**
+     * Como {@link #tryTransition}, mas lança {@link IllegalStateException}
+     * (409) quando a transição não é permitida.
+     */
+    public void checkTransition(Actor actor, BookingStatus from, BookingStatus to) {
+        if (!tryTransition(actor, from, to)) {
+            throw from != null && to != null ? REJECTIONS.get(from).get(to)
+                    : new BookingConflictException(rejectionMessage(from, to));
+        }
+    }
+
+    /**
+     * Mensagem de erro para uma transição recusada.
+     */
+    public static String rejectionMessage(BookingStatus from, BookingStatus to) {
+        if (from == to) {
+            return "O agendamento já está no estado " + to;
+        }
+        if (from == BookingStatus.COMPLETED) {
+            return "Um agendamento concluído não pode mudar de estado";
+        }
+        return String.format("Não é possível mudar o estado do agendamento de %s para %s", from, to);
+    }
+
+    /**
+     * Contadores de transições aceites e recusadas (por par origem→destino).
+     */
+    public TransitionStatsDTO stats() {
+        Map<String, Long> byTransition = new TreeMap<>();
+        rejectedByTransition.forEach((from, counters) -> counters.forEach((to, counter) -> {
+            long count = counter.sum();
+            if (count > 0) {
+                byTransition.put(from + "->" + to, count);
+            }
+        }));
+        return new TransitionStatsDTO(accepted.sum(), rejected.sum(), byTransition);
+    }
+
+    private static int mask(BookingStatus... targets) {
+        int mask = 0;
+        for (BookingStatus target : targets) {
+            mask |= 1 << target.ordinal();
+        }
+        return mask;
+    }
+}
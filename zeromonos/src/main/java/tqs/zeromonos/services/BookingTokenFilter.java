@@ -0,0 +1,329 @@
+package tqs.zeromonos.services;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.dto.TokenFilterStatsDTO;
+import tqs.zeromonos.utils.BookingToken;
+
+/**
+ * Filtro de Bloom com os tokens de todas as reservas, consultado antes de ir à
+ * base de dados por token.
+ *
+ * Quando {@link #mightContain} devolve false o token de certeza que não existe
+ * (o pedido é um 404 sem query); quando devolve true pode existir, com uma
+ * probabilidade de falso positivo configurável. Um texto que nem sequer é um
+ * token válido é sempre rejeitado.
+ *
+ * O filtro é construído a partir da base de dados no arranque e os tokens
+ * novos são acrescentados depois de persistidos. Os bits ficam num
+ * {@link AtomicLongArray}: as consultas não usam locks. Como um filtro de
+ * Bloom não remove elementos nem cresce, é reconstruído (num filtro novo,
+ * trocado no fim) quando o número de tokens ultrapassa a capacidade para a
+ * qual foi dimensionado. Enquanto não existe um filtro construído, todos os
+ * tokens passam.
+ */
+@Component
+public class BookingTokenFilter implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BookingTokenFilter.class);
+
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    private final TokenSource tokenSource;
+
+    // Filtro em uso; null até à primeira construção
+    private volatile Bits current;
+
+    // Filtro em construção: os tokens criados durante a reconstrução também
+    // são escritos aqui (protegido por writeLock)
+    private Bits building;
+
+    private final Object writeLock = new Object();
+    private final Object rebuildLock = new Object();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    /**
+     * Origem dos tokens usada para (re)construir o filtro.
+     */
+    public interface TokenSource {
+        long count();
+
+        void forEachToken(Consumer<String> action);
+
+        static TokenSource of(Collection<String> tokens) {
+            return new TokenSource() {
+                @Override
+                public long count() {
+                    return tokens.size();
+                }
+
+                @Override
+                public void forEachToken(Consumer<String> action) {
+                    tokens.forEach(action);
+                }
+            };
+        }
+    }
+
+    @Autowired
+    public BookingTokenFilter(BookingRepository bookingRepository, PlatformTransactionManager transactionManager,
+            @Value("${booking.token-filter.expected-tokens:1000000}") int expectedTokens,
+            @Value("${booking.token-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this(expectedTokens, falsePositiveRate, repositorySource(bookingRepository, transactionManager));
+    }
+
+    public BookingTokenFilter(int expectedTokens, double falsePositiveRate, TokenSource tokenSource) {
+        if (expectedTokens <= 0) {
+            throw new IllegalArgumentException("O número esperado de tokens tem de ser positivo");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("A taxa de falsos positivos tem de estar entre 0 e 1");
+        }
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenSource = tokenSource;
+    }
+
+    // Os tokens são lidos com um cursor (uma só query), dentro de uma transação
+    // só de leitura para que o stream fique aberto
+    private static TokenSource repositorySource(BookingRepository bookingRepository,
+            PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return new TokenSource() {
+            @Override
+            public long count() {
+                return bookingRepository.count();
+            }
+
+            @Override
+            public void forEachToken(Consumer<String> action) {
+                readOnly.executeWithoutResult(status -> {
+                    try (Stream<String> tokens = bookingRepository.streamAllTokens()) {
+                        tokens.forEach(action);
+                    }
+                });
+            }
+        };
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Sem filtro todos os tokens passam: as consultas continuam corretas
+            logger.error("Não foi possível construir o filtro de tokens: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Indica se o token pode existir. false significa que de certeza não
+     * existe nenhuma reserva com este token.
+     */
+    public boolean mightContain(String token) {
+        checks.increment();
+        Bits bits = current;
+        if (bits == null) {
+            return true;
+        }
+        long[] key = key(token);
+        if (key == null || !bits.contains(key[0], key[1])) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Acrescenta o token de uma reserva já persistida.
+     */
+    public void add(String token) {
+        long[] key = key(token);
+        if (key == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            Bits bits = current;
+            if (bits != null) {
+                bits.add(key[0], key[1]);
+            }
+            if (building != null) {
+                building.add(key[0], key[1]);
+            }
+        }
+    }
+
+    /**
+     * Regista um token que passou o filtro mas não existe na base de dados.
+     */
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Constrói um filtro novo a partir da base de dados e substitui o atual.
+     * O filtro novo tem capacidade para o dobro dos tokens existentes (no
+     * mínimo o valor configurado).
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            long existing = tokenSource.count();
+            Bits next = new Bits(Math.max(expectedTokens, 2 * existing), falsePositiveRate);
+            // A partir daqui os tokens novos também vão para o filtro em
+            // construção; os anteriores já estão persistidos e são lidos abaixo
+            synchronized (writeLock) {
+                building = next;
+            }
+            try {
+                tokenSource.forEachToken(token -> {
+                    long[] key = key(token);
+                    if (key != null) {
+                        next.add(key[0], key[1]);
+                    }
+                });
+            } catch (RuntimeException e) {
+                synchronized (writeLock) {
+                    building = null;
+                }
+                throw e;
+            }
+            synchronized (writeLock) {
+                current = next;
+                building = null;
+            }
+            rebuilds.incrementAndGet();
+            logger.info("Filtro de tokens construído com {} tokens ({} KB) em {} ms", next.insertions.get(),
+                    next.memoryBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Reconstrói o filtro quando já tem mais tokens do que a capacidade para
+     * a qual foi dimensionado (a taxa de falsos positivos começa a subir).
+     */
+    @Scheduled(fixedDelayString = "${booking.token-filter.check-interval-ms:600000}", initialDelayString = "${booking.token-filter.check-interval-ms:600000}")
+    public void rebuildIfSaturated() {
+        Bits bits = current;
+        if (bits != null && bits.insertions.get() > bits.capacity) {
+            logger.info("Filtro de tokens saturado ({} tokens para {}); a reconstruir", bits.insertions.get(),
+                    bits.capacity);
+            rebuild();
+        }
+    }
+
+    /**
+     * Dimensão, ocupação e contadores de utilização para monitorização.
+     */
+    public TokenFilterStatsDTO stats() {
+        Bits bits = current;
+        if (bits == null) {
+            return new TokenFilterStatsDTO(false, 0, 0, 0, 0, 0, falsePositiveRate, 0.0, checks.sum(),
+                    rejected.sum(), falsePositives.sum(), rebuilds.get());
+        }
+        return new TokenFilterStatsDTO(true, bits.insertions.get(), bits.capacity, bits.bitCount, bits.hashes,
+                bits.memoryBytes(), falsePositiveRate, bits.estimatedFalsePositiveRate(), checks.sum(), rejected.sum(),
+                falsePositives.sum(), rebuilds.get());
+    }
+
+    // Os 128 bits do token (msb, lsb), ou null se não for um token válido
+    private static long[] key(String token) {
+        byte[] bytes = BookingToken.toBytes(token != null ? token.trim() : null);
+        if (bytes == null) {
+            return null;
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xFF);
+            lsb = (lsb << 8) | (bytes[8 + i] & 0xFF);
+        }
+        return new long[] { msb, lsb };
+    }
+
+    // Um filtro de Bloom com tamanho fixo. As k posições de cada token são
+    // h1 + i*h2 (Kirsch-Mitzenmacher), com h1 e h2 obtidos das duas metades do
+    // token misturadas (os primeiros 48 bits são o instante, não são aleatórios)
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashes;
+        private final long capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Bits(long capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(1L, (bits + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = wordCount * 64L;
+            this.hashes = (int) Math.max(1, Math.round((double) bitCount / capacity * ln2));
+            this.capacity = capacity;
+        }
+
+        private void add(long msb, long lsb) {
+            long h1 = mix(msb ^ lsb);
+            long h2 = mix(lsb + 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                int index = (int) (bit >>> 6);
+                if ((words.get(index) & mask) == 0) {
+                    words.getAndAccumulate(index, mask, (word, m) -> word | m);
+                }
+            }
+            insertions.incrementAndGet();
+        }
+
+        private boolean contains(long msb, long lsb) {
+            long h1 = mix(msb ^ lsb);
+            long h2 = mix(lsb + 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // (1 - e^(-kn/m))^k para o número atual de tokens
+        private double estimatedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashes * insertions.get() / bitCount), hashes);
+        }
+
+        private long memoryBytes() {
+            return words.length() * 8L;
+        }
+
+        // Finalizador do SplitMix64
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
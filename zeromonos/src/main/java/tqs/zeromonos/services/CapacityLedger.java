@@ -0,0 +1,250 @@
+package tqs.zeromonos.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+
+/**
+ * Registo em memória da capacidade ocupada por município.
+ *
+ * Cada município tem o seu próprio contador atómico (um "stripe" por chave), de
+ * modo que a decisão de admissão é O(1) e sem locks: a reserva só é aceite se
+ * um compare-and-set conseguir incrementar o contador abaixo do limite, o que
+ * impede que dois pedidos concorrentes ultrapassem o máximo.
+ *
+ * Os contadores são carregados da base de dados no arranque e reconciliados
+ * periodicamente. Reservas canceladas não contam para o limite.
+ */
+@Component
+public class CapacityLedger implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CapacityLedger.class);
+
+    private final BookingRepository bookingRepository;
+
+    // Um contador por município (chave = id do município)
+    private final Map<Long, Stripe> stripes = new ConcurrentHashMap<>();
+
+    public CapacityLedger(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    // Contadores de um município: ocupação atual, reservas ainda não
+    // persistidas e cancelamentos em curso (gravados ou a gravar, mas cuja
+    // vaga ainda não foi devolvida)
+    private static final class Stripe {
+        private final AtomicInteger used;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger releasing = new AtomicInteger();
+
+        private Stripe(int initial) {
+            this.used = new AtomicInteger(initial);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * Carrega a ocupação de todos os municípios com uma única query agregada.
+     */
+    public void warmUp() {
+        List<Object[]> rows = bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED);
+        for (Object[] row : rows) {
+            Long municipalityId = (Long) row[0];
+            int total = ((Number) row[1]).intValue();
+            stripes.computeIfAbsent(municipalityId, id -> new Stripe(0)).used.set(total);
+        }
+        logger.info("Registo de capacidade carregado para {} municípios", rows.size());
+    }
+
+    /**
+     * Tenta reservar uma vaga para o município sem nunca ultrapassar o limite.
+     *
+     * @param municipalityId id do município
+     * @param limit          número máximo de reservas ativas
+     * @return true se a vaga foi reservada, false se o limite já foi atingido
+     */
+    public boolean tryReserve(Long municipalityId, int limit) {
+        Stripe stripe = stripeFor(municipalityId);
+        AtomicInteger used = stripe.used;
+        // A vaga entra nas pendentes antes de entrar na ocupação, para que a
+        // reconciliação nunca veja uma sem a outra
+        stripe.pending.incrementAndGet();
+        while (true) {
+            int current = used.get();
+            if (current >= limit) {
+                stripe.pending.decrementAndGet();
+                return false;
+            }
+            if (used.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tenta reservar até {@code count} vagas para o município de uma só vez,
+     * sem nunca ultrapassar o limite (um único compare-and-set para o lote).
+     *
+     * @return número de vagas reservadas (entre 0 e {@code count})
+     */
+    public int tryReserve(Long municipalityId, int limit, int count) {
+        Stripe stripe = stripeFor(municipalityId);
+        AtomicInteger used = stripe.used;
+        stripe.pending.addAndGet(count);
+        while (true) {
+            int current = used.get();
+            int granted = Math.min(count, limit - current);
+            if (granted <= 0) {
+                stripe.pending.addAndGet(-count);
+                return 0;
+            }
+            if (used.compareAndSet(current, current + granted)) {
+                stripe.pending.addAndGet(granted - count);
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Confirma que uma reserva obtida com {@link #tryReserve} foi persistida.
+     */
+    public void confirm(Long municipalityId) {
+        confirm(municipalityId, 1);
+    }
+
+    /**
+     * Confirma que {@code count} reservas do município foram persistidas.
+     */
+    public void confirm(Long municipalityId, int count) {
+        stripeFor(municipalityId).pending.addAndGet(-count);
+    }
+
+    /**
+     * Desfaz uma reserva obtida com {@link #tryReserve} que não chegou a ser
+     * persistida.
+     */
+    public void rollback(Long municipalityId) {
+        Stripe stripe = stripeFor(municipalityId);
+        stripe.pending.decrementAndGet();
+        decrementFloorZero(stripe.used);
+    }
+
+    /**
+     * Anuncia um cancelamento antes de o gravar na base de dados. Deve ser
+     * seguido de {@link #release} depois de gravado, ou de
+     * {@link #abortRelease} se a gravação falhar.
+     */
+    public void prepareRelease(Long municipalityId) {
+        stripeFor(municipalityId).releasing.incrementAndGet();
+    }
+
+    /**
+     * Desfaz um {@link #prepareRelease} cujo cancelamento não foi gravado.
+     */
+    public void abortRelease(Long municipalityId) {
+        decrementFloorZero(stripeFor(municipalityId).releasing);
+    }
+
+    /**
+     * Devolve uma vaga ao município (ex.: reserva cancelada) e termina o
+     * respetivo {@link #prepareRelease}.
+     */
+    public void release(Long municipalityId) {
+        Stripe stripe = stripeFor(municipalityId);
+        decrementFloorZero(stripe.used);
+        decrementFloorZero(stripe.releasing);
+    }
+
+    /**
+     * Ocupação atual conhecida para o município.
+     */
+    public int used(Long municipalityId) {
+        return stripeFor(municipalityId).used.get();
+    }
+
+    /**
+     * Corrige eventuais desvios entre os contadores e a base de dados. As
+     * reservas ainda não persistidas são somadas ao valor lido para não abrir
+     * vagas que já foram concedidas.
+     *
+     * Os contadores de cada município são lidos antes da query (a ocupação e
+     * só depois as pendentes): uma confirmação que chegue entretanto já está
+     * incluída nas pendentes e, no pior caso, é contada duas vezes (excesso
+     * corrigido na ronda seguinte), nunca perdida. A correção é aplicada com
+     * compare-and-set sobre a ocupação lida; se o município teve reservas ou
+     * cancelamentos durante a query, ou tem um cancelamento já gravado mas
+     * com a vaga ainda por devolver, fica para a próxima ronda.
+     */
+    @Scheduled(fixedDelayString = "${booking.capacity.reconcile-interval-ms:300000}", initialDelayString = "${booking.capacity.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<Long, int[]> snapshots = new HashMap<>();
+        stripes.forEach((id, stripe) -> snapshots.put(id,
+                new int[] { stripe.used.get(), stripe.pending.get(), stripe.releasing.get() }));
+
+        List<Object[]> rows = bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED);
+        Map<Long, Integer> persisted = new HashMap<>();
+        for (Object[] row : rows) {
+            persisted.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+
+        int corrected = 0;
+        int skipped = 0;
+        for (Map.Entry<Long, int[]> entry : snapshots.entrySet()) {
+            Stripe stripe = stripes.get(entry.getKey());
+            int snapshotUsed = entry.getValue()[0];
+            int expected = persisted.getOrDefault(entry.getKey(), 0) + Math.max(0, entry.getValue()[1]);
+            if (expected == snapshotUsed) {
+                continue;
+            }
+            // A query pode já ver um cancelamento cujo release() ainda não
+            // correu: corrigir agora e depois devolver a vaga contaria duas vezes
+            if (entry.getValue()[2] > 0 || stripe.releasing.get() > 0) {
+                skipped++;
+                continue;
+            }
+            if (stripe.used.compareAndSet(snapshotUsed, expected)) {
+                corrected++;
+                logger.warn("Capacidade do município {} corrigida de {} para {}", entry.getKey(), snapshotUsed, expected);
+            } else {
+                skipped++;
+            }
+        }
+        persisted.forEach((id, total) -> stripes.computeIfAbsent(id, key -> new Stripe(total)));
+
+        logger.debug("Reconciliação de capacidade concluída ({} correções, {} adiadas)", corrected, skipped);
+    }
+
+    // Municípios que ainda não estão no registo são carregados individualmente.
+    // A query corre fora do computeIfAbsent: o mapa bloqueia o bucket com um
+    // monitor enquanto a função corre, e uma thread virtual à espera da base de
+    // dados dentro dele ficaria presa à thread de plataforma
+    private Stripe stripeFor(Long municipalityId) {
+        Stripe stripe = stripes.get(municipalityId);
+        if (stripe != null) {
+            return stripe;
+        }
+        int persisted = (int) bookingRepository.countByMunicipalityIdAndStatusNot(municipalityId,
+                BookingStatus.CANCELLED);
+        Stripe loaded = stripes.putIfAbsent(municipalityId, new Stripe(persisted));
+        return loaded != null ? loaded : stripes.get(municipalityId);
+    }
+
+    private static void decrementFloorZero(AtomicInteger counter) {
+        counter.getAndUpdate(value -> value > 0 ? value - 1 : 0);
+    }
+}
@@ -0,0 +1,228 @@
+package tqs.zeromonos.services;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.data.IdempotencyRecord;
+import tqs.zeromonos.data.IdempotencyRecordRepository;
+import tqs.zeromonos.dto.BookingRequestDTO;
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.DtoConversionException;
+import tqs.zeromonos.utils.LogHash;
+
+/**
+ * Registo das chaves {@code Idempotency-Key} da criação de reservas.
+ *
+ * Um cliente que repete {@code POST /api/bookings} com a mesma chave (por
+ * exemplo depois de um timeout) recebe a resposta original em vez de criar
+ * outra reserva e gastar mais uma vaga. Cada chave fica associada ao hash do
+ * corpo do pedido: reutilizá-la com um pedido diferente é rejeitado.
+ *
+ * As chaves recentes estão em memória (limite de entradas, as menos usadas
+ * saem primeiro) e todas ficam também na tabela {@code idempotency_keys},
+ * consultada quando a chave já saiu da memória ou depois de um reinício.
+ * Passado o tempo de vida, a chave pode voltar a ser usada.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+
+    // LinkedHashMap por ordem de acesso: a entrada mais antiga é a menos usada
+    private final Map<String, Entry> entries;
+
+    // Chaves com um pedido em curso (chave → hash do pedido)
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+
+    private record Entry(String requestHash, BookingResponseDTO response, Instant expiresAt) {
+    }
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+            @Value("${booking.idempotency.max-size:10000}") int maxSize,
+            @Value("${booking.idempotency.ttl-hours:24}") long ttlHours) {
+        this(repository, objectMapper, maxSize, Duration.ofHours(ttlHours), Clock.systemUTC());
+    }
+
+    public IdempotencyStore(IdempotencyRecordRepository repository, ObjectMapper objectMapper, int maxSize,
+            Duration ttl, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo do registo de idempotência tem de ser positivo");
+        }
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Executa a criação uma única vez por chave. Se a chave já foi usada com o
+     * mesmo pedido, devolve a resposta original sem executar {@code action}.
+     *
+     * @throws IllegalArgumentException se a chave for inválida ou já tiver
+     *                                  sido usada com outro pedido
+     * @throws IllegalStateException    se outro pedido com a mesma chave ainda
+     *                                  estiver em curso
+     */
+    public BookingResponseDTO execute(String key, BookingRequestDTO request, Supplier<BookingResponseDTO> action) {
+        validateKey(key);
+        String requestHash = hashOf(request);
+
+        Optional<BookingResponseDTO> stored = find(key, requestHash);
+        if (stored.isPresent()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Pedido repetido com a Idempotency-Key {}: devolvida a resposta original",
+                        LogHash.of(key));
+            }
+            return stored.get();
+        }
+
+        if (inFlight.putIfAbsent(key, requestHash) != null) {
+            throw new BookingConflictException("Já existe um pedido em curso com a mesma Idempotency-Key");
+        }
+        try {
+            // O pedido anterior pode ter terminado entre a consulta e a marcação
+            stored = find(key, requestHash);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            BookingResponseDTO response = action.get();
+            remember(key, requestHash, response);
+            return response;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Remove as chaves expiradas da memória e da base de dados.
+     */
+    @Scheduled(fixedDelayString = "${booking.idempotency.purge-interval-ms:3600000}", initialDelayString = "${booking.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant now = clock.instant();
+        synchronized (entries) {
+            entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+        }
+        int removed = repository.deleteCreatedBefore(OffsetDateTime.ofInstant(now.minus(ttl), clock.getZone()));
+        logger.debug("Chaves de idempotência expiradas removidas: {}", removed);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Memória primeiro; a base de dados só quando a chave não está em memória
+    private Optional<BookingResponseDTO> find(String key, String requestHash) {
+        Instant now = clock.instant();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && !entry.expiresAt().isAfter(now)) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            entry = load(key, now);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+        if (!entry.requestHash().equals(requestHash)) {
+            throw new InvalidBookingRequestException("A Idempotency-Key indicada já foi usada com um pedido diferente");
+        }
+        return Optional.of(entry.response());
+    }
+
+    private Entry load(String key, Instant now) {
+        Optional<IdempotencyRecord> found = repository.findById(key);
+        if (found.isEmpty()) {
+            return null;
+        }
+        IdempotencyRecord stored = found.get();
+        Instant expiresAt = stored.getCreatedAt().toInstant().plus(ttl);
+        if (!expiresAt.isAfter(now)) {
+            return null;
+        }
+        try {
+            BookingResponseDTO response = objectMapper.readValue(stored.getResponseJson(), BookingResponseDTO.class);
+            return new Entry(stored.getRequestHash(), response, expiresAt);
+        } catch (JsonProcessingException e) {
+            throw new DtoConversionException("Erro ao ler resposta guardada: " + e.getMessage(), e);
+        }
+    }
+
+    // A reserva já existe: uma falha a guardar na base de dados só perde a
+    // proteção depois de a chave sair da memória, por isso não é propagada
+    private void remember(String key, String requestHash, BookingResponseDTO response) {
+        Instant now = clock.instant();
+        synchronized (entries) {
+            entries.put(key, new Entry(requestHash, response, now.plus(ttl)));
+        }
+        try {
+            repository.save(new IdempotencyRecord(key, requestHash, response.getToken(),
+                    objectMapper.writeValueAsString(response), OffsetDateTime.ofInstant(now, clock.getZone())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Idempotency-Key {} não guardada na base de dados: {}", LogHash.of(key), e.getMessage());
+        }
+    }
+
+    private static void validateKey(String key) {
+        if (key == null || key.isBlank()) {
+            throw new InvalidBookingRequestException("A Idempotency-Key não pode estar vazia");
+        }
+        if (key.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new InvalidBookingRequestException(
+                    "A Idempotency-Key não pode ter mais de " + IdempotencyRecord.MAX_KEY_LENGTH + " caracteres");
+        }
+    }
+
+    // Impressão digital do pedido: SHA-256 do corpo serializado
+    private String hashOf(BookingRequestDTO request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException e) {
+            throw new DtoConversionException("Erro ao serializar pedido: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package tqs.zeromonos.services;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Pedido inválido segundo as regras de negócio (400). Sem stack trace.
+ */
+public class InvalidBookingRequestException extends IllegalArgumentException implements BookingBusinessError {
+
+    public static final InvalidBookingRequestException INVALID_TOKEN = new InvalidBookingRequestException(
+            "Token inválido ou vazio");
+
+    public static final InvalidBookingRequestException PAST_DATE = new InvalidBookingRequestException(
+            "A data solicitada não pode ser no passado");
+
+    public static final InvalidBookingRequestException SAME_DAY = new InvalidBookingRequestException(
+            "A data solicitada não pode ser no mesmo dia");
+
+    public static final InvalidBookingRequestException SUNDAY = new InvalidBookingRequestException(
+            "Não são feitas recolhas ao fim de semana");
+
+    public InvalidBookingRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
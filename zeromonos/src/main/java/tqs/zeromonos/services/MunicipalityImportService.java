@@ -1,10 +1,18 @@
 package tqs.zeromonos.services;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
@@ -15,6 +23,7 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import org.springframework.stereotype.Service;
 import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.dto.MunicipalitySnapshot;
 
 @Service
 public class MunicipalityImportService implements ApplicationRunner {
@@ -22,6 +31,9 @@ public class MunicipalityImportService implements ApplicationRunner {
 
     private final WebClient webClient;
     private final MunicipalityRepository municipalityRepository;
+    private final MunicipalitySnapshotStore snapshotStore;
+    private final MunicipalityIndex municipalityIndex;
+    private final Executor taskExecutor;
 
     @Value("${municipalities.api.url}")
     private String apiUrl;
@@ -29,22 +41,69 @@ public class MunicipalityImportService implements ApplicationRunner {
     @Value("${municipalities.request.timeout-ms:20000}")
     private long timeout;
 
-    public MunicipalityImportService(WebClient.Builder wcBuilder, MunicipalityRepository municipalityRepository) {
+    // Atualizar a lista a partir da API externa, em segundo plano
+    @Value("${municipalities.refresh.enabled:true}")
+    private boolean refreshEnabled;
+
+    // Snapshot carregado no arranque (base de comparação da atualização)
+    private volatile MunicipalitySnapshot snapshot;
+
+    public MunicipalityImportService(WebClient.Builder wcBuilder, MunicipalityRepository municipalityRepository,
+            MunicipalitySnapshotStore snapshotStore, MunicipalityIndex municipalityIndex,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
         this.webClient = wcBuilder.build();
         this.municipalityRepository = municipalityRepository;
+        this.snapshotStore = snapshotStore;
+        this.municipalityIndex = municipalityIndex;
+        this.taskExecutor = taskExecutor;
     }
 
+    /**
+     * Carrega os municípios no arranque a partir do snapshot local, sem
+     * depender da rede. A atualização a partir da API externa corre depois no
+     * executor de tarefas da aplicação (threads virtuais quando
+     * {@code spring.threads.virtual.enabled=true}) e não atrasa o arranque.
+     */
     @Override
     public void run(ApplicationArguments args) throws Exception {
+        loadSnapshot();
+        if (refreshEnabled) {
+            taskExecutor.execute(this::refreshSafely);
+        }
+    }
+
+    /**
+     * Insere os municípios do snapshot local que ainda não existem.
+     */
+    public void loadSnapshot() {
+        long start = System.nanoTime();
+        MunicipalitySnapshot loaded = snapshotStore.load();
+        int createdCount = upsertMunicipalities(loaded.getMunicipalities());
+        snapshot = loaded;
+        municipalityIndex.refresh();
+        logger.info("Snapshot de municípios v{} ({}) carregado em {} ms. Novos: {}, Total: {}",
+                loaded.getVersion(), loaded.getGeneratedAt(), elapsedMillis(start), createdCount,
+                loaded.getMunicipalities().size());
+    }
+
+    private void refreshSafely() {
         try {
             getAndStoreMunicipalities();
         } catch (Exception e) {
-            logger.warn("ERRO: Não foi possível importar os municípios ({})", e.toString());
+            logger.warn("ERRO: Não foi possível atualizar os municípios ({})", e.toString());
         }
     }
 
+    /**
+     * Obtém a lista atual da API externa, compara-a com o snapshot e insere os
+     * municípios novos. Municípios que deixaram de vir na API não são
+     * removidos (podem ter reservas associadas), apenas reportados. Se a lista
+     * mudou, o snapshot em disco é atualizado. Em caso de falha os municípios
+     * do snapshot continuam disponíveis.
+     */
     public void getAndStoreMunicipalities() {
-        logger.info("Iniciando importação de municípios a partir de: {}", apiUrl);
+        logger.info("Iniciando atualização de municípios a partir de: {}", apiUrl);
+        long start = System.nanoTime();
 
         try {
             // Obter lista de municípios (strings simples)
@@ -56,97 +115,82 @@ public class MunicipalityImportService implements ApplicationRunner {
                     .block(Duration.ofMillis(timeout));
 
             if (names == null || names.isEmpty()) {
-                logger.warn("Nenhum município recebido da API.");
-                loadHardCodedMunicipalities();
+                logger.warn("Nenhum município recebido da API; mantém-se o snapshot local.");
                 return;
             }
 
-            int createdCount = 0;
-            int existingCount = 0;
-
-            for (String rawName : names) {
-                if (rawName == null || rawName.isBlank())
-                    continue;
+            Set<String> remote = normalize(names);
+            Set<String> local = snapshot != null ? normalize(snapshot.getMunicipalities()) : Set.of();
+            Set<String> added = new TreeSet<>(remote);
+            added.removeAll(local);
+            Set<String> removed = new TreeSet<>(local);
+            removed.removeAll(remote);
 
-                String name = rawName.trim();
-
-                if (municipalityRepository.findByName(name).isEmpty()) {
-                    municipalityRepository.save(new Municipality(name));
-                    createdCount++;
-                } else {
-                    existingCount++;
-                }
+            int createdCount = upsertMunicipalities(remote);
+            if (createdCount > 0) {
+                municipalityIndex.refresh();
+            }
+            if (!removed.isEmpty()) {
+                logger.warn("Municípios do snapshot ausentes da API (mantidos): {}", removed);
+            }
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                logger.info("Municípios novos na API: {}", added);
+                snapshotStore.save(new ArrayList<>(new TreeSet<>(remote)), apiUrl);
             }
 
-            logger.info("Importação concluída. Novos: {}, Existentes: {}, Total recebido: {}",
-                    createdCount, existingCount, names.size());
+            logger.info("Atualização concluída em {} ms. Novos: {}, Total recebido: {}",
+                    elapsedMillis(start), createdCount, names.size());
 
         } catch (WebClientResponseException ex) {
             logger.error("ERRO: Falha HTTP ao obter municípios ({}): {}", ex.getStatusCode(),
                     ex.getResponseBodyAsString());
-            loadHardCodedMunicipalities();
 
         } catch (Exception ex) {
-            logger.error("ERRO: Erro inesperado ao importar municípios: {}", ex.getMessage(), ex);
-            loadHardCodedMunicipalities();
+            logger.error("ERRO: Erro inesperado ao atualizar municípios: {}", ex.getMessage(), ex);
         }
     }
 
-    private void loadHardCodedMunicipalities() {
-        logger.info("Lista de municípios pré-programados a ser enviada para o repositório");
-
-        String[] portugueseMunicipalities = {
-                // Principais cidades
-                "Lisboa", "Porto", "Braga", "Coimbra", "Faro", "Aveiro",
-                "Leiria", "Santarém", "Setúbal", "Viana do Castelo",
-                "Vila Real", "Bragança", "Guarda", "Castelo Branco",
-                "Portalegre", "Évora", "Beja", "Funchal", "Ponta Delgada",
-
-                // Área Metropolitana de Lisboa
-                "Almada", "Amadora", "Cascais", "Loures", "Odivelas",
-                "Oeiras", "Seixal", "Sintra", "Barreiro", "Montijo",
-                "Moita", "Palmela", "Sesimbra", "Alcochete",
-
-                // Norte
-                "Vila Nova de Gaia", "Gondomar", "Matosinhos", "Maia",
-                "Trofa", "Santo Tirso", "Valongo", "Vila do Conde",
-                "Póvoa de Varzim", "Famalicão", "Guimarães", "Vizela",
-                "Felgueiras", "Amarante", "Marco de Canaveses", "Paredes",
-                "Penafiel", "Arouca", "Oliveira de Azeméis", "Espinho",
-                "Santa Maria da Feira", "Vale de Cambra", "Lousada",
-                "Fafe", "Barcelos", "Esposende", "Vila Nova de Cerveira",
-                "Monção", "Melgaço", "Arcos de Valdevez", "Ponte de Lima",
-                "Ponte da Barca",
-
-                // Centro
-                "Tomar", "Abrantes", "Torres Novas", "Ourém",
-                "Figueira da Foz", "Mealhada", "Águeda", "Sever do Vouga",
-                "Estarreja", "Ílhavo", "Cantanhede", "Oliveira do Bairro",
-                "Viseu", "Tondela", "Mangualde", "Nelas", "Carregal do Sal",
-                "Fundão", "Covilhã", "Belmonte", "Trancoso", "Pinhel",
-                "Sabugal", "Mêda", "Almeida",
-
-                // Alentejo
-                "Sines", "Grândola", "Alcácer do Sal", "Serpa",
-                "Moura", "Reguengos de Monsaraz", "Montemor-o-Novo",
-                "Vendas Novas", "Estremoz", "Elvas", "Campo Maior",
-
-                // Algarve
-                "Albufeira", "Lagos", "Loulé", "Portimão", "Tavira",
-                "Silves", "Vila Real de Santo António", "Lagoa", "Olhão",
-
-                // Regiões Autónomas
-                "Angra do Heroísmo", "Horta", "Ribeira Grande", "Vila Franca do Campo",
-                "Machico", "Câmara de Lobos", "Santa Cruz (Madeira)"
-        };
-
-        int createdCount = 0;
-        for (String municipality : portugueseMunicipalities) {
-            if (municipalityRepository.findByName(municipality).isEmpty()) {
-                municipalityRepository.save(new Municipality(municipality));
-                createdCount++;
+    /**
+     * Insere os municípios que ainda não existem.
+     *
+     * Os nomes existentes são lidos com uma única query para um conjunto em
+     * memória e só os que faltam são inseridos, todos no mesmo
+     * {@code saveAll} (uma transação, com os INSERT agrupados em batches
+     * JDBC). Nomes vazios ou repetidos são ignorados.
+     *
+     * @return número de municípios inseridos
+     */
+    public int upsertMunicipalities(Collection<String> names) {
+        Set<String> known = new HashSet<>(municipalityRepository.findAllNames());
+        List<Municipality> missing = new ArrayList<>();
+        for (String rawName : names) {
+            if (rawName == null || rawName.isBlank()) {
+                continue;
+            }
+            String name = rawName.trim();
+            // add devolve false para nomes existentes ou já vistos nesta lista
+            if (known.add(name)) {
+                missing.add(new Municipality(name));
             }
         }
-        logger.info("{} municípios pré-programados enviados para o repositório", createdCount);
+        if (!missing.isEmpty()) {
+            municipalityRepository.saveAll(missing);
+        }
+        return missing.size();
+    }
+
+    // Nomes sem espaços nas pontas, sem vazios nem repetidos
+    private static Set<String> normalize(Collection<String> names) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name != null && !name.isBlank()) {
+                normalized.add(name.trim());
+            }
+        }
+        return normalized;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
     }
 }
@@ -0,0 +1,236 @@
+package tqs.zeromonos.services;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
+import tqs.zeromonos.utils.TextNormalizer;
+
+/**
+ * Índice em memória dos municípios, partilhado por todos os serviços.
+ *
+ * Os municípios quase nunca mudam, por isso as consultas por nome e a lista
+ * de nomes são servidas a partir de uma vista imutável (nome → município e
+ * lista de nomes já ordenada), sem ir à base de dados. Quando a importação
+ * altera os municípios é construída uma vista nova, que substitui a anterior
+ * de forma atómica (copy-on-write): as leituras nunca bloqueiam nem veem um
+ * índice a meio.
+ *
+ * Os nomes também são indexados na forma normalizada (sem acentos nem
+ * maiúsculas, ver {@link TextNormalizer}): "evora" resolve para "Évora". Para
+ * a pesquisa por prefixo há um array ordenado de chaves normalizadas, com o
+ * nome completo e cada palavra a partir da segunda ("gaia" encontra "Vila
+ * Nova de Gaia"); uma pesquisa binária encontra o início do intervalo de
+ * chaves com o prefixo pedido.
+ *
+ * A lista de nomes também é mantida já serializada e comprimida
+ * ({@link EncodedMunicipalityList}), para o endpoint público a servir sem
+ * trabalho por pedido.
+ *
+ * Quem escrever diretamente na tabela de municípios tem de chamar
+ * {@link #refresh()}.
+ */
+@Component
+public class MunicipalityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MunicipalityIndex.class);
+
+    private final MunicipalityRepository municipalityRepository;
+    private final ObjectMapper objectMapper;
+
+    // Vista atual; null até ao primeiro carregamento
+    private volatile View view;
+
+    // Lock (e não synchronized) porque o carregamento espera pela base de dados
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public MunicipalityIndex(MunicipalityRepository municipalityRepository, ObjectMapper objectMapper) {
+        this.municipalityRepository = municipalityRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Vista imutável: nunca é alterada depois de publicada. Os arrays de
+    // pesquisa são paralelos: keys[i] é uma chave normalizada de keyNames[i] e
+    // fullName[i] indica se a chave é o nome completo ou uma palavra interior
+    private record View(Map<String, Municipality> byName, Map<String, Municipality> byNormalizedName,
+            List<String> sortedNames, EncodedMunicipalityList encodedNames, String[] keys, String[] keyNames,
+            boolean[] fullName) {
+    }
+
+    // Chave de pesquisa por prefixo (apenas durante a construção da vista)
+    private record SearchKey(String key, String name, boolean fullName) {
+    }
+
+    /**
+     * Recarrega o índice a partir da base de dados (uma query) e publica a
+     * nova vista.
+     */
+    public void refresh() {
+        List<Municipality> municipalities = municipalityRepository.findAll();
+
+        Map<String, Municipality> byName = new HashMap<>(municipalities.size() * 2);
+        Map<String, Municipality> byNormalizedName = new HashMap<>(municipalities.size() * 2);
+        List<String> names = new ArrayList<>(municipalities.size());
+        List<SearchKey> searchKeys = new ArrayList<>(municipalities.size() * 3);
+        for (Municipality municipality : municipalities) {
+            String name = municipality.getName();
+            String normalized = TextNormalizer.normalize(name);
+            byName.put(name, municipality);
+            if (byNormalizedName.putIfAbsent(normalized, municipality) != null) {
+                logger.warn("Municípios com o mesmo nome normalizado '{}': apenas o primeiro é resolvido", normalized);
+            }
+            names.add(name);
+            addSearchKeys(searchKeys, normalized, name);
+        }
+        // Ordem alfabética portuguesa ("Évora" junto de "Esposende", não no fim)
+        names.sort(Collator.getInstance(Locale.forLanguageTag("pt-PT")));
+        // Para a mesma chave, o nome completo vem antes da palavra interior
+        searchKeys.sort(Comparator.comparing(SearchKey::key).thenComparing(key -> !key.fullName()));
+
+        int total = searchKeys.size();
+        String[] keys = new String[total];
+        String[] keyNames = new String[total];
+        boolean[] fullName = new boolean[total];
+        for (int i = 0; i < total; i++) {
+            SearchKey searchKey = searchKeys.get(i);
+            keys[i] = searchKey.key();
+            keyNames[i] = searchKey.name();
+            fullName[i] = searchKey.fullName();
+        }
+
+        List<String> sortedNames = List.copyOf(names);
+        view = new View(Map.copyOf(byName), Map.copyOf(byNormalizedName), sortedNames,
+                EncodedMunicipalityList.of(sortedNames, objectMapper), keys, keyNames, fullName);
+        logger.info("Índice de municípios atualizado ({} municípios)", names.size());
+    }
+
+    /**
+     * Município com o nome indicado. O nome exato tem prioridade; se não
+     * existir, a comparação ignora acentos, maiúsculas e espaços a mais.
+     */
+    public Optional<Municipality> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        View current = current();
+        Municipality exact = current.byName().get(name);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+        return Optional.ofNullable(current.byNormalizedName().get(TextNormalizer.normalize(name)));
+    }
+
+    /**
+     * Até {@code limit} nomes de municípios que começam pelo texto indicado
+     * (ignorando acentos e maiúsculas). Primeiro os nomes cujo início
+     * corresponde, depois os que têm uma palavra interior que corresponde.
+     */
+    public List<String> suggest(String query, int limit) {
+        String prefix = TextNormalizer.normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        View current = current();
+        String[] keys = current.keys();
+
+        Set<String> startsWith = new LinkedHashSet<>();
+        Set<String> wordStartsWith = new LinkedHashSet<>();
+        for (int i = lowerBound(keys, prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            if (current.fullName()[i]) {
+                startsWith.add(current.keyNames()[i]);
+                if (startsWith.size() == limit) {
+                    break;
+                }
+            } else if (wordStartsWith.size() < limit) {
+                wordStartsWith.add(current.keyNames()[i]);
+            }
+        }
+
+        List<String> result = new ArrayList<>(startsWith);
+        for (String name : wordStartsWith) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (!startsWith.contains(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nomes de todos os municípios, por ordem alfabética (lista imutável).
+     */
+    public List<String> names() {
+        return current().sortedNames();
+    }
+
+    /**
+     * A mesma lista de {@link #names()}, em JSON e gzip, com ETag.
+     */
+    public EncodedMunicipalityList encodedNames() {
+        return current().encodedNames();
+    }
+
+    public int size() {
+        return current().sortedNames().size();
+    }
+
+    // Chave do nome completo e de cada palavra a seguir a um espaço ou hífen
+    private static void addSearchKeys(List<SearchKey> searchKeys, String normalized, String name) {
+        searchKeys.add(new SearchKey(normalized, name, true));
+        for (int i = 1; i < normalized.length(); i++) {
+            char previous = normalized.charAt(i - 1);
+            if ((previous == ' ' || previous == '-' || previous == '(') && normalized.charAt(i) != ' ') {
+                searchKeys.add(new SearchKey(normalized.substring(i), name, false));
+            }
+        }
+    }
+
+    // Primeira posição cuja chave é >= ao prefixo
+    private static int lowerBound(String[] keys, String prefix) {
+        int index = Arrays.binarySearch(keys, prefix);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Chaves repetidas: recuar até à primeira
+        while (index > 0 && keys[index - 1].equals(prefix)) {
+            index--;
+        }
+        return index;
+    }
+
+    // Carrega na primeira utilização se a importação ainda não o fez
+    private View current() {
+        View current = view;
+        if (current == null) {
+            loadLock.lock();
+            try {
+                if (view == null) {
+                    refresh();
+                }
+                current = view;
+            } finally {
+                loadLock.unlock();
+            }
+        }
+        return current;
+    }
+}
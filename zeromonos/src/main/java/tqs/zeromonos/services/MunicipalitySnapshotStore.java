@@ -0,0 +1,123 @@
+package tqs.zeromonos.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.dto.MunicipalitySnapshot;
+
+/**
+ * Acesso ao snapshot de municípios.
+ *
+ * O snapshot incluído na aplicação ({@code municipalities.snapshot.location})
+ * tem sempre a lista completa. Opcionalmente, depois de uma atualização bem
+ * sucedida a partir da API, a lista recebida é guardada em disco
+ * ({@code municipalities.snapshot.cache-file}) e passa a ser a preferida nos
+ * arranques seguintes, desde que a versão não seja anterior à incluída.
+ */
+@Component
+public class MunicipalitySnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(MunicipalitySnapshotStore.class);
+
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final String bundledLocation;
+    private final Path cacheFile;
+
+    public MunicipalitySnapshotStore(ObjectMapper objectMapper, ResourceLoader resourceLoader,
+            @Value("${municipalities.snapshot.location:classpath:municipalities-snapshot.json}") String bundledLocation,
+            @Value("${municipalities.snapshot.cache-file:}") String cacheFile) {
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.bundledLocation = bundledLocation;
+        this.cacheFile = cacheFile == null || cacheFile.isBlank() ? null : Path.of(cacheFile);
+    }
+
+    /**
+     * Carrega o snapshot mais recente disponível: o guardado em disco, se
+     * existir e for da mesma versão ou posterior, ou o incluído na aplicação.
+     */
+    public MunicipalitySnapshot load() {
+        MunicipalitySnapshot bundled = readBundled();
+        MunicipalitySnapshot cached = readCacheFile();
+        if (cached != null && cached.getVersion() >= bundled.getVersion()) {
+            logger.debug("Snapshot de municípios lido de {}", cacheFile);
+            return cached;
+        }
+        return bundled;
+    }
+
+    /**
+     * Guarda em disco a lista recebida da API (apenas se
+     * {@code municipalities.snapshot.cache-file} estiver definido). O ficheiro
+     * é escrito à parte e depois movido, para nunca ficar a meio.
+     *
+     * @return true se o snapshot foi guardado
+     */
+    public boolean save(List<String> names, String source) {
+        if (cacheFile == null) {
+            return false;
+        }
+        MunicipalitySnapshot snapshot = new MunicipalitySnapshot(readBundled().getVersion(), LocalDate.now(),
+                source, names);
+        Path temp = null;
+        try {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            temp = Files.createTempFile(parent, "municipalities", ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), snapshot);
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Não foi possível guardar o snapshot de municípios em {}: {}", cacheFile, e.getMessage());
+            deleteQuietly(temp);
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Ficheiro temporário {} não removido: {}", path, e.getMessage());
+        }
+    }
+
+    private MunicipalitySnapshot readBundled() {
+        try (InputStream in = resourceLoader.getResource(bundledLocation).getInputStream()) {
+            return objectMapper.readValue(in, MunicipalitySnapshot.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot de municípios em falta: " + bundledLocation, e);
+        }
+    }
+
+    // Um ficheiro em disco inválido é ignorado (volta-se ao snapshot incluído)
+    private MunicipalitySnapshot readCacheFile() {
+        if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            MunicipalitySnapshot snapshot = objectMapper.readValue(cacheFile.toFile(), MunicipalitySnapshot.class);
+            return snapshot.getMunicipalities() == null || snapshot.getMunicipalities().isEmpty() ? null : snapshot;
+        } catch (IOException e) {
+            logger.warn("Snapshot de municípios em {} ignorado: {}", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package tqs.zeromonos.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor opaco da listagem paginada do staff: codifica a chave (createdAt, id)
+ * do último booking devolvido, em Base64 URL-safe.
+ */
+public final class BookingCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final OffsetDateTime createdAt;
+    private final UUID id;
+
+    public BookingCursor(OffsetDateTime createdAt, UUID id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Codifica o cursor numa string opaca para enviar ao cliente.
+     */
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Descodifica um cursor recebido do cliente.
+     *
+     * @param cursor cursor opaco (pode ser null ou vazio para a primeira página)
+     * @return cursor descodificado, ou null se não foi fornecido
+     * @throws IllegalArgumentException se o cursor não for válido
+     */
+    public static BookingCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new BookingCursor(OffsetDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
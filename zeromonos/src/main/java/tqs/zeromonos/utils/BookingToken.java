@@ -0,0 +1,177 @@
+package tqs.zeromonos.utils;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Tokens das reservas: 128 bits ordenados pelo instante de criação,
+ * apresentados como 22 caracteres base62 e guardados como {@code BINARY(16)}.
+ *
+ * Os 128 bits seguem o formato de um UUID versão 7: 48 bits com os
+ * milissegundos desde a época, seguidos dos bits de versão e variante e de
+ * 74 bits aleatórios ({@link SecureRandom}, o token dá acesso à reserva e
+ * não pode ser adivinhado). Tokens criados mais tarde são maiores, por isso
+ * as inserções no índice do token são quase sempre no fim.
+ *
+ * O alfabeto base62 está por ordem ASCII e a largura é fixa: a ordem das
+ * strings é a mesma dos 128 bits.
+ *
+ * Os tokens antigos (UUID em texto, 36 caracteres) continuam a ser aceites:
+ * correspondem aos mesmos 16 bytes, apresentados em base62.
+ */
+public final class BookingToken {
+
+    // Comprimento de um token em base62 (62^22 > 2^128)
+    public static final int LENGTH = 22;
+
+    // Comprimento de um token antigo (UUID em texto)
+    private static final int LEGACY_LENGTH = 36;
+
+    private static final int BYTES = 16;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+            .toCharArray();
+
+    // Valor de cada caractere, -1 se não pertence ao alfabeto
+    private static final byte[] DIGITS = new byte[128];
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DIGITS[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private BookingToken() {
+        throw new AssertionError("Esta classe não deve ser instanciada");
+    }
+
+    /**
+     * Gera um novo token, ordenado pelo instante atual.
+     */
+    public static String generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    /**
+     * Gera um novo token com o instante indicado (milissegundos desde a
+     * época) nos primeiros 48 bits.
+     */
+    public static String generate(long epochMillis) {
+        long msb = (epochMillis << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+        long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return encode(msb, lsb);
+    }
+
+    /**
+     * Os 16 bytes de um token (base62 ou UUID antigo), ou null se o texto
+     * não for um token válido.
+     */
+    public static byte[] toBytes(String token) {
+        long[] bits = parse(token);
+        if (bits == null) {
+            return null;
+        }
+        byte[] bytes = new byte[BYTES];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (bits[0] >>> (56 - 8 * i));
+            bytes[8 + i] = (byte) (bits[1] >>> (56 - 8 * i));
+        }
+        return bytes;
+    }
+
+    /**
+     * O token em base62 correspondente aos 16 bytes guardados.
+     */
+    public static String fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BYTES) {
+            throw new IllegalArgumentException("Um token tem de ter " + BYTES + " bytes");
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xFF);
+            lsb = (lsb << 8) | (bytes[8 + i] & 0xFF);
+        }
+        return encode(msb, lsb);
+    }
+
+    /**
+     * Forma canónica (base62) de um token, para que um token antigo e o
+     * mesmo token em base62 sejam a mesma chave (por exemplo, na cache). Um
+     * texto que não é um token válido é devolvido sem alterações (sem
+     * espaços à volta): não corresponde a nenhuma reserva.
+     */
+    public static String normalize(String token) {
+        if (token == null) {
+            return null;
+        }
+        String trimmed = token.trim();
+        if (trimmed.length() == LENGTH) {
+            return trimmed;
+        }
+        long[] bits = parse(trimmed);
+        return bits != null ? encode(bits[0], bits[1]) : trimmed;
+    }
+
+    // Os 128 bits (msb, lsb) de um token, ou null se for inválido
+    private static long[] parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        if (token.length() == LENGTH) {
+            return decode(token);
+        }
+        if (token.length() == LEGACY_LENGTH) {
+            try {
+                UUID uuid = UUID.fromString(token);
+                return new long[] { uuid.getMostSignificantBits(), uuid.getLeastSignificantBits() };
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // Divisões sucessivas por 62 de um número de 128 bits (quatro blocos de 32 bits)
+    private static String encode(long msb, long lsb) {
+        long[] limbs = { msb >>> 32, msb & 0xFFFFFFFFL, lsb >>> 32, lsb & 0xFFFFFFFFL };
+        char[] chars = new char[LENGTH];
+        for (int position = LENGTH - 1; position >= 0; position--) {
+            long remainder = 0;
+            for (int i = 0; i < limbs.length; i++) {
+                long current = (remainder << 32) | limbs[i];
+                limbs[i] = current / 62;
+                remainder = current % 62;
+            }
+            chars[position] = ALPHABET[(int) remainder];
+        }
+        return new String(chars);
+    }
+
+    // Multiplicações sucessivas por 62; null se tiver caracteres inválidos ou
+    // não couber em 128 bits
+    private static long[] decode(String token) {
+        long[] limbs = new long[4];
+        for (int position = 0; position < LENGTH; position++) {
+            char c = token.charAt(position);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return null;
+            }
+            long carry = digit;
+            for (int i = limbs.length - 1; i >= 0; i--) {
+                long current = limbs[i] * 62 + carry;
+                limbs[i] = current & 0xFFFFFFFFL;
+                carry = current >>> 32;
+            }
+            if (carry != 0) {
+                return null;
+            }
+        }
+        return new long[] { (limbs[0] << 32) | limbs[1], (limbs[2] << 32) | limbs[3] };
+    }
+}
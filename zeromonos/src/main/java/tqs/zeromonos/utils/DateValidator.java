@@ -11,6 +11,15 @@ public class DateValidator {
 
     private static final ZoneId DEFAULT_ZONE = ZoneId.of("Europe/Lisbon");
 
+    /**
+     * Regra de negócio violada por uma data.
+     */
+    public enum Rejection {
+        PAST_DATE,
+        SAME_DAY,
+        SUNDAY
+    }
+
     /**
      * Construtor privado para prevenir instanciação desta classe utilitária.
      */
@@ -19,39 +28,36 @@ public class DateValidator {
     }
 
     /**
-     * Valida se uma data é válida para um agendamento de recolha
+     * Verifica se uma data é válida para agendamento de recolha
+     * 
+     * @param requestedDate data a verificar
+     * @return true se válida, false caso contrário
+     */
+    public static boolean isValidDate(LocalDate requestedDate) {
+        // Sem exceções: é chamado para cada dia do calendário de disponibilidade
+        return rejectionOf(requestedDate) == null;
+    }
+
+    /**
+     * Indica a regra violada por uma data de recolha, sem lançar exceções
      * 
-     * @param requestedDate data a validar
-     * @throws IllegalArgumentException se a data violar alguma regra de negócio
+     * @param requestedDate data a verificar
+     * @return a regra violada, ou null se a data for válida
      */
-    public static void validateDate(LocalDate requestedDate) {
+    public static Rejection rejectionOf(LocalDate requestedDate) {
         LocalDate today = LocalDate.now(DEFAULT_ZONE);
 
         if (requestedDate.isBefore(today)) {
-            throw new IllegalArgumentException("A data da recolha não pode ser no passado");
+            return Rejection.PAST_DATE;
         }
 
         if (requestedDate.isEqual(today)) {
-            throw new IllegalArgumentException("A data da recolha não pode ser no mesmo dia");
+            return Rejection.SAME_DAY;
         }
 
         if (requestedDate.getDayOfWeek() == DayOfWeek.SUNDAY) {
-            throw new IllegalArgumentException("Não são feitas recolhas ao fim de semana");
-        }
-    }
-
-    /**
-     * Verifica se uma data é válida para agendamento de recolha
-     * 
-     * @param requestedDate data a verificar
-     * @return true se válida, false caso contrário
-     */
-    public static boolean isValidDate(LocalDate requestedDate) {
-        try {
-            validateDate(requestedDate);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+            return Rejection.SUNDAY;
         }
+        return null;
     }
 }
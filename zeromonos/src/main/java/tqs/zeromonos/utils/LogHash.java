@@ -0,0 +1,47 @@
+package tqs.zeromonos.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hash curto (SHA-256 truncado) de valores que dão acesso a uma reserva, como
+ * o token ou a Idempotency-Key: o mesmo valor tem sempre o mesmo hash, o que
+ * permite seguir os pedidos no log sem escrever o valor.
+ */
+public class LogHash {
+
+    // Bytes do hash escritos no log (12 caracteres hexadecimais)
+    private static final int HASH_BYTES = 6;
+
+    /**
+     * Construtor privado para prevenir instanciação desta classe utilitária.
+     */
+    private LogHash() {
+        throw new AssertionError("Esta classe não deve ser instanciada");
+    }
+
+    /**
+     * Hash de um valor secreto, ou "-" se for null.
+     */
+    public static String of(String value) {
+        if (value == null) {
+            return "-";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, HASH_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Hash da forma canónica de um token: o mesmo token, antigo ou em base62,
+     * tem sempre o mesmo hash.
+     */
+    public static String ofToken(String token) {
+        return of(BookingToken.normalize(token));
+    }
+}
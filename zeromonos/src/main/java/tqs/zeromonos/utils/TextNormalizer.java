@@ -0,0 +1,38 @@
+package tqs.zeromonos.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto para comparações que ignoram acentos, maiúsculas e
+ * espaços repetidos ("  Évora " e "evora" ficam iguais).
+ */
+public class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Construtor privado para prevenir instanciação desta classe utilitária.
+     */
+    private TextNormalizer() {
+        throw new AssertionError("Esta classe não deve ser instanciada");
+    }
+
+    /**
+     * Decompõe o texto (NFD), remove as marcas diacríticas, passa a minúsculas
+     * e reduz os espaços a um só.
+     *
+     * @param text texto a normalizar (pode ser null)
+     * @return texto normalizado, ou string vazia se for null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
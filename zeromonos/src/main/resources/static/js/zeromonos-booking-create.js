@@ -5,6 +5,8 @@ class BookingForm {
         this.municipalityInput = document.getElementById('municipality');
         this.suggestionsDropdown = document.getElementById('suggestions-dropdown');
         this.messageContainer = document.getElementById('form-msg');
+        this.dateInput = document.getElementById('requestedDate');
+        this.timeSlotSelect = document.getElementById('timeSlot');
         this.municipalities = [];
         this.selectedIndex = -1;
 
@@ -22,6 +24,7 @@ class BookingForm {
             await this.loadMunicipalities();
             this.form.addEventListener('submit', (e) => this.handleSubmit(e));
             this.setupAutocomplete();
+            this.setupAvailability();
             console.log('Formulário inicializado com sucesso');
         } catch (error) {
             console.error('Erro ao inicializar formulário:', error);
@@ -268,6 +271,66 @@ class BookingForm {
         }
     }
 
+    setupAvailability() {
+        if (!this.dateInput || !this.timeSlotSelect) {
+            return;
+        }
+        // Atualiza os períodos disponíveis sempre que o município ou a data mudam
+        this.dateInput.addEventListener('change', () => this.refreshAvailability());
+        this.municipalityInput.addEventListener('change', () => this.refreshAvailability());
+        this.municipalityInput.addEventListener('blur', () => this.refreshAvailability());
+    }
+
+    async refreshAvailability() {
+        const municipality = this.municipalityInput.value.trim();
+        const date = this.dateInput.value;
+
+        if (!municipality || !date || !this.municipalities.includes(municipality)) {
+            this.applyOpenSlots(null);
+            return;
+        }
+
+        const params = new URLSearchParams({ municipality, from: date, to: date });
+        try {
+            const response = await fetch(`${this.base}/availability?${params}`);
+            if (!response.ok) {
+                this.applyOpenSlots(null);
+                return;
+            }
+            const availability = await response.json();
+            const day = availability.days && availability.days.length > 0 ? availability.days[0] : null;
+            this.applyOpenSlots(day);
+        } catch (error) {
+            console.warn('Não foi possível obter a disponibilidade:', error);
+            this.applyOpenSlots(null);
+        }
+    }
+
+    applyOpenSlots(day) {
+        const options = Array.from(this.timeSlotSelect.options).filter(option => option.value);
+
+        // Sem informação de disponibilidade: todos os períodos ficam selecionáveis
+        if (!day) {
+            options.forEach(option => { option.disabled = false; });
+            return;
+        }
+
+        const open = new Set(day.openSlots || []);
+        options.forEach(option => {
+            option.disabled = !open.has(option.value);
+        });
+
+        if (this.timeSlotSelect.selectedOptions.length > 0 && this.timeSlotSelect.selectedOptions[0].disabled) {
+            this.timeSlotSelect.value = '';
+        }
+
+        if (!day.bookable) {
+            this.showError('Não existem períodos disponíveis para a data selecionada');
+        } else {
+            this.messageContainer.innerHTML = '';
+        }
+    }
+
     highlightMatch(text, query) {
         // Escapar caracteres especiais do regex
         const escapedQuery = query.replace(/[.*+?^${}()|[\]\\]/g, '\\$&');
@@ -280,12 +343,23 @@ class BookingForm {
         const formData = new FormData(this.form);
         const data = Object.fromEntries(formData);
 
+        // A mesma chave é reenviada se o pedido falhar na rede (o servidor pode
+        // ter criado a reserva); depois de uma resposta é gerada outra
+        if (!this.idempotencyKey && window.crypto && crypto.randomUUID) {
+            this.idempotencyKey = crypto.randomUUID();
+        }
+        const headers = { 'Content-Type': 'application/json' };
+        if (this.idempotencyKey) {
+            headers['Idempotency-Key'] = this.idempotencyKey;
+        }
+
         try {
             const response = await fetch(this.base, {
                 method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
+                headers,
                 body: JSON.stringify(data)
             });
+            this.idempotencyKey = null;
 
             if (!response.ok) {
                 // tenta extrair JSON { message: '...' } do servidor
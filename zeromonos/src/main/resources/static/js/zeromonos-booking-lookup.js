@@ -5,6 +5,9 @@
 
 const API_BASE = '/api/bookings';
 
+// Canal de eventos (SSE) da reserva apresentada
+let bookingEvents = null;
+
 // Aguardar o carregamento completo da página
 document.addEventListener('DOMContentLoaded', function () {
     console.log('ZeroMonos - Consultar reserva carregado');
@@ -147,6 +150,9 @@ async function searchBooking(token) {
         console.log('🔘 [BOOKING-VIEW] Configurando botão de cancelamento...');
         setupCancelButton(data.token, data.status);
 
+        // Acompanhar mudanças de estado sem voltar a pesquisar
+        subscribeToBookingEvents(data.token);
+
         // Scroll suave até os detalhes
         setTimeout(() => {
             detailsSection.scrollIntoView({ behavior: 'smooth', block: 'nearest' });
@@ -177,6 +183,35 @@ async function searchBooking(token) {
     }
 }
 
+/**
+ * Abre um canal SSE para a reserva e atualiza os detalhes a cada mudança de
+ * estado. O EventSource volta a ligar-se sozinho se a ligação cair.
+ */
+function subscribeToBookingEvents(token) {
+    if (bookingEvents) {
+        bookingEvents.close();
+        bookingEvents = null;
+    }
+    if (!window.EventSource) {
+        return;
+    }
+
+    bookingEvents = new EventSource(`${API_BASE}/${encodeURIComponent(token)}/events`);
+    bookingEvents.addEventListener('status', async function () {
+        try {
+            const response = await fetch(`${API_BASE}/${encodeURIComponent(token)}`);
+            if (!response.ok) {
+                return;
+            }
+            const booking = await response.json();
+            displayBookingDetails(booking);
+            setupCancelButton(booking.token, booking.status);
+        } catch (e) {
+            console.error('❌ [BOOKING-VIEW] Erro ao atualizar reserva:', e);
+        }
+    });
+}
+
 /**
  * Mostra os detalhes da reserva
  */
@@ -455,6 +490,10 @@ function hideMessage() {
  * Esconde detalhes
  */
 function hideDetails() {
+    if (bookingEvents) {
+        bookingEvents.close();
+        bookingEvents = null;
+    }
     const detailsSection = document.getElementById('booking-details');
     detailsSection.classList.add('hidden');
 }
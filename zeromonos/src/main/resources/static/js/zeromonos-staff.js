@@ -6,19 +6,55 @@
 const API_BASE = '/api/bookings';
 const STAFF_API_BASE = '/api/staff/bookings';
 
+const PAGE_SIZE = 50;
+
 let allMunicipalities = [];
 let currentBookings = [];
+let currentFilters = { municipality: 'all' };
+let nextCursor = null;
+
+// Canal de eventos (SSE) do município selecionado
+let staffEvents = null;
+let eventReloadTimer = null;
 
 // Aguardar o carregamento completo da página
 document.addEventListener('DOMContentLoaded', function () {
   console.log('ZeroMonos - Painel Staff carregado');
 
   initFilters();
+  initLoadMore();
   loadMunicipalities();
   loadBookings();
   initHistoryModal();
 });
 
+/**
+ * Abre um canal SSE com as reservas do município e recarrega a primeira página
+ * quando há alterações (agrupando rajadas de eventos num único pedido).
+ */
+function subscribeToStaffEvents(municipality) {
+  if (staffEvents) {
+    staffEvents.close();
+    staffEvents = null;
+  }
+  if (!window.EventSource) {
+    return;
+  }
+
+  const params = new URLSearchParams();
+  if (municipality && municipality !== 'all') {
+    params.set('municipality', municipality);
+  }
+  staffEvents = new EventSource(`${STAFF_API_BASE}/events?${params}`);
+
+  const scheduleReload = () => {
+    clearTimeout(eventReloadTimer);
+    eventReloadTimer = setTimeout(() => loadBookings(currentFilters), 500);
+  };
+  staffEvents.addEventListener('created', scheduleReload);
+  staffEvents.addEventListener('status', scheduleReload);
+}
+
 /**
  * Inicializa os filtros
  */
@@ -29,8 +65,7 @@ function initFilters() {
   // Submissão do formulário de filtros
   form.addEventListener('submit', async function (e) {
     e.preventDefault();
-    const municipality = document.getElementById('municipality-filter').value;
-    await loadBookings(municipality || 'all');
+    await loadBookings(readFilters());
   });
 
   // Botão de reset
@@ -41,6 +76,49 @@ function initFilters() {
   });
 }
 
+/**
+ * Lê os filtros atualmente selecionados no formulário
+ */
+function readFilters() {
+  const valueOf = (id) => {
+    const element = document.getElementById(id);
+    return element ? element.value : '';
+  };
+  return {
+    municipality: valueOf('municipality-filter') || 'all',
+    status: valueOf('status-filter'),
+    timeSlot: valueOf('timeslot-filter'),
+    from: valueOf('from-filter'),
+    to: valueOf('to-filter')
+  };
+}
+
+/**
+ * Inicializa o botão "Carregar mais"
+ */
+function initLoadMore() {
+  const loadMoreBtn = document.getElementById('load-more-btn');
+  if (loadMoreBtn) {
+    loadMoreBtn.addEventListener('click', () => loadBookings(currentFilters, true));
+  }
+}
+
+/**
+ * Constrói o URL de uma página da listagem a partir dos filtros e do cursor
+ */
+function buildPageUrl(filters, cursor) {
+  const params = new URLSearchParams({ size: PAGE_SIZE });
+  Object.entries(filters || {}).forEach(([key, value]) => {
+    if (value) {
+      params.set(key, value);
+    }
+  });
+  if (cursor) {
+    params.set('cursor', cursor);
+  }
+  return `${STAFF_API_BASE}/page?${params}`;
+}
+
 /**
  * Carrega a lista de municípios para o filtro
  */
@@ -77,19 +155,28 @@ async function loadMunicipalities() {
 }
 
 /**
- * Carrega a lista de agendamentos
+ * Carrega uma página de agendamentos (append = true acrescenta à tabela atual)
  */
-async function loadBookings(municipalityFilter = 'all') {
+async function loadBookings(filters = { municipality: 'all' }, append = false) {
   const tbody = document.getElementById('bookings-tbody');
   const emptyState = document.getElementById('empty-state');
   const tableWrapper = document.querySelector('.table-wrapper');
+  const loadMoreBtn = document.getElementById('load-more-btn');
 
   console.log('📋 [STAFF] Iniciando carregamento de agendamentos...');
-  console.log('📋 [STAFF] Filtro de município:', municipalityFilter);
+  console.log('📋 [STAFF] Filtros:', filters);
 
   try {
-    // Mostrar estado de carregamento
-    tbody.innerHTML = `
+    if (!append) {
+      if (!staffEvents || filters.municipality !== currentFilters.municipality) {
+        subscribeToStaffEvents(filters.municipality);
+      }
+      currentFilters = filters;
+      currentBookings = [];
+      nextCursor = null;
+
+      // Mostrar estado de carregamento
+      tbody.innerHTML = `
             <tr>
                 <td colspan="6" class="loading-state">
                     <div class="loading-content">
@@ -99,11 +186,10 @@ async function loadBookings(municipalityFilter = 'all') {
                 </td>
             </tr>
         `;
+    }
 
-    // Construir URL com filtro
-    const url = municipalityFilter && municipalityFilter !== 'all'
-      ? `${STAFF_API_BASE}?municipality=${encodeURIComponent(municipalityFilter)}`
-      : `${STAFF_API_BASE}?municipality=all`;
+    // Construir URL com filtros e cursor da página seguinte
+    const url = buildPageUrl(currentFilters, append ? nextCursor : null);
 
     console.log('📡 [STAFF] Fazendo fetch para:', url);
     console.log('📡 [STAFF] URL completa:', window.location.origin + url);
@@ -150,24 +236,31 @@ async function loadBookings(municipalityFilter = 'all') {
     }
 
     console.log('📋 [STAFF] Parseando JSON...');
-    currentBookings = await response.json();
-    console.log('📋 [STAFF] Dados recebidos:', currentBookings);
-    console.log('📋 [STAFF] Tipo dos dados:', typeof currentBookings);
-    console.log('📋 [STAFF] É array?', Array.isArray(currentBookings));
-
-    if (!Array.isArray(currentBookings)) {
-      console.error('❌ [STAFF] Dados não são um array:', currentBookings);
-      throw new Error('Resposta inválida do servidor: não é um array');
+    const page = await response.json();
+    console.log('📋 [STAFF] Página recebida:', page);
+
+    if (!page || !Array.isArray(page.items)) {
+      console.error('❌ [STAFF] Resposta não contém uma lista de itens:', page);
+      throw new Error('Resposta inválida do servidor: página sem itens');
     }
 
+    const pageItems = page.items;
+    nextCursor = page.nextCursor || null;
+    currentBookings = currentBookings.concat(pageItems);
+
     console.log('📋 [STAFF] Número de agendamentos:', currentBookings.length);
 
     // Atualizar contador
-    console.log('📊 [STAFF] Atualizando contador:', currentBookings.length);
     updateBookingCount(currentBookings.length);
 
-    // Limpar tabela
-    tbody.innerHTML = '';
+    if (loadMoreBtn) {
+      loadMoreBtn.classList.toggle('hidden', !nextCursor);
+    }
+
+    // Limpar tabela apenas na primeira página
+    if (!append) {
+      tbody.innerHTML = '';
+    }
 
     if (currentBookings.length === 0) {
       console.log('ℹ️ [STAFF] Nenhum agendamento encontrado');
@@ -178,8 +271,8 @@ async function loadBookings(municipalityFilter = 'all') {
       tableWrapper.style.display = 'block';
       emptyState.classList.add('hidden');
 
-      // Adicionar agendamentos à tabela
-      currentBookings.forEach((booking, index) => {
+      // Adicionar agendamentos da página à tabela
+      pageItems.forEach((booking, index) => {
         console.log(`📝 [STAFF] Processando agendamento ${index + 1}:`, booking);
         try {
           const row = createBookingRow(booking);
@@ -315,7 +408,7 @@ function createActionButtons(booking) {
   const buttons = [];
 
   // Botão de histórico sempre disponível
-  buttons.push(createHistoryButton(booking.token, booking.history));
+  buttons.push(createHistoryButton(booking.token));
 
   // Botões disponíveis baseados no status atual
   if (status === 'RECEIVED') {
@@ -338,19 +431,15 @@ function createActionButtons(booking) {
 }
 
 /**
- * Cria um botão de histórico
+ * Cria um botão de histórico (o histórico só é carregado quando é aberto)
  */
-function createHistoryButton(token, history) {
-  const historyCount = history && Array.isArray(history) ? history.length : 0;
-  // Escapar o histórico para ser passado como atributo data
-  const historyJson = escapeHtml(JSON.stringify(history || []));
+function createHistoryButton(token) {
   return `
         <button 
             class="btn btn-outline btn-action btn-action-small" 
             data-token="${escapeHtml(token)}"
-            data-history='${historyJson}'
             onclick="showHistoryFromData('${escapeHtml(token)}', this)"
-            title="${historyCount} transições de estado"
+            title="Ver transições de estado"
         >
             📋 Histórico
         </button>
@@ -399,8 +488,7 @@ window.updateBookingStatus = async function (token, newStatus) {
 
     // Recarregar reservas após um pequeno delay
     setTimeout(() => {
-      const municipalityFilter = document.getElementById('municipality-filter').value || 'all';
-      loadBookings(municipalityFilter);
+      loadBookings(currentFilters);
     }, 500);
 
   } catch (error) {
@@ -497,15 +585,25 @@ function initHistoryModal() {
 }
 
 /**
- * Mostra o modal de histórico (chamado pelo onclick)
+ * Mostra o modal de histórico (chamado pelo onclick). A listagem não traz o
+ * histórico, por isso é pedido o detalhe da reserva apenas neste momento.
  */
-window.showHistoryFromData = function (token, buttonElement) {
-  const historyJson = buttonElement.getAttribute('data-history');
+window.showHistoryFromData = async function (token, buttonElement) {
   let history = [];
+  buttonElement.disabled = true;
   try {
-    history = JSON.parse(historyJson);
+    const response = await fetch(`${API_BASE}/${encodeURIComponent(token)}`);
+    if (!response.ok) {
+      throw new Error(`HTTP ${response.status}`);
+    }
+    const booking = await response.json();
+    history = booking.history || [];
   } catch (e) {
-    console.error('Erro ao parsear histórico:', e);
+    console.error('Erro ao carregar histórico:', e);
+    showMessage('Não foi possível carregar o histórico', 'error');
+    return;
+  } finally {
+    buttonElement.disabled = false;
   }
   showHistory(token, history);
 };
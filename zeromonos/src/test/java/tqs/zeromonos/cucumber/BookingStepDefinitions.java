@@ -23,6 +23,8 @@ import tqs.zeromonos.data.BookingRepository;
 import tqs.zeromonos.data.BookingStatus;
 import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.services.BookingTokenFilter;
+import tqs.zeromonos.services.MunicipalityIndex;
 
 public class BookingStepDefinitions {
 
@@ -35,6 +37,12 @@ public class BookingStepDefinitions {
     @Autowired
     private MunicipalityRepository municipalityRepository;
 
+    @Autowired
+    private MunicipalityIndex municipalityIndex;
+
+    @Autowired
+    private BookingTokenFilter bookingTokenFilter;
+
     private Response response;
     private String savedToken;
     private LocalDate tomorrow;
@@ -65,9 +73,17 @@ public class BookingStepDefinitions {
         if (municipalityRepository.findByName(name).isEmpty()) {
             Municipality municipality = new Municipality(name);
             municipalityRepository.save(municipality);
+            // Escrita direta na tabela: o índice em memória tem de ser recarregado
+            municipalityIndex.refresh();
         }
     }
 
+    private void saveBooking(tqs.zeromonos.data.Booking booking) {
+        bookingRepository.save(booking);
+        // Escrita direta na tabela: o token tem de entrar no filtro de tokens
+        bookingTokenFilter.add(booking.getToken());
+    }
+
     private LocalDate getNextSunday() {
         LocalDate date = LocalDate.now().plusDays(1);
         while (date.getDayOfWeek() != DayOfWeek.SUNDAY) {
@@ -106,7 +122,7 @@ public class BookingStepDefinitions {
         tqs.zeromonos.data.Booking booking = new tqs.zeromonos.data.Booking(
                 lisboa, "Teste", tomorrow, tqs.zeromonos.data.TimeSlot.MORNING);
         // Não podemos definir o token diretamente, então criamos e procuramos
-        bookingRepository.save(booking);
+        saveBooking(booking);
         savedToken = booking.getToken();
     }
 
@@ -121,7 +137,7 @@ public class BookingStepDefinitions {
 
         tqs.zeromonos.data.Booking booking = new tqs.zeromonos.data.Booking(
                 lisboa, "Teste Cancelável", tomorrow, tqs.zeromonos.data.TimeSlot.MORNING);
-        bookingRepository.save(booking);
+        saveBooking(booking);
         savedToken = booking.getToken();
     }
 
@@ -137,7 +153,7 @@ public class BookingStepDefinitions {
         tqs.zeromonos.data.Booking booking = new tqs.zeromonos.data.Booking(
                 lisboa, "Teste Cancelado", tomorrow, tqs.zeromonos.data.TimeSlot.MORNING);
         booking.setStatus(BookingStatus.CANCELLED);
-        bookingRepository.save(booking);
+        saveBooking(booking);
         savedToken = booking.getToken();
     }
 
@@ -155,8 +171,8 @@ public class BookingStepDefinitions {
         tqs.zeromonos.data.Booking booking2 = new tqs.zeromonos.data.Booking(
                 lisboa, "Agendamento 2", tomorrow.plusDays(1), tqs.zeromonos.data.TimeSlot.AFTERNOON);
 
-        bookingRepository.save(booking1);
-        bookingRepository.save(booking2);
+        saveBooking(booking1);
+        saveBooking(booking2);
     }
 
     @Given("que existem agendamentos para {string}")
@@ -171,7 +187,7 @@ public class BookingStepDefinitions {
         tqs.zeromonos.data.Booking booking = new tqs.zeromonos.data.Booking(
                 municipality, "Agendamento para " + municipalityName, tomorrow,
                 tqs.zeromonos.data.TimeSlot.MORNING);
-        bookingRepository.save(booking);
+        saveBooking(booking);
     }
 
     // ==================== WHEN ====================
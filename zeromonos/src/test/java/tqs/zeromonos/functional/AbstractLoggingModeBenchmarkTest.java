@@ -0,0 +1,119 @@
+package tqs.zeromonos.functional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import io.restassured.RestAssured;
+import tqs.zeromonos.utils.BookingToken;
+
+/**
+ * Débito das consultas por token com cada configuração de logging: cada
+ * subclasse arranca a aplicação com uma configuração e regista no log os
+ * pedidos por segundo, para os dois resultados poderem ser comparados.
+ *
+ * A cache de consultas está desativada (tempo de vida 0), para que cada
+ * consulta passe pela leitura na base de dados e pelo respetivo logging; uma
+ * em cada dez consultas é a um token inexistente (404).
+ *
+ * Não corre por omissão:
+ * {@code mvn test -Dtest='*LoggingBenchmarkTest' -Dzeromonos.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "zeromonos.benchmark", matches = "true")
+abstract class AbstractLoggingModeBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractLoggingModeBenchmarkTest.class);
+
+    private static final int BOOKINGS = 8;
+    private static final int CLIENTS = 16;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 200;
+    private static final int REQUESTS_PER_CLIENT = 1_000;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+
+    /**
+     * Nome da configuração de logging, para o log do resultado.
+     */
+    protected abstract String mode();
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+        RestAssured.baseURI = baseUrl;
+        RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
+    }
+
+    @Test
+    @DisplayName("Consultas por token concorrentes: pedidos por segundo com esta configuração de logging")
+    void testLookupThroughput() throws Exception {
+        // Arrange
+        List<String> tokens = LoadTestFixtures.createBookings(BOOKINGS);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        run(client, tokens, WARMUP_REQUESTS_PER_CLIENT);
+
+        // Act
+        long begin = System.nanoTime();
+        int failures = run(client, tokens, REQUESTS_PER_CLIENT);
+        long elapsedNanos = System.nanoTime() - begin;
+
+        // Assert
+        assertEquals(0, failures, "Todas as consultas devem ter o estado esperado");
+        int requests = CLIENTS * REQUESTS_PER_CLIENT;
+        logger.warn("Logging {}: {} consultas em {} ms ({} pedidos/s)", mode(), requests,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), String.format("%.0f", requests / (elapsedNanos / 1e9)));
+    }
+
+    // Número de respostas com um estado diferente do esperado
+    private int run(HttpClient client, List<String> tokens, int requestsPerClient) throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            int clientIndex = c;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < requestsPerClient; i++) {
+                    int index = clientIndex * requestsPerClient + i;
+                    boolean unknown = index % 10 == 0;
+                    String token = unknown ? BookingToken.generate() : tokens.get(index % tokens.size());
+                    HttpResponse<Void> response = client.send(
+                            HttpRequest.newBuilder(URI.create(baseUrl + "/api/bookings/" + token)).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    int expected = unknown ? HttpStatus.NOT_FOUND.value() : HttpStatus.OK.value();
+                    if (response.statusCode() != expected) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES), "A carga não terminou a tempo");
+        return failures.get();
+    }
+}
@@ -0,0 +1,131 @@
+package tqs.zeromonos.functional;
+
+import static io.restassured.RestAssured.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import io.restassured.RestAssured;
+
+/**
+ * Carga comparável para os dois modos de execução dos pedidos (threads de
+ * plataforma e threads virtuais): o mesmo número de clientes concorrentes faz
+ * consultas por token (servidas pela cache) e listagens paginadas do staff
+ * (que vão à base de dados). Cada subclasse arranca a aplicação num modo e
+ * regista no log o débito, as latências e os eventos de pinning, para os dois
+ * resultados poderem ser comparados.
+ *
+ * Não corre por omissão (arranca a aplicação uma vez por modo):
+ * {@code mvn test -Dtest='*ThreadsLoadTest' -Dzeromonos.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "zeromonos.benchmark", matches = "true")
+abstract class AbstractThreadingLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractThreadingLoadTest.class);
+
+    private static final int BOOKINGS = 8;
+    private static final int CLIENTS = 32;
+    private static final int REQUESTS_PER_CLIENT = 25;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+
+    /**
+     * Modo esperado em {@code GET /api/staff/monitoring/threads}.
+     */
+    protected abstract String expectedMode();
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+        RestAssured.baseURI = baseUrl;
+        RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
+    }
+
+    @Test
+    @DisplayName("Consultas por token e listagens do staff concorrentes devem ter todas sucesso")
+    void testConcurrentLookupsAndStaffPages() throws Exception {
+        // Arrange
+        List<String> tokens = LoadTestFixtures.createBookings(BOOKINGS);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+
+        // Act
+        for (int c = 0; c < CLIENTS; c++) {
+            int clientIndex = c;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                    int index = clientIndex * REQUESTS_PER_CLIENT + i;
+                    String path = index % 4 == 0
+                            ? "/api/staff/bookings/page?municipality=Porto&size=20"
+                            : "/api/bookings/" + tokens.get(index % tokens.size());
+                    long begin = System.nanoTime();
+                    HttpResponse<Void> response = client.send(
+                            HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    latencies[index] = System.nanoTime() - begin;
+                    if (response.statusCode() != HttpStatus.OK.value()) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "A carga não terminou a tempo");
+        long elapsedNanos = System.nanoTime() - begin;
+
+        // Assert
+        assertEquals(0, failures.get(), "Todos os pedidos devem ter sucesso");
+        Map<String, Object> threads = get("/api/staff/monitoring/threads")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .jsonPath()
+                .getMap(".");
+        assertEquals(expectedMode(), threads.get("mode"));
+
+        Arrays.sort(latencies);
+        logger.info("Carga em modo {}: {} pedidos em {} ms ({} pedidos/s), p50 {} ms, p99 {} ms, pinning {}",
+                expectedMode(), latencies.length, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", latencies.length / (elapsedNanos / 1e9)),
+                String.format("%.2f", percentile(latencies, 0.50) / 1e6),
+                String.format("%.2f", percentile(latencies, 0.99) / 1e6),
+                threads.get("pinnedEvents"));
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+}
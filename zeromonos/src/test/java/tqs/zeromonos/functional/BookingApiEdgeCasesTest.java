@@ -5,6 +5,8 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -366,6 +368,171 @@ class BookingApiEdgeCasesTest {
                 .statusCode(HttpStatus.NOT_FOUND.value());
     }
 
+    // ==================== TESTES DE CRIAÇÃO EM LOTE ====================
+
+    @Test
+    @DisplayName("POST /api/bookings/batch - Deve criar os pedidos válidos e rejeitar os inválidos")
+    void testCreateBookings_Batch() {
+        LocalDate date = LocalDate.now().plusDays(14);
+        if (date.getDayOfWeek().getValue() == 7) {
+            date = date.plusDays(1);
+        }
+        String requestBody = String.format("["
+                + "{\"municipalityName\":\"Aveiro\",\"requestedDate\":\"%1$s\",\"timeSlot\":\"MORNING\",\"description\":\"Lote 1\"},"
+                + "{\"municipalityName\":\"Inexistente\",\"requestedDate\":\"%1$s\",\"timeSlot\":\"MORNING\",\"description\":\"Lote 2\"},"
+                + "{\"municipalityName\":\"Aveiro\",\"requestedDate\":\"%1$s\",\"timeSlot\":\"EVENING\",\"description\":\"Lote 3\"}"
+                + "]", date);
+
+        String token = given()
+                .contentType(ContentType.JSON)
+                .body(requestBody)
+                .when()
+                .post("/api/bookings/batch")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("created", equalTo(2))
+                .body("rejected", equalTo(1))
+                .body("items.status", contains(200, 400, 200))
+                .body("items[1].message", containsString("não encontrado"))
+                .extract()
+                .path("items[2].booking.token");
+
+        // As reservas do lote ficam disponíveis para consulta
+        given()
+                .when()
+                .get("/api/bookings/" + token)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("description", equalTo("Lote 3"));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/staff/bookings/status - Deve mudar o estado de várias reservas de uma vez")
+    void testUpdateStatuses_Batch() {
+        LocalDate date = LocalDate.now().plusDays(15);
+        if (date.getDayOfWeek().getValue() == 7) {
+            date = date.plusDays(1);
+        }
+        String requestBody = String.format("["
+                + "{\"municipalityName\":\"Aveiro\",\"requestedDate\":\"%1$s\",\"timeSlot\":\"MORNING\",\"description\":\"Turno 1\"},"
+                + "{\"municipalityName\":\"Aveiro\",\"requestedDate\":\"%1$s\",\"timeSlot\":\"AFTERNOON\",\"description\":\"Turno 2\"}"
+                + "]", date);
+        List<String> tokens = given()
+                .contentType(ContentType.JSON)
+                .body(requestBody)
+                .when()
+                .post("/api/bookings/batch")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .path("items.booking.token");
+
+        String statusBody = String.format("{\"tokens\":[\"%s\",\"%s\",\"inexistente\"],\"status\":\"ASSIGNED\"}",
+                tokens.get(0), tokens.get(1));
+        given()
+                .contentType(ContentType.JSON)
+                .body(statusBody)
+                .when()
+                .patch("/api/staff/bookings/status")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("created", equalTo(2))
+                .body("items.status", contains(200, 200, 404))
+                .body("items[0].booking.status", equalTo("ASSIGNED"));
+
+        given()
+                .when()
+                .get("/api/bookings/" + tokens.get(1))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("status", equalTo("ASSIGNED"))
+                .body("history.size()", equalTo(2));
+    }
+
+    // ==================== TESTES DE IDEMPOTÊNCIA ====================
+
+    @Test
+    @DisplayName("POST /api/bookings - Repetir com a mesma Idempotency-Key deve devolver a reserva original")
+    void testCreateBooking_IdempotencyKeyReplay() {
+        LocalDate date = LocalDate.now().plusDays(12);
+        if (date.getDayOfWeek().getValue() == 7) {
+            date = date.plusDays(1);
+        }
+        String key = UUID.randomUUID().toString();
+        String requestBody = String.format(
+                "{\"municipalityName\":\"Porto\",\"requestedDate\":\"%s\",\"timeSlot\":\"MORNING\",\"description\":\"Idempotente\"}",
+                date);
+
+        String token = given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(requestBody)
+                .when()
+                .post("/api/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .path("token");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(requestBody)
+                .when()
+                .post("/api/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("token", equalTo(token));
+
+        // A mesma chave com outro pedido é rejeitada
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(requestBody.replace("Idempotente", "Outro"))
+                .when()
+                .post("/api/bookings")
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", containsString("Idempotency-Key"));
+    }
+
+    // ==================== TESTES DE NOMES DE MUNICÍPIOS ====================
+
+    @Test
+    @DisplayName("POST /api/bookings - Deve resolver o município ignorando maiúsculas e espaços")
+    void testCreateBooking_NormalizedMunicipalityName() {
+        LocalDate date = LocalDate.now().plusDays(10);
+        if (date.getDayOfWeek().getValue() == 7) {
+            date = date.plusDays(1);
+        }
+
+        String requestBody = String.format(
+                "{\"municipalityName\":\"  LISBOA \",\"requestedDate\":\"%s\",\"timeSlot\":\"EVENING\",\"description\":\"Test\"}",
+                date);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(requestBody)
+                .when()
+                .post("/api/bookings")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("municipalityName", equalTo("Lisboa"));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities/suggest - Deve sugerir municípios pelo prefixo")
+    void testSuggestMunicipalities() {
+        given()
+                .queryParam("q", "LIS")
+                .when()
+                .get("/api/bookings/municipalities/suggest")
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .body("$", hasItem("Lisboa"))
+                .body("size()", lessThanOrEqualTo(10));
+    }
+
     // ==================== TESTES DE MÉTODOS HTTP ====================
 
     @Test
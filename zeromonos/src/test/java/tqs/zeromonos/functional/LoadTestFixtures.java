@@ -0,0 +1,53 @@
+package tqs.zeromonos.functional;
+
+import static io.restassured.RestAssured.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+
+import io.restassured.http.ContentType;
+
+/**
+ * Dados comuns aos testes de carga e benchmarks que correm contra a aplicação
+ * arrancada ({@code RestAssured.baseURI} já configurado).
+ */
+final class LoadTestFixtures {
+    private static final String[] SLOTS = { "MORNING", "AFTERNOON", "EVENING" };
+
+    private LoadTestFixtures() {
+    }
+
+    /**
+     * Cria {@code count} reservas no Porto, em dias úteis consecutivos a partir
+     * de depois de amanhã, e devolve os respetivos tokens.
+     */
+    static List<String> createBookings(int count) {
+        List<String> tokens = new ArrayList<>();
+        LocalDate date = LocalDate.now().plusDays(1);
+        for (int i = 0; i < count; i++) {
+            date = date.plusDays(1);
+            // Se for domingo, avançar para segunda-feira
+            if (date.getDayOfWeek().getValue() == 7) {
+                date = date.plusDays(1);
+            }
+            tokens.add(given()
+                    .contentType(ContentType.JSON)
+                    .body(Map.of(
+                            "municipalityName", "Porto",
+                            "description", "Recolha de carga " + i,
+                            "requestedDate", date.toString(),
+                            "timeSlot", SLOTS[i % SLOTS.length]))
+                    .when()
+                    .post("/api/bookings")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .extract()
+                    .path("token"));
+        }
+        return tokens;
+    }
+}
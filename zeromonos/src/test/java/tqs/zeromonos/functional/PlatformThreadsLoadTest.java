@@ -0,0 +1,23 @@
+package tqs.zeromonos.functional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.zeromonos.TestcontainersConfiguration;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:load-platform",
+        "spring.jpa.show-sql=false" })
+@TestPropertySource(locations = "classpath:application.properties")
+@Import(TestcontainersConfiguration.class)
+@DisplayName("Testes de Carga com Threads de Plataforma")
+class PlatformThreadsLoadTest extends AbstractThreadingLoadTest {
+
+    @Override
+    protected String expectedMode() {
+        return "platform";
+    }
+}
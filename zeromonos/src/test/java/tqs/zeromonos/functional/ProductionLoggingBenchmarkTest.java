@@ -0,0 +1,29 @@
+package tqs.zeromonos.functional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.zeromonos.TestcontainersConfiguration;
+
+/**
+ * Perfil de produção: appenders assíncronos, sem SQL e com amostragem das
+ * consultas com sucesso.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:logging-production",
+        "booking.lookup-cache.ttl-seconds=0",
+        "municipalities.refresh.enabled=false" })
+@TestPropertySource(locations = { "classpath:application.properties", "classpath:application-prod.properties" })
+@ActiveProfiles("prod")
+@Import(TestcontainersConfiguration.class)
+@DisplayName("Benchmark de Logging - Perfil de Produção")
+class ProductionLoggingBenchmarkTest extends AbstractLoggingModeBenchmarkTest {
+
+    @Override
+    protected String mode() {
+        return "produção";
+    }
+}
@@ -0,0 +1,106 @@
+package tqs.zeromonos.functional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tqs.zeromonos.data.TimeOrderedUuidGenerator;
+
+/**
+ * Compara chaves primárias UUID aleatórias (versão 4) com as chaves ordenadas
+ * pelo tempo de {@link TimeOrderedUuidGenerator}: a mesma tabela (com o
+ * tamanho aproximado de uma linha de {@code bookings}) é preenchida numa base
+ * de dados H2 em ficheiro com cada tipo de chave, e são registados no log o
+ * débito das inserções e o tamanho final do ficheiro.
+ *
+ * Não corre por omissão (demora minutos com milhões de linhas):
+ * {@code mvn test -Dtest=TimeOrderedIdBenchmarkTest -Dzeromonos.benchmark=true}
+ * e, opcionalmente, {@code -Dzeromonos.benchmark.rows=5000000}.
+ */
+@EnabledIfSystemProperty(named = "zeromonos.benchmark", matches = "true")
+@DisplayName("Benchmark de Chaves Primárias Ordenadas pelo Tempo")
+class TimeOrderedIdBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(TimeOrderedIdBenchmarkTest.class);
+
+    private static final int ROWS = Integer.getInteger("zeromonos.benchmark.rows", 2_000_000);
+    private static final int BATCH_SIZE = 1_000;
+
+    private record Result(long millis, long fileBytes) {
+        double rowsPerSecond() {
+            return ROWS * 1000.0 / Math.max(1, millis);
+        }
+    }
+
+    @Test
+    @DisplayName("Inserções com UUIDs ordenados pelo tempo vs. UUIDs aleatórios numa base de dados H2 em ficheiro")
+    void testInsertThroughputAndFileSize(@TempDir Path directory) throws Exception {
+        // Act
+        Result random = run(directory.resolve("random"), UUID::randomUUID);
+        Result timeOrdered = run(directory.resolve("time-ordered"), TimeOrderedUuidGenerator::next);
+
+        // Assert: o resultado é para ler no log; só se verifica que correu
+        logger.info("Benchmark de chaves primárias ({} linhas, batches de {})", ROWS, BATCH_SIZE);
+        logger.info("  UUID aleatório:           {} ms, {} linhas/s, ficheiro {} MB", random.millis(),
+                Math.round(random.rowsPerSecond()), random.fileBytes() / (1024 * 1024));
+        logger.info("  UUID ordenado pelo tempo: {} ms, {} linhas/s, ficheiro {} MB", timeOrdered.millis(),
+                Math.round(timeOrdered.rowsPerSecond()), timeOrdered.fileBytes() / (1024 * 1024));
+        assertTrue(random.fileBytes() > 0 && timeOrdered.fileBytes() > 0);
+    }
+
+    private static Result run(Path database, Supplier<UUID> ids) throws SQLException, IOException {
+        String url = "jdbc:h2:file:" + database.toAbsolutePath();
+        long start;
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE bookings_benchmark (id UUID PRIMARY KEY, token BINARY(16) NOT NULL, "
+                        + "description VARCHAR(255) NOT NULL, created_at BIGINT NOT NULL)");
+            }
+            connection.setAutoCommit(false);
+            start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO bookings_benchmark (id, token, description, created_at) VALUES (?, ?, ?, ?)")) {
+                byte[] token = new byte[16];
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setObject(1, ids.get());
+                    insert.setBytes(2, token);
+                    insert.setString(3, "Recolha de monos " + i);
+                    insert.setLong(4, System.currentTimeMillis());
+                    insert.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            try (Statement statement = connection.createStatement();
+                    ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM bookings_benchmark")) {
+                count.next();
+                assertEquals(ROWS, count.getLong(1));
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+            return new Result(millis, Files.size(Path.of(database.toAbsolutePath() + ".mv.db")));
+        }
+    }
+}
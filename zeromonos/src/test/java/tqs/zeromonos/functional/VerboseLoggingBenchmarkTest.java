@@ -0,0 +1,31 @@
+package tqs.zeromonos.functional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.zeromonos.TestcontainersConfiguration;
+
+/**
+ * Configuração de logging anterior ao perfil de produção: SQL no log, detalhe
+ * de cada consulta (agora em debug) e um evento por pedido, tudo escrito de
+ * forma síncrona.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:logging-verbose",
+        "spring.jpa.show-sql=true",
+        "logging.level.tqs.zeromonos=DEBUG",
+        "zeromonos.request-log.success-sample-rate=1.0",
+        "booking.lookup-cache.ttl-seconds=0",
+        "municipalities.refresh.enabled=false" })
+@TestPropertySource(locations = "classpath:application.properties")
+@Import(TestcontainersConfiguration.class)
+@DisplayName("Benchmark de Logging - Modo Detalhado")
+class VerboseLoggingBenchmarkTest extends AbstractLoggingModeBenchmarkTest {
+
+    @Override
+    protected String mode() {
+        return "detalhado";
+    }
+}
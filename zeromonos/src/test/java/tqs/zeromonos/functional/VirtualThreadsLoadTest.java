@@ -0,0 +1,27 @@
+package tqs.zeromonos.functional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import tqs.zeromonos.TestcontainersConfiguration;
+
+// Threads virtuais só existem a partir do Java 21
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:load-virtual",
+        "spring.jpa.show-sql=false" })
+@TestPropertySource(locations = "classpath:application.properties")
+@Import(TestcontainersConfiguration.class)
+@DisplayName("Testes de Carga com Threads Virtuais")
+class VirtualThreadsLoadTest extends AbstractThreadingLoadTest {
+
+    @Override
+    protected String expectedMode() {
+        return "virtual";
+    }
+}
@@ -0,0 +1,95 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.services.AvailabilityCalendar;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários de AvailabilityCalendar")
+class AvailabilityCalendarTest {
+
+    private static final int ALL_SLOTS = (1 << TimeSlot.values().length) - 1;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private AvailabilityCalendar calendar;
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new AvailabilityCalendar(bookingRepository, 2);
+        date = LocalDate.now().plusDays(3);
+    }
+
+    @Test
+    @DisplayName("openSlotsMask - Dia sem reservas deve ter todos os períodos disponíveis")
+    void testOpenSlotsMask_EmptyDay() {
+        assertEquals(ALL_SLOTS, calendar.openSlotsMask(1L, date));
+        assertEquals(2, calendar.remaining(1L, date, TimeSlot.MORNING));
+    }
+
+    @Test
+    @DisplayName("tryReserve - Período cheio deve ser marcado no bitmap e rejeitar novas reservas")
+    void testTryReserve_FillsSlot() {
+        // Act
+        assertTrue(calendar.tryReserve(1L, date, TimeSlot.MORNING));
+        assertTrue(calendar.tryReserve(1L, date, TimeSlot.MORNING));
+
+        // Assert
+        assertFalse(calendar.tryReserve(1L, date, TimeSlot.MORNING));
+        int mask = calendar.openSlotsMask(1L, date);
+        assertEquals(0, mask & (1 << TimeSlot.MORNING.ordinal()));
+        assertNotEquals(0, mask & (1 << TimeSlot.AFTERNOON.ordinal()));
+        // Outros municípios não são afetados
+        assertEquals(ALL_SLOTS, calendar.openSlotsMask(2L, date));
+    }
+
+    @Test
+    @DisplayName("release - Libertar uma vaga deve reabrir o período")
+    void testRelease_ReopensSlot() {
+        // Arrange
+        calendar.tryReserve(1L, date, TimeSlot.EVENING);
+        calendar.tryReserve(1L, date, TimeSlot.EVENING);
+
+        // Act
+        calendar.release(1L, date, TimeSlot.EVENING);
+
+        // Assert
+        assertEquals(ALL_SLOTS, calendar.openSlotsMask(1L, date));
+        assertEquals(1, calendar.remaining(1L, date, TimeSlot.EVENING));
+    }
+
+    @Test
+    @DisplayName("rebuild - Deve carregar a ocupação a partir da base de dados")
+    void testRebuild_LoadsFromDatabase() {
+        // Arrange
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, date, TimeSlot.NIGHT, 2L });
+        when(bookingRepository.countActiveGroupedBySlot(any(LocalDate.class), eq(BookingStatus.CANCELLED)))
+                .thenReturn(rows);
+
+        // Act
+        calendar.rebuild();
+
+        // Assert
+        assertEquals(0, calendar.openSlotsMask(1L, date) & (1 << TimeSlot.NIGHT.ordinal()));
+        assertFalse(calendar.tryReserve(1L, date, TimeSlot.NIGHT));
+    }
+}
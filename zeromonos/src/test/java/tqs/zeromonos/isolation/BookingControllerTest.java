@@ -1,5 +1,7 @@
 package tqs.zeromonos.isolation;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -18,17 +20,25 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import tqs.zeromonos.boundary.BookingEventStreams;
 import tqs.zeromonos.boundary.BookingController;
 import tqs.zeromonos.data.BookingStatus;
 import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.AvailabilityResponseDTO;
+import tqs.zeromonos.dto.BookingBatchItemDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
 import tqs.zeromonos.services.BookingService;
 
 @WebMvcTest(BookingController.class)
@@ -41,6 +51,9 @@ class BookingControllerTest {
     @MockitoBean
     private BookingService bookingService;
 
+    @MockitoBean
+    private BookingEventStreams bookingEventStreams;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -99,6 +112,77 @@ class BookingControllerTest {
         verify(bookingService, times(1)).createBooking(any(BookingRequestDTO.class));
     }
 
+    @Test
+    @DisplayName("POST /api/bookings/batch - Deve devolver o resultado de cada pedido do lote")
+    void testCreateBookings_Batch() throws Exception {
+        // Arrange
+        BookingBatchResponseDTO batch = new BookingBatchResponseDTO(List.of(
+                BookingBatchItemDTO.created(0, responseDTO),
+                BookingBatchItemDTO.rejected(1, 409, "Limite de 32 agendamentos atingido para o município 'Lisboa'")));
+        when(bookingService.createBookings(anyList())).thenReturn(batch);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/bookings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(requestDTO, requestDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value(200))
+                .andExpect(jsonPath("$.items[0].booking.token").value("test-token-123"))
+                .andExpect(jsonPath("$.items[1].status").value(409))
+                .andExpect(jsonPath("$.items[1].message").value(containsString("Limite")));
+
+        verify(bookingService, times(1)).createBookings(argThat(requests -> requests.size() == 2));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings/batch - Deve retornar 400 quando o lote é inválido")
+    void testCreateBookings_InvalidBatch() throws Exception {
+        // Arrange
+        when(bookingService.createBookings(anyList()))
+                .thenThrow(new IllegalArgumentException("O lote de reservas não pode estar vazio"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/bookings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings - Deve passar a Idempotency-Key ao serviço quando indicada")
+    void testCreateBooking_WithIdempotencyKey() throws Exception {
+        // Arrange
+        when(bookingService.createBooking(any(BookingRequestDTO.class), eq("key-123"))).thenReturn(responseDTO);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/bookings")
+                .header("Idempotency-Key", "key-123")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("test-token-123"));
+
+        verify(bookingService, times(1)).createBooking(any(BookingRequestDTO.class), eq("key-123"));
+        verify(bookingService, never()).createBooking(any(BookingRequestDTO.class));
+    }
+
+    @Test
+    @DisplayName("POST /api/bookings - Deve retornar 400 quando a Idempotency-Key foi usada com outro pedido")
+    void testCreateBooking_IdempotencyKeyReusedWithDifferentRequest() throws Exception {
+        // Arrange
+        when(bookingService.createBooking(any(BookingRequestDTO.class), eq("key-123")))
+                .thenThrow(new IllegalArgumentException("A Idempotency-Key indicada já foi usada com um pedido diferente"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/bookings")
+                .header("Idempotency-Key", "key-123")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("POST /api/bookings - Deve criar booking mesmo com dados que passam validação")
     void testCreateBooking_InvalidData() throws Exception {
@@ -162,17 +246,54 @@ class BookingControllerTest {
     void testGetBookingByToken_Success() throws Exception {
         // Arrange
         String token = "test-token-123";
-        when(bookingService.getBookingByToken(token)).thenReturn(responseDTO);
+        EncodedBookingResponse encoded = EncodedBookingResponse.of(responseDTO, objectMapper);
+        when(bookingService.getEncodedBookingByToken(token)).thenReturn(encoded);
 
         // Act & Assert
         mockMvc.perform(get("/api/bookings/{token}", token)
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", encoded.getEtag()))
+                .andExpect(header().string("Cache-Control", "no-cache"))
                 .andExpect(jsonPath("$.token").value(token))
                 .andExpect(jsonPath("$.municipalityName").value("Lisboa"))
                 .andExpect(jsonPath("$.status").value("RECEIVED"));
 
-        verify(bookingService, times(1)).getBookingByToken(token);
+        verify(bookingService, times(1)).getEncodedBookingByToken(token);
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/{token} - Deve retornar 304 quando o ETag não mudou")
+    void testGetBookingByToken_NotModified() throws Exception {
+        // Arrange
+        String token = "test-token-123";
+        EncodedBookingResponse encoded = EncodedBookingResponse.of(responseDTO, objectMapper);
+        when(bookingService.getEncodedBookingByToken(token)).thenReturn(encoded);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/{token}", token)
+                .header("If-None-Match", encoded.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", encoded.getEtag()))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/{token} - ETag antigo deve devolver o novo estado")
+    void testGetBookingByToken_StaleEtag() throws Exception {
+        // Arrange: o ETag do cliente corresponde ao estado anterior
+        String token = "test-token-123";
+        String staleEtag = EncodedBookingResponse.etagOf(responseDTO);
+        responseDTO.setStatus(BookingStatus.ASSIGNED);
+        responseDTO.setUpdatedAt(OffsetDateTime.now().plusSeconds(1));
+        when(bookingService.getEncodedBookingByToken(token))
+                .thenReturn(EncodedBookingResponse.of(responseDTO, objectMapper));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/{token}", token)
+                .header("If-None-Match", staleEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ASSIGNED"));
     }
 
     @Test
@@ -180,7 +301,7 @@ class BookingControllerTest {
     void testGetBookingByToken_NotFound() throws Exception {
         // Arrange
         String token = "token-inexistente";
-        when(bookingService.getBookingByToken(token))
+        when(bookingService.getEncodedBookingByToken(token))
                 .thenThrow(new NoSuchElementException("Agendamento não encontrado"));
 
         // Act & Assert
@@ -188,7 +309,7 @@ class BookingControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
 
-        verify(bookingService, times(1)).getBookingByToken(token);
+        verify(bookingService, times(1)).getEncodedBookingByToken(token);
     }
 
     @Test
@@ -200,7 +321,7 @@ class BookingControllerTest {
         // /api/bookings/
         // como endpoint diferente e retornar 404 antes de chegar ao controller
         // Se chegar ao controller, pode retornar 400 (IllegalArgumentException)
-        when(bookingService.getBookingByToken(token))
+        when(bookingService.getEncodedBookingByToken(token))
                 .thenThrow(new IllegalArgumentException("Token inválido ou vazio"));
 
         // Act & Assert
@@ -215,7 +336,7 @@ class BookingControllerTest {
 
         // O serviço pode ou não ser chamado dependendo de como Spring trata path
         // variable vazio
-        verify(bookingService, atMost(1)).getBookingByToken(token);
+        verify(bookingService, atMost(1)).getEncodedBookingByToken(token);
     }
 
     // ==================== TESTES DE PUT /api/bookings/{token}/cancel
@@ -276,7 +397,8 @@ class BookingControllerTest {
     void testGetAvailableMunicipalities_Success() throws Exception {
         // Arrange
         List<String> municipalities = List.of("Lisboa", "Porto", "Coimbra", "Aveiro");
-        when(bookingService.getAvailableMunicipalities()).thenReturn(municipalities);
+        when(bookingService.getEncodedMunicipalities())
+                .thenReturn(EncodedMunicipalityList.of(municipalities, objectMapper));
 
         // Act & Assert
         mockMvc.perform(get("/api/bookings/municipalities")
@@ -289,14 +411,15 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[2]").value("Coimbra"))
                 .andExpect(jsonPath("$[3]").value("Aveiro"));
 
-        verify(bookingService, times(1)).getAvailableMunicipalities();
+        verify(bookingService, times(1)).getEncodedMunicipalities();
     }
 
     @Test
     @DisplayName("GET /api/bookings/municipalities - Deve retornar lista vazia quando não há municípios")
     void testGetAvailableMunicipalities_EmptyList() throws Exception {
         // Arrange
-        when(bookingService.getAvailableMunicipalities()).thenReturn(new ArrayList<>());
+        when(bookingService.getEncodedMunicipalities())
+                .thenReturn(EncodedMunicipalityList.of(new ArrayList<>(), objectMapper));
 
         // Act & Assert
         mockMvc.perform(get("/api/bookings/municipalities")
@@ -305,7 +428,140 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(bookingService, times(1)).getAvailableMunicipalities();
+        verify(bookingService, times(1)).getEncodedMunicipalities();
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities - Deve enviar ETag forte e Cache-Control público")
+    void testGetAvailableMunicipalities_CacheHeaders() throws Exception {
+        // Arrange
+        EncodedMunicipalityList encoded = EncodedMunicipalityList.of(List.of("Lisboa", "Porto"), objectMapper);
+        when(bookingService.getEncodedMunicipalities()).thenReturn(encoded);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/municipalities"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, encoded.getEtag()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(encoded.getJson()));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities - Deve retornar 304 quando o If-None-Match coincide")
+    void testGetAvailableMunicipalities_NotModified() throws Exception {
+        // Arrange
+        EncodedMunicipalityList encoded = EncodedMunicipalityList.of(List.of("Lisboa", "Porto"), objectMapper);
+        when(bookingService.getEncodedMunicipalities()).thenReturn(encoded);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/municipalities")
+                .header(HttpHeaders.IF_NONE_MATCH, encoded.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, encoded.getEtag()))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities - Deve enviar o corpo gzip pré-comprimido quando aceite")
+    void testGetAvailableMunicipalities_Gzip() throws Exception {
+        // Arrange
+        EncodedMunicipalityList encoded = EncodedMunicipalityList.of(List.of("Lisboa", "Porto"), objectMapper);
+        when(bookingService.getEncodedMunicipalities()).thenReturn(encoded);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/municipalities")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, encoded.getGzipEtag()))
+                .andExpect(content().bytes(encoded.getGzip()));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities - Não deve usar gzip quando recusado com q=0")
+    void testGetAvailableMunicipalities_GzipRefused() throws Exception {
+        // Arrange
+        EncodedMunicipalityList encoded = EncodedMunicipalityList.of(List.of("Lisboa"), objectMapper);
+        when(bookingService.getEncodedMunicipalities()).thenReturn(encoded);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/municipalities")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(encoded.getJson()));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities/suggest - Deve retornar as sugestões para o prefixo")
+    void testSuggestMunicipalities_Success() throws Exception {
+        // Arrange
+        when(bookingService.suggestMunicipalities("evo", 5)).thenReturn(List.of("Évora"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/municipalities/suggest")
+                .param("q", "evo")
+                .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value("Évora"));
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/municipalities/suggest - Deve usar o limite por omissão")
+    void testSuggestMunicipalities_DefaultLimit() throws Exception {
+        // Arrange
+        when(bookingService.suggestMunicipalities("", 10)).thenReturn(List.of());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/municipalities/suggest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        verify(bookingService, times(1)).suggestMunicipalities("", 10);
+    }
+
+    // ==================== TESTES DE GET /api/bookings/availability
+    // ====================
+
+    @Test
+    @DisplayName("GET /api/bookings/availability - Deve retornar períodos disponíveis (200 OK)")
+    void testGetAvailability_Success() throws Exception {
+        // Arrange
+        AvailabilityResponseDTO availability = new AvailabilityResponseDTO("Lisboa", validDate, validDate, 8,
+                List.of(new AvailabilityResponseDTO.DayAvailability(validDate, true,
+                        List.of(TimeSlot.MORNING, TimeSlot.AFTERNOON))));
+        when(bookingService.getAvailability("Lisboa", validDate, validDate)).thenReturn(availability);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/availability")
+                .param("municipality", "Lisboa")
+                .param("from", validDate.toString())
+                .param("to", validDate.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.municipalityName").value("Lisboa"))
+                .andExpect(jsonPath("$.slotCapacity").value(8))
+                .andExpect(jsonPath("$.days[0].bookable").value(true))
+                .andExpect(jsonPath("$.days[0].openSlots[1]").value("AFTERNOON"));
+
+        verify(bookingService, times(1)).getAvailability("Lisboa", validDate, validDate);
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/availability - Deve retornar 404 quando município não existe")
+    void testGetAvailability_MunicipalityNotFound() throws Exception {
+        // Arrange
+        when(bookingService.getAvailability("Inexistente", validDate, validDate))
+                .thenThrow(new NoSuchElementException("Município não encontrado: Inexistente"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/availability")
+                .param("municipality", "Inexistente")
+                .param("from", validDate.toString())
+                .param("to", validDate.toString()))
+                .andExpect(status().isNotFound());
     }
 
     // ==================== TESTES DE VALIDAÇÃO DE REQUISIÇÃO ====================
@@ -372,7 +628,8 @@ class BookingControllerTest {
     @DisplayName("GET /api/bookings/municipalities - Deve permitir CORS")
     void testCorsHeaders() throws Exception {
         // Arrange
-        when(bookingService.getAvailableMunicipalities()).thenReturn(List.of("Lisboa"));
+        when(bookingService.getEncodedMunicipalities())
+                .thenReturn(EncodedMunicipalityList.of(List.of("Lisboa"), objectMapper));
 
         // Act & Assert
         mockMvc.perform(get("/api/bookings/municipalities")
@@ -380,7 +637,7 @@ class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(header().exists("Access-Control-Allow-Origin"));
 
-        verify(bookingService, times(1)).getAvailableMunicipalities();
+        verify(bookingService, times(1)).getEncodedMunicipalities();
     }
 
     // ==================== TESTES DE ERRO INTERNO ====================
@@ -400,4 +657,33 @@ class BookingControllerTest {
 
         verify(bookingService, times(1)).createBooking(any(BookingRequestDTO.class));
     }
+
+    @Test
+    @DisplayName("GET /api/bookings/{token}/events - Deve abrir o canal com o estado atual")
+    void testStreamBookingEvents_OpensStream() throws Exception {
+        // Arrange
+        String token = "test-token-123";
+        when(bookingService.getBookingByToken(token)).thenReturn(responseDTO);
+        when(bookingEventStreams.openForToken(token, responseDTO)).thenReturn(new SseEmitter());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/{token}/events", token))
+                .andExpect(request().asyncStarted());
+
+        verify(bookingEventStreams, times(1)).openForToken(token, responseDTO);
+    }
+
+    @Test
+    @DisplayName("GET /api/bookings/{token}/events - Deve retornar 404 quando token não existe")
+    void testStreamBookingEvents_NotFound() throws Exception {
+        // Arrange
+        when(bookingService.getBookingByToken("token-inexistente"))
+                .thenThrow(new NoSuchElementException("Agendamento não encontrado"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/bookings/{token}/events", "token-inexistente"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(bookingEventStreams);
+    }
 }
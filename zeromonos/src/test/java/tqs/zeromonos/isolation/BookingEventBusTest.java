@@ -0,0 +1,105 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.services.BookingEventBus;
+
+@DisplayName("Testes Unitários de BookingEventBus")
+class BookingEventBusTest {
+
+    private static BookingEventDTO event(String token, String municipality) {
+        return new BookingEventDTO(BookingEventDTO.STATUS_CHANGED, token, municipality, BookingStatus.RECEIVED,
+                BookingStatus.ASSIGNED, OffsetDateTime.now());
+    }
+
+    @Test
+    @DisplayName("publish - Deve entregar apenas aos subscritores interessados")
+    void testPublish_DeliversToMatchingSubscribers() {
+        // Arrange: executor síncrono para entregar no próprio publish
+        BookingEventBus bus = new BookingEventBus(Runnable::run, 16);
+        List<String> byToken = new ArrayList<>();
+        List<String> lisboa = new ArrayList<>();
+        List<String> all = new ArrayList<>();
+        bus.subscribeToken("token-1", e -> byToken.add(e.getToken()), () -> { });
+        bus.subscribeMunicipality("Lisboa", e -> lisboa.add(e.getToken()), () -> { });
+        bus.subscribeMunicipality("all", e -> all.add(e.getToken()), () -> { });
+
+        // Act
+        bus.publish(event("token-1", "Lisboa"));
+        bus.publish(event("token-2", "Porto"));
+
+        // Assert
+        assertEquals(List.of("token-1"), byToken);
+        assertEquals(List.of("token-1"), lisboa);
+        assertEquals(List.of("token-1", "token-2"), all);
+    }
+
+    @Test
+    @DisplayName("cancel - Não deve entregar eventos depois de cancelar a subscrição")
+    void testCancel_StopsDelivery() {
+        // Arrange
+        BookingEventBus bus = new BookingEventBus(Runnable::run, 16);
+        List<String> received = new ArrayList<>();
+        BookingEventBus.Subscription subscription = bus.subscribeToken("token-1", e -> received.add(e.getToken()),
+                () -> { });
+
+        // Act
+        subscription.cancel();
+        bus.publish(event("token-1", "Lisboa"));
+
+        // Assert
+        assertTrue(received.isEmpty());
+        assertEquals(0, bus.subscriberCount());
+    }
+
+    @Test
+    @DisplayName("publish - Subscritor lento deve ser desligado quando a fila enche")
+    void testPublish_SlowSubscriberIsDisconnected() {
+        // Arrange: executor que nunca corre, simulando um cliente que não consome
+        BookingEventBus bus = new BookingEventBus(task -> { }, 2);
+        AtomicBoolean overflowed = new AtomicBoolean();
+        BookingEventBus.Subscription subscription = bus.subscribeMunicipality("Lisboa", e -> { },
+                () -> overflowed.set(true));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            bus.publish(event("token-" + i, "Lisboa"));
+        }
+
+        // Assert
+        assertTrue(overflowed.get());
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, bus.subscriberCount());
+    }
+
+    @Test
+    @DisplayName("publish - Erro no subscritor deve cancelar apenas essa subscrição")
+    void testPublish_FailingListenerIsCancelled() {
+        // Arrange
+        BookingEventBus bus = new BookingEventBus(Runnable::run, 16);
+        List<String> healthy = new ArrayList<>();
+        BookingEventBus.Subscription failing = bus.subscribeMunicipality("Lisboa", e -> {
+            throw new IllegalStateException("ligação fechada");
+        }, () -> { });
+        bus.subscribeMunicipality("Lisboa", e -> healthy.add(e.getToken()), () -> { });
+
+        // Act
+        bus.publish(event("token-1", "Lisboa"));
+        bus.publish(event("token-2", "Lisboa"));
+
+        // Assert
+        assertTrue(failing.isCancelled());
+        assertEquals(List.of("token-1", "token-2"), healthy);
+        assertEquals(1, bus.subscriberCount());
+    }
+}
@@ -0,0 +1,193 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.CacheStatsDTO;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+import tqs.zeromonos.services.BookingLookupCache;
+
+@DisplayName("Testes Unitários de BookingLookupCache")
+class BookingLookupCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private BookingLookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookingLookupCache(2, Duration.ofSeconds(60), now::get, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private static BookingResponseDTO dto(String token) {
+        BookingResponseDTO dto = new BookingResponseDTO();
+        dto.setToken(token);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("get - Deve contar acertos e falhas")
+    void testGet_CountsHitsAndMisses() {
+        // Arrange
+        BookingResponseDTO value = dto("a");
+        cache.putIfUnchanged("a", value, cache.readStamp());
+
+        // Act
+        BookingResponseDTO hit = cache.get("a");
+        BookingResponseDTO miss = cache.get("b");
+
+        // Assert
+        assertSame(value, hit);
+        assertNull(miss);
+        CacheStatsDTO stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    @DisplayName("put - Deve remover a entrada menos usada quando o limite é excedido")
+    void testPut_EvictsLeastRecentlyUsed() {
+        // Arrange
+        cache.put("a", dto("a"));
+        cache.put("b", dto("b"));
+        cache.get("a");
+
+        // Act
+        cache.put("c", dto("c"));
+
+        // Assert
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(2, cache.stats().getSize());
+    }
+
+    @Test
+    @DisplayName("get - Entradas expiradas não devem ser servidas")
+    void testGet_ExpiredEntry() {
+        // Arrange
+        cache.put("a", dto("a"));
+
+        // Act
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        // Assert
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    @DisplayName("putIfUnchanged - Não deve guardar uma leitura feita antes de uma escrita")
+    void testPutIfUnchanged_IgnoresStaleRead() {
+        // Arrange: a leitura começa, entretanto a reserva é cancelada
+        long stamp = cache.readStamp();
+        cache.invalidate("a");
+
+        // Act
+        cache.putIfUnchanged("a", dto("a"), stamp);
+
+        // Assert
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("invalidate - Deve remover a entrada")
+    void testInvalidate_RemovesEntry() {
+        // Arrange
+        cache.put("a", dto("a"));
+
+        // Act
+        cache.invalidate("a");
+
+        // Assert
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("get/put - Acessos concorrentes não devem ultrapassar o limite")
+    void testConcurrentAccess_StaysWithinLimit() throws InterruptedException {
+        // Arrange
+        BookingLookupCache bounded = new BookingLookupCache(100, Duration.ofSeconds(60), now::get,
+                new ObjectMapper().findAndRegisterModules());
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2000; i++) {
+                    String token = "t" + ((i * 7 + offset) % 500);
+                    if (bounded.get(token) == null) {
+                        bounded.putIfUnchanged(token, dto(token), bounded.readStamp());
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        CacheStatsDTO stats = bounded.stats();
+        assertTrue(stats.getSize() <= 100);
+        assertEquals(threads * 2000L, stats.getHits() + stats.getMisses());
+    }
+
+    @Test
+    @DisplayName("getEncoded - Deve devolver o JSON serializado uma única vez")
+    void testGetEncoded_ReturnsSameBytes() {
+        // Arrange
+        BookingResponseDTO value = dto("a");
+        value.setStatus(BookingStatus.RECEIVED);
+        cache.put("a", value);
+
+        // Act
+        EncodedBookingResponse first = cache.getEncoded("a");
+        EncodedBookingResponse second = cache.getEncoded("a");
+
+        // Assert
+        assertSame(first.getJson(), second.getJson());
+        assertTrue(new String(first.getJson(), StandardCharsets.UTF_8).contains("\"token\":\"a\""));
+        assertEquals(EncodedBookingResponse.etagOf(value), first.getEtag());
+    }
+
+    @Test
+    @DisplayName("etagOf - Deve mudar quando o estado da reserva muda")
+    void testEtag_ChangesWithStatus() {
+        // Arrange
+        BookingResponseDTO value = dto("a");
+        value.setStatus(BookingStatus.RECEIVED);
+        value.setCreatedAt(OffsetDateTime.now());
+        String before = EncodedBookingResponse.etagOf(value);
+
+        // Act
+        value.setStatus(BookingStatus.ASSIGNED);
+        value.setUpdatedAt(value.getCreatedAt().plusMinutes(1));
+
+        // Assert
+        assertNotEquals(before, EncodedBookingResponse.etagOf(value));
+        assertTrue(before.startsWith("\"") && before.endsWith("\""));
+    }
+}
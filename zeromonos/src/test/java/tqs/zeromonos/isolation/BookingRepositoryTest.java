@@ -2,28 +2,40 @@ package tqs.zeromonos.isolation;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import tqs.zeromonos.data.Booking;
 import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingSpecifications;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.BookingSummary;
 import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.MunicipalityRepository;
 import tqs.zeromonos.data.StateChange;
 import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.utils.BookingToken;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @DisplayName("Testes Unitários de BookingRepository com JPA")
 class BookingRepositoryTest {
 
@@ -99,6 +111,7 @@ class BookingRepositoryTest {
 
         // Assert
         assertNotNull(saved.getId());
+        assertEquals(7, saved.getId().version());
         assertNotNull(saved.getToken());
         assertEquals("Frigorífico antigo", saved.getDescription());
         assertEquals(lisboa, saved.getMunicipality());
@@ -398,7 +411,7 @@ class BookingRepositoryTest {
     }
 
     @Test
-    @DisplayName("findByToken - Deve carregar histórico (EAGER)")
+    @DisplayName("findByToken - Deve carregar histórico com join fetch")
     void testFindByToken_LoadsHistory() {
         // Arrange - Adicionar mais um StateChange
         StateChange state2 = new StateChange(BookingStatus.ASSIGNED, OffsetDateTime.now());
@@ -408,17 +421,62 @@ class BookingRepositoryTest {
         entityManager.clear();
 
         // Act
+        Statistics statistics = statistics();
         Optional<Booking> found = bookingRepository.findByToken(booking1.getToken());
+        entityManager.clear();
 
-        // Assert
+        // Assert: reserva, município e histórico numa única query
         assertTrue(found.isPresent());
-        assertNotNull(found.get().getHistory());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(Hibernate.isInitialized(found.get().getHistory()));
         assertFalse(found.get().getHistory().isEmpty());
         assertEquals(2, found.get().getHistory().size());
     }
 
     @Test
-    @DisplayName("delete - Deve deletar StateChanges em cascade (orphanRemoval)")
+    @DisplayName("findByTokenIn - Deve carregar várias reservas com histórico numa única query")
+    void testFindByTokenIn_SingleQuery() {
+        // Arrange
+        Statistics statistics = statistics();
+
+        // Act
+        List<Booking> found = bookingRepository.findByTokenIn(
+                List.of(booking1.getToken(), booking3.getToken(), "token-inexistente"));
+        entityManager.clear();
+
+        // Assert
+        assertEquals(2, found.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(found.stream().allMatch(booking -> Hibernate.isInitialized(booking.getHistory())
+                && Hibernate.isInitialized(booking.getMunicipality())));
+    }
+
+    @Test
+    @DisplayName("saveAll - Deve agrupar os INSERT de um lote de reservas em batches JDBC")
+    void testSaveAll_BatchesInserts() {
+        // Arrange
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Booking booking = new Booking(i % 2 == 0 ? lisboa : porto, "Lote " + i, tomorrow, TimeSlot.MORNING);
+            booking.addStateChange(new StateChange(BookingStatus.RECEIVED, booking.getCreatedAt()));
+            bookings.add(booking);
+        }
+        Statistics statistics = statistics();
+
+        // Act
+        bookingRepository.saveAll(bookings);
+        entityManager.flush();
+
+        // Assert: reservas e linhas do histórico em batches de 50, em vez de 200 INSERT
+        assertEquals(100, statistics.getEntityInsertCount());
+        assertEquals(100, statistics.getCollectionRecreateCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+                "Statements preparados: " + statistics.getPrepareStatementCount());
+        assertEquals(103, bookingRepository.count());
+    }
+
+    @Test
+    @DisplayName("delete - Deve deletar o histórico juntamente com o booking")
     void testDelete_CascadeDeleteStateChanges() {
         // Arrange
         UUID bookingId = booking1.getId();
@@ -455,4 +513,266 @@ class BookingRepositoryTest {
             assertEquals("Lisboa", booking.getMunicipality().getName());
         }
     }
+
+    // ==================== TESTES DE PAGINAÇÃO POR KEYSET ====================
+
+    @Test
+    @DisplayName("findBy(spec) - Paginação por keyset deve percorrer todos os bookings sem repetições")
+    void testKeysetPagination_WalksAllBookings() {
+        // Arrange
+        Sort order = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        List<UUID> seen = new ArrayList<>();
+        Booking last = null;
+
+        // Act: páginas de 2 elementos até esgotar
+        do {
+            Specification<Booking> spec = last == null ? BookingSpecifications.hasStatus(null)
+                    : BookingSpecifications.before(last.getCreatedAt(), last.getId());
+            List<Booking> page = bookingRepository.findBy(spec, q -> q.sortBy(order).limit(2).all());
+            page.forEach(b -> seen.add(b.getId()));
+            last = page.size() == 2 ? page.get(1) : null;
+        } while (last != null);
+
+        // Assert
+        assertEquals(3, seen.size());
+        assertEquals(3, seen.stream().distinct().count());
+    }
+
+    @Test
+    @DisplayName("findBy(spec) - Filtros por município, período e data devem ser combinados")
+    void testSpecifications_CombinedFilters() {
+        // Act
+        Specification<Booking> spec = Specification.allOf(
+                BookingSpecifications.hasMunicipality(lisboa),
+                BookingSpecifications.hasTimeSlot(TimeSlot.AFTERNOON),
+                BookingSpecifications.requestedFrom(tomorrow),
+                BookingSpecifications.requestedUntil(tomorrow));
+        List<Booking> result = bookingRepository.findAll(spec);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("Colchão", result.get(0).getDescription());
+    }
+
+    @Test
+    @DisplayName("countActiveGroupedByMunicipality - Deve excluir bookings cancelados")
+    void testCountActiveGroupedByMunicipality_ExcludesCancelled() {
+        // Arrange
+        Booking cancelled = bookingRepository.findById(booking1.getId()).orElseThrow();
+        cancelled.addStateChange(new StateChange(BookingStatus.CANCELLED, OffsetDateTime.now()));
+        bookingRepository.saveAndFlush(cancelled);
+
+        // Act
+        List<Object[]> rows = bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED);
+
+        // Assert
+        long lisboaActive = rows.stream()
+                .filter(row -> lisboa.getId().equals(row[0]))
+                .mapToLong(row -> ((Number) row[1]).longValue())
+                .sum();
+        assertEquals(1, lisboaActive);
+    }
+
+    @Test
+    @DisplayName("streamByMunicipality - Deve percorrer as reservas do município por ordem de criação")
+    void testStreamByMunicipality_OrderedByCreation() {
+        // Act
+        List<Booking> streamed;
+        try (Stream<Booking> bookings = bookingRepository.streamByMunicipality(lisboa)) {
+            streamed = bookings.toList();
+        }
+
+        // Assert
+        assertEquals(2, streamed.size());
+        assertFalse(streamed.get(0).getCreatedAt().isAfter(streamed.get(1).getCreatedAt()));
+        assertTrue(streamed.stream().allMatch(b -> b.getMunicipality().getName().equals("Lisboa")));
+    }
+
+    @Test
+    @DisplayName("streamAll - Deve percorrer todas as reservas")
+    void testStreamAll() {
+        // Act
+        long total;
+        try (Stream<Booking> bookings = bookingRepository.streamAll()) {
+            total = bookings.count();
+        }
+
+        // Assert
+        assertEquals(3, total);
+    }
+
+    @Test
+    @DisplayName("findAllSummaries - Deve listar sem carregar histórico numa única query")
+    void testFindAllSummaries_SingleQueryWithoutHistory() {
+        // Act
+        Statistics statistics = statistics();
+        List<BookingSummary> summaries = bookingRepository.findAllSummaries();
+
+        // Assert
+        assertEquals(3, summaries.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertTrue(summaries.stream().anyMatch(s -> "Porto".equals(s.getMunicipalityName())));
+        assertNotNull(summaries.get(0).getToken());
+        assertEquals(BookingStatus.RECEIVED, summaries.get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("findSummariesByMunicipality - Deve listar apenas as reservas do município")
+    void testFindSummariesByMunicipality() {
+        // Act
+        List<BookingSummary> summaries = bookingRepository.findSummariesByMunicipality(lisboa);
+
+        // Assert
+        assertEquals(2, summaries.size());
+        assertTrue(summaries.stream().allMatch(s -> "Lisboa".equals(s.getMunicipalityName())));
+    }
+
+    @Test
+    @DisplayName("findAll - Os históricos devem ser carregados em lote e não um por reserva")
+    void testFindAll_BatchFetchesHistory() {
+        // Arrange
+        Statistics statistics = statistics();
+
+        // Act
+        List<Booking> bookings = bookingRepository.findAll();
+        bookings.forEach(b -> b.getHistory().size());
+
+        // Assert: um único carregamento para os três históricos
+        assertEquals(3, bookings.size());
+        assertEquals(1, statistics.getCollectionFetchCount());
+    }
+
+    // Estatísticas do Hibernate, limpas antes de cada medição
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    // ==================== TESTES DE CONCORRÊNCIA OTIMISTA ====================
+
+    @Test
+    @DisplayName("save - Cada atualização deve incrementar a versão do booking")
+    void testSave_IncrementsVersion() {
+        // Arrange
+        Booking booking = bookingRepository.findByToken(booking1.getToken()).orElseThrow();
+        long initialVersion = booking.getVersion();
+
+        // Act
+        booking.addStateChange(new StateChange(BookingStatus.ASSIGNED, OffsetDateTime.now()));
+        bookingRepository.saveAndFlush(booking);
+
+        // Assert
+        assertEquals(initialVersion + 1, booking.getVersion());
+    }
+
+    @Test
+    @DisplayName("save - Deve rejeitar a gravação de uma cópia desatualizada do booking")
+    void testSave_StaleCopyIsRejected() {
+        // Arrange: duas leituras da mesma versão; a primeira é gravada
+        Booking first = bookingRepository.findByToken(booking1.getToken()).orElseThrow();
+        entityManager.detach(first);
+        Booking stale = bookingRepository.findByToken(booking1.getToken()).orElseThrow();
+        entityManager.detach(stale);
+        first.addStateChange(new StateChange(BookingStatus.ASSIGNED, OffsetDateTime.now()));
+        bookingRepository.saveAndFlush(first);
+        entityManager.clear();
+
+        // Act & Assert
+        stale.addStateChange(new StateChange(BookingStatus.CANCELLED, OffsetDateTime.now()));
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingRepository.saveAndFlush(stale));
+    }
+
+    // ==================== TESTES DO HISTÓRICO ====================
+
+    @Test
+    @DisplayName("save - Uma nova mudança de estado deve acrescentar uma linha ao histórico sem reescrever as anteriores")
+    void testSave_HistoryIsAppendOnly() {
+        // Arrange
+        Booking booking = bookingRepository.findByToken(booking1.getToken()).orElseThrow();
+        booking.addStateChange(new StateChange(BookingStatus.ASSIGNED, OffsetDateTime.now()));
+        bookingRepository.saveAndFlush(booking);
+        entityManager.clear();
+        booking = bookingRepository.findByToken(booking1.getToken()).orElseThrow();
+        Statistics statistics = statistics();
+
+        // Act
+        booking.addStateChange(new StateChange(BookingStatus.IN_PROGRESS, OffsetDateTime.now()));
+        bookingRepository.saveAndFlush(booking);
+        entityManager.clear();
+
+        // Assert: um UPDATE da reserva e um INSERT da nova posição, sem DELETE
+        assertEquals(1, statistics.getCollectionUpdateCount());
+        assertEquals(0, statistics.getCollectionRemoveCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        List<BookingStatus> statuses = bookingRepository.findByToken(booking1.getToken()).orElseThrow()
+                .getHistory().stream().map(StateChange::getStatus).toList();
+        assertEquals(List.of(BookingStatus.RECEIVED, BookingStatus.ASSIGNED, BookingStatus.IN_PROGRESS), statuses);
+    }
+
+    @Test
+    @DisplayName("findByToken - O histórico deve manter a ordem de inserção e o instante ao milissegundo")
+    void testFindByToken_HistoryOrderAndTimestamp() {
+        // Arrange: instante anterior ao da entrada inicial, para a ordem não depender dele
+        OffsetDateTime earlier = OffsetDateTime.parse("2020-01-01T10:15:30.123456789+01:00");
+        Booking booking = bookingRepository.findByToken(booking2.getToken()).orElseThrow();
+        booking.addStateChange(new StateChange(BookingStatus.CANCELLED, earlier));
+        bookingRepository.saveAndFlush(booking);
+        entityManager.clear();
+
+        // Act
+        List<StateChange> history = bookingRepository.findByToken(booking2.getToken()).orElseThrow().getHistory();
+
+        // Assert
+        assertEquals(BookingStatus.CANCELLED, history.get(1).getStatus());
+        assertEquals(earlier.toInstant().toEpochMilli(), history.get(1).getEpochMillis());
+        assertTrue(history.get(1).getTimestamp().isEqual(OffsetDateTime.parse("2020-01-01T10:15:30.123+01:00")));
+    }
+
+    // ==================== TESTES DO TOKEN ====================
+
+    @Test
+    @DisplayName("findByToken - Deve encontrar o booking pelo token em base62 ou pelo mesmo token como UUID antigo")
+    void testFindByToken_Base62AndLegacyUuid() {
+        // Arrange
+        String token = booking1.getToken();
+        byte[] bytes = BookingToken.toBytes(token);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        String legacy = new UUID(buffer.getLong(), buffer.getLong()).toString();
+
+        // Act
+        Optional<Booking> byBase62 = bookingRepository.findByToken(token);
+        Optional<Booking> byLegacy = bookingRepository.findByToken(legacy);
+        List<Booking> byTokenIn = bookingRepository.findByTokenIn(List.of(legacy, "invalid-token-123"));
+
+        // Assert
+        assertTrue(byBase62.isPresent());
+        assertTrue(byLegacy.isPresent());
+        assertEquals(token, byLegacy.get().getToken());
+        assertEquals(1, byTokenIn.size());
+    }
+
+    @Test
+    @DisplayName("findByToken - Um texto que não é um token não deve encontrar nenhum booking")
+    void testFindByToken_InvalidFormat() {
+        // Act & Assert
+        assertTrue(bookingRepository.findByToken("invalid-token-123").isEmpty());
+        assertTrue(bookingRepository.findByToken("0000000000000000000000").isEmpty());
+    }
+
+    @Test
+    @DisplayName("token - Deve ser guardado como 16 bytes")
+    void testToken_StoredAsBinary() {
+        // Act
+        Object stored = entityManager.getEntityManager()
+                .createNativeQuery("SELECT token FROM bookings WHERE id = :id")
+                .setParameter("id", booking1.getId())
+                .getSingleResult();
+
+        // Assert
+        assertArrayEquals(BookingToken.toBytes(booking1.getToken()), (byte[]) stored);
+    }
 }
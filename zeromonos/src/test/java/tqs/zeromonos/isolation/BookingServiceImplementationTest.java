@@ -9,31 +9,62 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import tqs.zeromonos.data.Booking;
 import tqs.zeromonos.data.BookingRepository;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.BookingSummary;
 import tqs.zeromonos.data.Municipality;
-import tqs.zeromonos.data.MunicipalityRepository;
 import tqs.zeromonos.data.StateChange;
 import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.AvailabilityResponseDTO;
+import tqs.zeromonos.dto.BookingBatchItemDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
 import tqs.zeromonos.dto.DtoConversionException;
+import tqs.zeromonos.dto.EncodedBookingResponse;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
+import tqs.zeromonos.dto.StaffBookingFilter;
+import tqs.zeromonos.services.AvailabilityCalendar;
+import tqs.zeromonos.services.BookingEventBus;
+import tqs.zeromonos.services.BookingLookupCache;
 import tqs.zeromonos.services.BookingServiceException;
+import tqs.zeromonos.services.CapacityLedger;
+import tqs.zeromonos.services.IdempotencyStore;
+import tqs.zeromonos.services.InvalidBookingRequestException;
+import tqs.zeromonos.services.MunicipalityIndex;
 import tqs.zeromonos.services.BookingServiceImplementation;
+import tqs.zeromonos.services.BookingStateMachine;
+import tqs.zeromonos.services.BookingTokenFilter;
+import tqs.zeromonos.utils.BookingToken;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Testes Unitários de BookingServiceImplementation com Mocks")
@@ -43,7 +74,33 @@ class BookingServiceImplementationTest {
     private BookingRepository bookingRepository;
 
     @Mock
-    private MunicipalityRepository municipalityRepository;
+    private MunicipalityIndex municipalityIndex;
+
+    @Mock
+    private CapacityLedger capacityLedger;
+
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Mock
+    private BookingLookupCache bookingLookupCache;
+
+    @Mock
+    private BookingEventBus bookingEventBus;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Captor
+    private ArgumentCaptor<List<Booking>> bookingsCaptor;
+
+    @Spy
+    private BookingStateMachine bookingStateMachine = new BookingStateMachine();
+
+    // Sem reconstrução o filtro ainda não está pronto e deixa passar todos os tokens
+    @Spy
+    private BookingTokenFilter bookingTokenFilter = new BookingTokenFilter(1000, 0.01,
+            BookingTokenFilter.TokenSource.of(List.of()));
 
     @InjectMocks
     private BookingServiceImplementation bookingService;
@@ -88,8 +145,9 @@ class BookingServiceImplementationTest {
     @DisplayName("createBooking - Deve criar booking válido com sucesso")
     void testCreateBooking_Success() {
         // Arrange
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
-        when(bookingRepository.countByMunicipality(mockMunicipality)).thenReturn(10);
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.tryReserve(mockMunicipality.getId(), 32)).thenReturn(true);
+        when(availabilityCalendar.tryReserve(mockMunicipality.getId(), validDate, TimeSlot.AFTERNOON)).thenReturn(true);
         when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -106,16 +164,18 @@ class BookingServiceImplementationTest {
         assertNotNull(result.getHistory());
         assertFalse(result.getHistory().isEmpty());
 
-        verify(municipalityRepository, times(1)).findByName("Lisboa");
-        verify(bookingRepository, times(1)).countByMunicipality(mockMunicipality);
+        verify(municipalityIndex, times(1)).findByName("Lisboa");
+        verify(capacityLedger, times(1)).tryReserve(mockMunicipality.getId(), 32);
+        verify(capacityLedger, times(1)).confirm(mockMunicipality.getId());
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(bookingTokenFilter, times(1)).add(result.getToken());
     }
 
     @Test
     @DisplayName("createBooking - Deve lançar exceção quando município não existe")
     void testCreateBooking_MunicipalityNotFound() {
         // Arrange
-        when(municipalityRepository.findByName("MunicipioInexistente")).thenReturn(Optional.empty());
+        when(municipalityIndex.findByName("MunicipioInexistente")).thenReturn(Optional.empty());
         BookingRequestDTO request = createRequestDTO("MunicipioInexistente", validDate);
 
         // Act & Assert
@@ -125,7 +185,7 @@ class BookingServiceImplementationTest {
                 "Deve lançar IllegalArgumentException quando município não existe");
 
         assertEquals("Município 'MunicipioInexistente' não encontrado", exception.getMessage());
-        verify(municipalityRepository, times(1)).findByName("MunicipioInexistente");
+        verify(municipalityIndex, times(1)).findByName("MunicipioInexistente");
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
@@ -134,7 +194,7 @@ class BookingServiceImplementationTest {
     void testCreateBooking_PastDate() {
         // Arrange
         LocalDate yesterday = LocalDate.now(ZoneId.of("Europe/Lisbon")).minusDays(1);
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
         BookingRequestDTO request = createRequestDTO("Lisboa", yesterday);
 
         // Act & Assert
@@ -144,6 +204,7 @@ class BookingServiceImplementationTest {
                 "Deve lançar IllegalArgumentException para data no passado");
 
         assertEquals("A data solicitada não pode ser no passado", exception.getMessage());
+        assertSame(InvalidBookingRequestException.PAST_DATE, exception);
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
@@ -152,7 +213,7 @@ class BookingServiceImplementationTest {
     void testCreateBooking_TodayDate() {
         // Arrange
         LocalDate today = LocalDate.now(ZoneId.of("Europe/Lisbon"));
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
         BookingRequestDTO request = createRequestDTO("Lisboa", today);
 
         // Act & Assert
@@ -162,6 +223,7 @@ class BookingServiceImplementationTest {
                 "Deve lançar IllegalArgumentException para data hoje");
 
         assertEquals("A data solicitada não pode ser no mesmo dia", exception.getMessage());
+        assertSame(InvalidBookingRequestException.SAME_DAY, exception);
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
@@ -170,7 +232,7 @@ class BookingServiceImplementationTest {
     void testCreateBooking_SundayDate() {
         // Arrange
         LocalDate sunday = findNextSunday();
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
         BookingRequestDTO request = createRequestDTO("Lisboa", sunday);
 
         // Act & Assert
@@ -180,6 +242,7 @@ class BookingServiceImplementationTest {
                 "Deve lançar IllegalArgumentException para domingo");
 
         assertEquals("Não são feitas recolhas ao fim de semana", exception.getMessage());
+        assertSame(InvalidBookingRequestException.SUNDAY, exception);
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
@@ -187,8 +250,8 @@ class BookingServiceImplementationTest {
     @DisplayName("createBooking - Deve lançar exceção quando limite de bookings é atingido")
     void testCreateBooking_MaxBookingsReached() {
         // Arrange
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
-        when(bookingRepository.countByMunicipality(mockMunicipality)).thenReturn(32);
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.tryReserve(mockMunicipality.getId(), 32)).thenReturn(false);
 
         // Act & Assert
         IllegalStateException exception = assertThrows(
@@ -200,6 +263,155 @@ class BookingServiceImplementationTest {
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    @Test
+    @DisplayName("createBooking - Deve devolver a vaga quando a persistência falha")
+    void testCreateBooking_SaveFailsRollsBackCapacity() {
+        // Arrange
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.tryReserve(mockMunicipality.getId(), 32)).thenReturn(true);
+        when(availabilityCalendar.tryReserve(mockMunicipality.getId(), validDate, TimeSlot.AFTERNOON)).thenReturn(true);
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new RuntimeException("Erro de base de dados"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> bookingService.createBooking(requestDTO));
+        verify(capacityLedger, times(1)).rollback(mockMunicipality.getId());
+        verify(availabilityCalendar, times(1)).release(mockMunicipality.getId(), validDate, TimeSlot.AFTERNOON);
+        verify(capacityLedger, never()).confirm(any());
+    }
+
+    @Test
+    @DisplayName("createBooking - Deve lançar exceção quando o período está cheio")
+    void testCreateBooking_SlotFull() {
+        // Arrange
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.tryReserve(mockMunicipality.getId(), 32)).thenReturn(true);
+        when(availabilityCalendar.tryReserve(mockMunicipality.getId(), validDate, TimeSlot.AFTERNOON)).thenReturn(false);
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> bookingService.createBooking(requestDTO),
+                "Deve lançar IllegalStateException quando o período está cheio");
+
+        assertTrue(exception.getMessage().contains("Sem vagas disponíveis"));
+        verify(capacityLedger, times(1)).rollback(mockMunicipality.getId());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    @DisplayName("createBooking - Com Idempotency-Key deve criar através do registo de idempotência")
+    void testCreateBooking_WithIdempotencyKey() {
+        // Arrange
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.tryReserve(mockMunicipality.getId(), 32)).thenReturn(true);
+        when(availabilityCalendar.tryReserve(mockMunicipality.getId(), validDate, TimeSlot.AFTERNOON)).thenReturn(true);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyStore.execute(eq("key-1"), same(requestDTO),
+                ArgumentMatchers.<Supplier<BookingResponseDTO>>any()))
+                .thenAnswer(invocation -> invocation.<Supplier<BookingResponseDTO>>getArgument(2).get());
+
+        // Act
+        BookingResponseDTO result = bookingService.createBooking(requestDTO, "key-1");
+
+        // Assert
+        assertEquals("Lisboa", result.getMunicipalityName());
+        verify(idempotencyStore, times(1)).execute(eq("key-1"), same(requestDTO),
+                ArgumentMatchers.<Supplier<BookingResponseDTO>>any());
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+    }
+
+    // ==================== TESTES DE createBookings (lote) ====================
+
+    private BookingRequestDTO batchRequest(String municipality, TimeSlot slot) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName(municipality);
+        request.setDescription("Sofá velho");
+        request.setRequestedDate(validDate);
+        request.setTimeSlot(slot);
+        return request;
+    }
+
+    @Test
+    @DisplayName("createBookings - Deve devolver um resultado por pedido e persistir os aceites num único saveAll")
+    void testCreateBookings_MixedResults() {
+        // Arrange
+        Municipality porto = new Municipality("Porto");
+        ReflectionTestUtils.setField(mockMunicipality, "id", 1L);
+        ReflectionTestUtils.setField(porto, "id", 2L);
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(municipalityIndex.findByName("Porto")).thenReturn(Optional.of(porto));
+        when(municipalityIndex.findByName("Atlântida")).thenReturn(Optional.empty());
+        when(capacityLedger.tryReserve(1L, 32, 2)).thenReturn(2);
+        when(capacityLedger.tryReserve(2L, 32, 2)).thenReturn(1);
+        when(availabilityCalendar.tryReserve(1L, validDate, TimeSlot.MORNING)).thenReturn(true);
+        when(availabilityCalendar.tryReserve(1L, validDate, TimeSlot.EVENING)).thenReturn(false);
+        when(availabilityCalendar.tryReserve(2L, validDate, TimeSlot.MORNING)).thenReturn(true);
+
+        List<BookingRequestDTO> requests = List.of(
+                batchRequest("Lisboa", TimeSlot.MORNING),
+                batchRequest("Atlântida", TimeSlot.MORNING),
+                batchRequest("Porto", TimeSlot.MORNING),
+                batchRequest("Lisboa", TimeSlot.EVENING),
+                batchRequest("Porto", TimeSlot.AFTERNOON),
+                batchRequest("Lisboa", null));
+
+        // Act
+        BookingBatchResponseDTO result = bookingService.createBookings(requests);
+
+        // Assert
+        assertEquals(2, result.getCreated());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of(200, 400, 200, 409, 409, 400),
+                result.getItems().stream().map(BookingBatchItemDTO::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5),
+                result.getItems().stream().map(BookingBatchItemDTO::getIndex).toList());
+        assertEquals("Lisboa", result.getItems().get(0).getBooking().getMunicipalityName());
+        assertTrue(result.getItems().get(3).getMessage().contains("Sem vagas disponíveis"));
+        assertTrue(result.getItems().get(4).getMessage().contains("Limite"));
+
+        verify(bookingRepository, times(1)).saveAll(bookingsCaptor.capture());
+        assertEquals(2, bookingsCaptor.getValue().size());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(capacityLedger, times(1)).rollback(1L);
+        verify(capacityLedger, times(1)).confirm(1L, 1);
+        verify(capacityLedger, times(1)).confirm(2L, 1);
+        verify(bookingLookupCache, times(2)).put(anyString(), any(BookingResponseDTO.class));
+    }
+
+    @Test
+    @DisplayName("createBookings - Deve devolver todas as vagas quando a gravação do lote falha")
+    void testCreateBookings_SaveFailsRollsBackAll() {
+        // Arrange
+        ReflectionTestUtils.setField(mockMunicipality, "id", 1L);
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.tryReserve(1L, 32, 2)).thenReturn(2);
+        when(availabilityCalendar.tryReserve(eq(1L), eq(validDate), any(TimeSlot.class))).thenReturn(true);
+        when(bookingRepository.saveAll(anyList())).thenThrow(new IllegalStateException("base de dados"));
+        List<BookingRequestDTO> requests = List.of(batchRequest("Lisboa", TimeSlot.MORNING),
+                batchRequest("Lisboa", TimeSlot.AFTERNOON));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> bookingService.createBookings(requests));
+        verify(capacityLedger, times(2)).rollback(1L);
+        verify(availabilityCalendar, times(1)).release(1L, validDate, TimeSlot.MORNING);
+        verify(availabilityCalendar, times(1)).release(1L, validDate, TimeSlot.AFTERNOON);
+        verify(capacityLedger, never()).confirm(anyLong(), anyInt());
+        verifyNoInteractions(bookingLookupCache);
+    }
+
+    @Test
+    @DisplayName("createBookings - Deve rejeitar lotes vazios ou acima do tamanho máximo")
+    void testCreateBookings_InvalidBatchSize() {
+        // Arrange
+        List<BookingRequestDTO> empty = List.of();
+        List<BookingRequestDTO> tooLarge = Collections.nCopies(501, requestDTO);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookings(empty));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookings(tooLarge));
+        verifyNoInteractions(municipalityIndex, bookingRepository);
+    }
+
     // ==================== TESTES DE getBookingByToken ====================
 
     @Test
@@ -221,6 +433,86 @@ class BookingServiceImplementationTest {
         verify(bookingRepository, times(1)).findByToken(token);
     }
 
+    @Test
+    @DisplayName("getBookingByToken - Deve servir a resposta em cache sem ir à base de dados")
+    void testGetBookingByToken_CacheHit() {
+        // Arrange
+        BookingResponseDTO cached = BookingResponseDTO.fromEntity(mockBooking);
+        when(bookingLookupCache.get(mockBooking.getToken())).thenReturn(cached);
+
+        // Act
+        BookingResponseDTO result = bookingService.getBookingByToken(" " + mockBooking.getToken() + " ");
+
+        // Assert
+        assertSame(cached, result);
+        verify(bookingRepository, never()).findByToken(anyString());
+    }
+
+    @Test
+    @DisplayName("getBookingByToken - Um token antigo (UUID) deve usar a forma base62 na cache e na consulta")
+    void testGetBookingByToken_LegacyTokenIsNormalized() {
+        // Arrange
+        String legacy = "123e4567-e89b-12d3-a456-426614174000";
+        String canonical = BookingToken.normalize(legacy);
+        BookingResponseDTO cached = BookingResponseDTO.fromEntity(mockBooking);
+        when(bookingLookupCache.get(canonical)).thenReturn(cached);
+
+        // Act
+        BookingResponseDTO result = bookingService.getBookingByToken(legacy);
+
+        // Assert
+        assertSame(cached, result);
+        verify(bookingLookupCache, never()).get(legacy);
+    }
+
+    @Test
+    @DisplayName("getBookingByToken - Deve preencher a cache depois de ler da base de dados")
+    void testGetBookingByToken_PopulatesCache() {
+        // Arrange
+        String token = mockBooking.getToken();
+        when(bookingLookupCache.readStamp()).thenReturn(7L);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+
+        // Act
+        BookingResponseDTO result = bookingService.getBookingByToken(token);
+
+        // Assert
+        verify(bookingLookupCache).putIfUnchanged(token, result, 7L);
+    }
+
+    @Test
+    @DisplayName("getEncodedBookingByToken - Deve servir o JSON em cache sem ir à base de dados")
+    void testGetEncodedBookingByToken_CacheHit() {
+        // Arrange
+        EncodedBookingResponse cached = mock(EncodedBookingResponse.class);
+        when(bookingLookupCache.getEncoded(mockBooking.getToken())).thenReturn(cached);
+
+        // Act
+        EncodedBookingResponse result = bookingService.getEncodedBookingByToken(mockBooking.getToken());
+
+        // Assert
+        assertSame(cached, result);
+        verify(bookingRepository, never()).findByToken(anyString());
+    }
+
+    @Test
+    @DisplayName("getEncodedBookingByToken - Deve ler da base de dados e guardar na cache")
+    void testGetEncodedBookingByToken_CacheMiss() {
+        // Arrange
+        String token = mockBooking.getToken();
+        EncodedBookingResponse encoded = mock(EncodedBookingResponse.class);
+        when(bookingLookupCache.readStamp()).thenReturn(3L);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+        when(bookingLookupCache.putIfUnchanged(eq(token), any(BookingResponseDTO.class), eq(3L))).thenReturn(encoded);
+
+        // Act
+        EncodedBookingResponse result = bookingService.getEncodedBookingByToken(token);
+
+        // Assert
+        assertSame(encoded, result);
+        verify(bookingLookupCache, never()).get(anyString());
+    }
+
     @Test
     @DisplayName("getBookingByToken - Deve lançar BookingServiceException quando ocorre erro na conversão")
     void testGetBookingByToken_ConversionError() {
@@ -326,30 +618,26 @@ class BookingServiceImplementationTest {
     }
 
     @Test
-    @DisplayName("getBookingByToken - Deve lançar BookingServiceException quando ocorre erro genérico após conversão")
+    @DisplayName("getBookingByToken - Deve lançar BookingServiceException quando ocorre erro genérico durante a conversão")
     void testGetBookingByToken_GenericExceptionAfterConversion() {
         // Arrange
         String token = mockBooking.getToken();
         when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
 
-        // Criar um mock do DTO que lance uma exceção genérica quando acedido
-        BookingResponseDTO problematicDto = mock(BookingResponseDTO.class);
-        when(problematicDto.getToken()).thenThrow(new RuntimeException("Erro inesperado ao aceder token"));
-
         // Usar MockedStatic para fazer mock do método estático fromEntity
         try (MockedStatic<BookingResponseDTO> mockedStatic = mockStatic(BookingResponseDTO.class)) {
-            // Fazer com que fromEntity retorne o DTO problemático
-            mockedStatic.when(() -> BookingResponseDTO.fromEntity(mockBooking)).thenReturn(problematicDto);
+            // Fazer com que a conversão falhe com uma exceção genérica
+            mockedStatic.when(() -> BookingResponseDTO.fromEntity(mockBooking))
+                    .thenThrow(new RuntimeException("Erro inesperado ao ler a reserva"));
 
             // Act & Assert
-            // O erro ao aceder getToken() será apanhado pelo catch de Exception genérica
-            // em convertBookingToDto e lançado como DtoConversionException,
-            // que será apanhado pelo catch de Exception em getBookingByToken e lançado como
-            // BookingServiceException
+            // O erro genérico será apanhado pelo catch de Exception em convertBookingToDto
+            // e lançado como DtoConversionException, que será apanhado pelo catch de
+            // Exception em getBookingByToken e lançado como BookingServiceException
             BookingServiceException exception = assertThrows(
                     BookingServiceException.class,
                     () -> bookingService.getBookingByToken(token),
-                    "Deve lançar BookingServiceException quando ocorre erro genérico após conversão");
+                    "Deve lançar BookingServiceException quando ocorre erro genérico durante a conversão");
 
             assertTrue(exception.getMessage().contains("Erro ao buscar reserva por token"));
             assertNotNull(exception.getCause());
@@ -467,7 +755,33 @@ class BookingServiceImplementationTest {
         // Assert
         verify(bookingRepository, times(1)).findByToken(token);
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(capacityLedger, times(1)).release(mockMunicipality.getId());
+        verify(availabilityCalendar, times(1)).release(mockMunicipality.getId(), validDate, TimeSlot.AFTERNOON);
+        verify(bookingLookupCache, times(1)).invalidate(token);
+        verify(bookingEventBus, times(1)).publish(argThat(event -> event.getStatus() == BookingStatus.CANCELLED));
         assertEquals(BookingStatus.CANCELLED, mockBooking.getStatus());
+
+        // O cancelamento é anunciado ao registo de capacidade antes de ser gravado
+        InOrder order = inOrder(capacityLedger, bookingRepository);
+        order.verify(capacityLedger).prepareRelease(mockMunicipality.getId());
+        order.verify(bookingRepository).save(mockBooking);
+        order.verify(capacityLedger).release(mockMunicipality.getId());
+    }
+
+    @Test
+    @DisplayName("cancelBooking - Uma falha a gravar deve desfazer o cancelamento anunciado")
+    void testCancelBooking_SaveFailureAbortsRelease() {
+        // Arrange
+        String token = mockBooking.getToken();
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new IllegalStateException("base de dados"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> bookingService.cancelBooking(token));
+        verify(capacityLedger, times(1)).prepareRelease(mockMunicipality.getId());
+        verify(capacityLedger, times(1)).abortRelease(mockMunicipality.getId());
+        verify(capacityLedger, never()).release(any());
+        verify(bookingLookupCache, times(1)).invalidate(token);
     }
 
     @Test
@@ -505,6 +819,47 @@ class BookingServiceImplementationTest {
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    @Test
+    @DisplayName("getBookingByToken - Token desconhecido pelo filtro deve dar 404 sem ir à base de dados")
+    void testGetBookingByToken_RejectedByTokenFilter() {
+        // Arrange
+        bookingTokenFilter.rebuild();
+        String token = BookingToken.generate();
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> bookingService.getBookingByToken(token));
+        verify(bookingRepository, never()).findByToken(anyString());
+        assertEquals(1, bookingTokenFilter.stats().getRejected());
+    }
+
+    @Test
+    @DisplayName("cancelBooking - Token desconhecido pelo filtro deve dar 404 sem ir à base de dados")
+    void testCancelBooking_RejectedByTokenFilter() {
+        // Arrange
+        bookingTokenFilter.rebuild();
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> bookingService.cancelBooking("token-inexistente"));
+        verify(bookingRepository, never()).findByToken(anyString());
+    }
+
+    @Test
+    @DisplayName("getBookingByToken - Token acrescentado ao filtro deve ser procurado na base de dados")
+    void testGetBookingByToken_AddedTokenPassesFilter() {
+        // Arrange
+        bookingTokenFilter.rebuild();
+        String token = mockBooking.getToken();
+        bookingTokenFilter.add(token);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+
+        // Act
+        BookingResponseDTO result = bookingService.getBookingByToken(token);
+
+        // Assert
+        assertEquals(token, result.getToken());
+        verify(bookingRepository, times(1)).findByToken(token);
+    }
+
     @Test
     @DisplayName("cancelBooking - Deve lançar exceção quando status não permite cancelamento")
     void testCancelBooking_InvalidStatus() {
@@ -521,6 +876,7 @@ class BookingServiceImplementationTest {
 
         assertEquals("O agendamento não pode ser cancelado no estado atual", exception.getMessage());
         verify(bookingRepository, never()).save(any(Booking.class));
+        verify(capacityLedger, never()).release(any());
     }
 
     // ==================== TESTES DE getAvailableMunicipalities
@@ -530,11 +886,7 @@ class BookingServiceImplementationTest {
     @DisplayName("getAvailableMunicipalities - Deve retornar lista de municípios")
     void testGetAvailableMunicipalities_Success() {
         // Arrange
-        List<Municipality> municipalities = new ArrayList<>();
-        municipalities.add(new Municipality("Lisboa"));
-        municipalities.add(new Municipality("Porto"));
-        municipalities.add(new Municipality("Coimbra"));
-        when(municipalityRepository.findAll()).thenReturn(municipalities);
+        when(municipalityIndex.names()).thenReturn(List.of("Coimbra", "Lisboa", "Porto"));
 
         // Act
         List<String> result = bookingService.getAvailableMunicipalities();
@@ -546,14 +898,14 @@ class BookingServiceImplementationTest {
         assertTrue(result.contains("Porto"));
         assertTrue(result.contains("Coimbra"));
 
-        verify(municipalityRepository, times(1)).findAll();
+        verify(municipalityIndex, times(1)).names();
     }
 
     @Test
     @DisplayName("getAvailableMunicipalities - Deve retornar lista vazia quando não há municípios")
     void testGetAvailableMunicipalities_EmptyList() {
         // Arrange
-        when(municipalityRepository.findAll()).thenReturn(new ArrayList<>());
+        when(municipalityIndex.names()).thenReturn(List.of());
 
         // Act
         List<String> result = bookingService.getAvailableMunicipalities();
@@ -562,7 +914,85 @@ class BookingServiceImplementationTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(municipalityRepository, times(1)).findAll();
+        verify(municipalityIndex, times(1)).names();
+    }
+
+    @Test
+    @DisplayName("getEncodedMunicipalities - Deve devolver a lista pré-serializada do índice")
+    void testGetEncodedMunicipalities_FromIndex() {
+        // Arrange
+        EncodedMunicipalityList encoded = EncodedMunicipalityList.of(List.of("Lisboa"), new ObjectMapper());
+        when(municipalityIndex.encodedNames()).thenReturn(encoded);
+
+        // Act
+        EncodedMunicipalityList result = bookingService.getEncodedMunicipalities();
+
+        // Assert
+        assertSame(encoded, result);
+        verify(municipalityIndex, never()).names();
+    }
+
+    @Test
+    @DisplayName("suggestMunicipalities - Deve limitar o número de sugestões pedidas ao índice")
+    void testSuggestMunicipalities_ClampsLimit() {
+        // Arrange
+        when(municipalityIndex.suggest("evo", 20)).thenReturn(List.of("Évora"));
+        when(municipalityIndex.suggest("evo", 1)).thenReturn(List.of("Évora"));
+
+        // Act & Assert
+        assertEquals(List.of("Évora"), bookingService.suggestMunicipalities("evo", 500));
+        assertEquals(List.of("Évora"), bookingService.suggestMunicipalities("evo", 0));
+    }
+
+    // ==================== TESTES DE getAvailability ====================
+
+    @Test
+    @DisplayName("getAvailability - Deve devolver apenas os períodos com vagas")
+    void testGetAvailability_ReturnsOpenSlots() {
+        // Arrange
+        int onlyMorningOpen = 1 << TimeSlot.MORNING.ordinal();
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.used(mockMunicipality.getId())).thenReturn(0);
+        when(availabilityCalendar.openSlotsMask(mockMunicipality.getId(), validDate)).thenReturn(onlyMorningOpen);
+        when(availabilityCalendar.getSlotCapacity()).thenReturn(8);
+
+        // Act
+        AvailabilityResponseDTO result = bookingService.getAvailability("Lisboa", validDate, validDate);
+
+        // Assert
+        assertEquals(1, result.getDays().size());
+        assertTrue(result.getDays().get(0).isBookable());
+        assertEquals(List.of(TimeSlot.MORNING), result.getDays().get(0).getOpenSlots());
+        verify(bookingRepository, never()).countByMunicipalityAndRequestedDateAndTimeSlot(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("getAvailability - Domingos não devem ter períodos disponíveis")
+    void testGetAvailability_SundayNotBookable() {
+        // Arrange
+        LocalDate sunday = findNextSunday();
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(capacityLedger.used(mockMunicipality.getId())).thenReturn(0);
+
+        // Act
+        AvailabilityResponseDTO result = bookingService.getAvailability("Lisboa", sunday, sunday);
+
+        // Assert
+        assertFalse(result.getDays().get(0).isBookable());
+        assertTrue(result.getDays().get(0).getOpenSlots().isEmpty());
+    }
+
+    @Test
+    @DisplayName("getAvailability - Deve lançar exceção para intervalo inválido")
+    void testGetAvailability_InvalidRange() {
+        // Act & Assert
+        LocalDate before = validDate.minusDays(1);
+        LocalDate farAway = validDate.plusDays(365);
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.getAvailability("Lisboa", validDate, before));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.getAvailability("Lisboa", validDate, farAway));
+        verify(municipalityIndex, never()).findByName(anyString());
     }
 
     // ==================== TESTES DE listForStaff ====================
@@ -571,19 +1001,21 @@ class BookingServiceImplementationTest {
     @DisplayName("listForStaff - Deve retornar todos os bookings quando municipality é 'all'")
     void testListForStaff_AllMunicipalities() {
         // Arrange
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(mockBooking);
-        when(bookingRepository.findAll()).thenReturn(bookings);
+        BookingSummary summary = mockSummary(mockBooking);
+        when(bookingRepository.findAllSummaries()).thenReturn(List.of(summary));
 
         // Act
-        List<BookingResponseDTO> result = bookingService.listForStaff("all");
+        List<BookingResponseDTO> result = bookingService.listForStaff("all", false);
 
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(mockBooking.getToken(), result.get(0).getToken());
+        assertEquals("Lisboa", result.get(0).getMunicipalityName());
+        assertNull(result.get(0).getHistory());
 
-        verify(bookingRepository, times(1)).findAll();
+        verify(bookingRepository, times(1)).findAllSummaries();
+        verify(bookingRepository, never()).findAll();
         verify(bookingRepository, never()).findByMunicipality(any());
     }
 
@@ -591,36 +1023,53 @@ class BookingServiceImplementationTest {
     @DisplayName("listForStaff - Deve retornar bookings filtrados por município")
     void testListForStaff_ByMunicipality() {
         // Arrange
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(mockBooking);
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
-        when(bookingRepository.findByMunicipality(mockMunicipality)).thenReturn(bookings);
+        BookingSummary summary = mockSummary(mockBooking);
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(bookingRepository.findSummariesByMunicipality(mockMunicipality)).thenReturn(List.of(summary));
 
         // Act
-        List<BookingResponseDTO> result = bookingService.listForStaff("Lisboa");
+        List<BookingResponseDTO> result = bookingService.listForStaff("Lisboa", false);
 
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
 
-        verify(municipalityRepository, times(1)).findByName("Lisboa");
-        verify(bookingRepository, times(1)).findByMunicipality(mockMunicipality);
-        verify(bookingRepository, never()).findAll();
+        verify(municipalityIndex, times(1)).findByName("Lisboa");
+        verify(bookingRepository, times(1)).findSummariesByMunicipality(mockMunicipality);
+        verify(bookingRepository, never()).findByMunicipality(any());
+        verify(bookingRepository, never()).findAllSummaries();
+    }
+
+    @Test
+    @DisplayName("listForStaff - Com histórico deve carregar as entidades completas")
+    void testListForStaff_IncludeHistory() {
+        // Arrange
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(bookingRepository.findByMunicipality(mockMunicipality)).thenReturn(List.of(mockBooking));
+
+        // Act
+        List<BookingResponseDTO> result = bookingService.listForStaff("Lisboa", true);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getHistory().size());
+        verify(bookingRepository, never()).findSummariesByMunicipality(any());
     }
 
     @Test
     @DisplayName("listForStaff - Deve lançar exceção quando município não existe")
     void testListForStaff_MunicipalityNotFound() {
         // Arrange
-        when(municipalityRepository.findByName("MunicipioInexistente")).thenReturn(Optional.empty());
+        when(municipalityIndex.findByName("MunicipioInexistente")).thenReturn(Optional.empty());
 
         // Act & Assert
         NoSuchElementException exception = assertThrows(
                 NoSuchElementException.class,
-                () -> bookingService.listForStaff("MunicipioInexistente"),
+                () -> bookingService.listForStaff("MunicipioInexistente", false),
                 "Deve lançar NoSuchElementException quando município não existe");
 
         assertEquals("Município não encontrado: MunicipioInexistente", exception.getMessage());
+        verify(bookingRepository, never()).findSummariesByMunicipality(any());
         verify(bookingRepository, never()).findByMunicipality(any());
     }
 
@@ -628,16 +1077,60 @@ class BookingServiceImplementationTest {
     @DisplayName("listForStaff - Deve retornar lista vazia quando não há bookings")
     void testListForStaff_EmptyResult() {
         // Arrange
-        when(bookingRepository.findAll()).thenReturn(new ArrayList<>());
+        when(bookingRepository.findAllSummaries()).thenReturn(new ArrayList<>());
 
         // Act
-        List<BookingResponseDTO> result = bookingService.listForStaff(null);
+        List<BookingResponseDTO> result = bookingService.listForStaff(null, false);
 
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(bookingRepository, times(1)).findAll();
+        verify(bookingRepository, times(1)).findAllSummaries();
+    }
+
+    @Test
+    @DisplayName("listForStaffPage - Deve devolver cursor quando há mais resultados")
+    @SuppressWarnings("unchecked")
+    void testListForStaffPage_ReturnsNextCursor() {
+        // Arrange: o repositório devolve tamanho da página + 1 elementos
+        Booking second = new Booking(mockMunicipality, "Mesa", validDate, TimeSlot.MORNING);
+        Booking third = new Booking(mockMunicipality, "Cadeira", validDate, TimeSlot.MORNING);
+        when(bookingRepository.findBy(any(Specification.class), any())).thenReturn(List.of(mockBooking, second, third));
+
+        // Act
+        BookingPageDTO page = bookingService.listForStaffPage(new StaffBookingFilter(), null, 2, false);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        verify(municipalityIndex, never()).findByName(anyString());
+    }
+
+    @Test
+    @DisplayName("listForStaffPage - Última página não deve ter cursor")
+    @SuppressWarnings("unchecked")
+    void testListForStaffPage_LastPage() {
+        // Arrange
+        when(municipalityIndex.findByName("Lisboa")).thenReturn(Optional.of(mockMunicipality));
+        when(bookingRepository.findBy(any(Specification.class), any())).thenReturn(List.of(mockBooking));
+
+        // Act
+        StaffBookingFilter filter = new StaffBookingFilter("Lisboa", BookingStatus.RECEIVED, null, null, null);
+        BookingPageDTO page = bookingService.listForStaffPage(filter, null, 50, false);
+
+        // Assert
+        assertEquals(1, page.getSize());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("listForStaffPage - Deve lançar exceção para cursor inválido")
+    void testListForStaffPage_InvalidCursor() {
+        // Act & Assert
+        StaffBookingFilter filter = new StaffBookingFilter();
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.listForStaffPage(filter, "não-é-um-cursor", 50, false));
     }
 
     // ==================== TESTES DE updateBookingStatusForStaff
@@ -660,6 +1153,131 @@ class BookingServiceImplementationTest {
         assertEquals(newStatus, result.getStatus());
         verify(bookingRepository, times(1)).findByToken(token);
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(bookingLookupCache, times(1)).invalidate(token);
+        verify(bookingLookupCache, never()).put(anyString(), any(BookingResponseDTO.class));
+        verify(bookingEventBus, times(1)).publish(argThat(event -> token.equals(event.getToken())
+                && event.getPreviousStatus() == BookingStatus.RECEIVED
+                && event.getStatus() == BookingStatus.ASSIGNED
+                && "Lisboa".equals(event.getMunicipalityName())));
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff (lote) - Deve carregar com uma query IN e gravar as mudanças de uma vez")
+    void testUpdateBookingStatusForStaffBatch_MixedResults() {
+        // Arrange
+        Booking completed = new Booking(mockMunicipality, "Mesa", validDate, TimeSlot.MORNING);
+        completed.addStateChange(new StateChange(BookingStatus.COMPLETED, OffsetDateTime.now()));
+        Booking assigned = new Booking(mockMunicipality, "Cadeira", validDate, TimeSlot.EVENING);
+        assigned.addStateChange(new StateChange(BookingStatus.ASSIGNED, OffsetDateTime.now()));
+        List<String> tokens = List.of(mockBooking.getToken(), "token-inexistente", completed.getToken(),
+                assigned.getToken(), mockBooking.getToken());
+        when(bookingRepository.findByTokenIn(anyCollection())).thenReturn(List.of(mockBooking, completed, assigned));
+
+        // Act
+        BookingBatchResponseDTO result = bookingService.updateBookingStatusForStaff(tokens, BookingStatus.ASSIGNED);
+
+        // Assert
+        assertEquals(List.of(200, 404, 409, 409, 400),
+                result.getItems().stream().map(BookingBatchItemDTO::getStatus).toList());
+        assertEquals(1, result.getCreated());
+        assertEquals(BookingStatus.ASSIGNED, mockBooking.getStatus());
+        assertEquals(2, mockBooking.getHistory().size());
+        assertEquals(BookingStatus.COMPLETED, completed.getStatus());
+
+        verify(bookingRepository, times(1)).findByTokenIn(anyCollection());
+        verify(bookingRepository, times(1)).saveAll(bookingsCaptor.capture());
+        assertEquals(List.of(mockBooking), bookingsCaptor.getValue());
+        verify(bookingRepository, times(1)).flush();
+        verify(bookingRepository, never()).findByToken(anyString());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingLookupCache, times(1)).invalidate(mockBooking.getToken());
+        verify(bookingEventBus, times(1)).publish(any());
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff (lote) - Cancelar deve devolver as vagas das reservas")
+    void testUpdateBookingStatusForStaffBatch_CancelReleasesCapacity() {
+        // Arrange
+        ReflectionTestUtils.setField(mockMunicipality, "id", 1L);
+        when(bookingRepository.findByTokenIn(anyCollection())).thenReturn(List.of(mockBooking));
+
+        // Act
+        BookingBatchResponseDTO result = bookingService.updateBookingStatusForStaff(List.of(mockBooking.getToken()),
+                BookingStatus.CANCELLED);
+
+        // Assert
+        assertEquals(1, result.getCreated());
+        verify(capacityLedger, times(1)).release(1L);
+        verify(availabilityCalendar, times(1)).release(1L, validDate, TimeSlot.AFTERNOON);
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff (lote) - Capacidade, cache e eventos só mudam depois do commit")
+    void testUpdateBookingStatusForStaffBatch_SideEffectsAfterCommit() {
+        // Arrange
+        ReflectionTestUtils.setField(mockMunicipality, "id", 1L);
+        when(bookingRepository.findByTokenIn(anyCollection())).thenReturn(List.of(mockBooking));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            BookingBatchResponseDTO result = bookingService.updateBookingStatusForStaff(
+                    List.of(mockBooking.getToken()), BookingStatus.CANCELLED);
+
+            // Assert: antes do commit nada é visível fora da transação
+            assertEquals(1, result.getCreated());
+            verify(capacityLedger, never()).release(anyLong());
+            verify(bookingLookupCache, never()).invalidate(anyString());
+            verify(bookingEventBus, never()).publish(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(capacityLedger, times(1)).release(1L);
+            verify(availabilityCalendar, times(1)).release(1L, validDate, TimeSlot.AFTERNOON);
+            verify(bookingLookupCache, times(1)).invalidate(mockBooking.getToken());
+            verify(bookingEventBus, times(1)).publish(any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff (lote) - Um commit falhado deve devolver as vagas da reativação")
+    void testUpdateBookingStatusForStaffBatch_RollbackReleasesReservations() {
+        // Arrange
+        ReflectionTestUtils.setField(mockMunicipality, "id", 1L);
+        mockBooking.addStateChange(new StateChange(BookingStatus.CANCELLED, OffsetDateTime.now()));
+        when(bookingRepository.findByTokenIn(anyCollection())).thenReturn(List.of(mockBooking));
+        when(capacityLedger.tryReserve(1L, 32)).thenReturn(true);
+        when(availabilityCalendar.tryReserve(1L, validDate, TimeSlot.AFTERNOON)).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            bookingService.updateBookingStatusForStaff(List.of(mockBooking.getToken()), BookingStatus.ASSIGNED);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // Assert
+            verify(capacityLedger, never()).confirm(anyLong());
+            verify(capacityLedger, times(1)).rollback(1L);
+            verify(availabilityCalendar, times(1)).release(1L, validDate, TimeSlot.AFTERNOON);
+            verify(bookingLookupCache, times(1)).invalidate(mockBooking.getToken());
+            verify(bookingEventBus, never()).publish(any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff (lote) - Deve rejeitar estado em falta ou lista vazia")
+    void testUpdateBookingStatusForStaffBatch_InvalidArguments() {
+        // Arrange
+        List<String> tokens = List.of("token-1");
+        List<String> empty = List.of();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> bookingService.updateBookingStatusForStaff(tokens, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.updateBookingStatusForStaff(empty, BookingStatus.ASSIGNED));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
@@ -697,7 +1315,141 @@ class BookingServiceImplementationTest {
         assertEquals(newStatus, mockBooking.getStatus());
     }
 
-    // ==================== MÉTODOS AUXILIARES ====================
+    @Test
+    @DisplayName("updateBookingStatusForStaff - Cancelamento pelo staff deve devolver a vaga")
+    void testUpdateBookingStatusForStaff_CancelReleasesCapacity() {
+        // Arrange
+        String token = mockBooking.getToken();
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        bookingService.updateBookingStatusForStaff(token, BookingStatus.CANCELLED);
+
+        // Assert
+        verify(capacityLedger, times(1)).release(mockMunicipality.getId());
+        verify(capacityLedger, never()).tryReserve(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff - Reativar reserva cancelada sem vagas deve lançar exceção")
+    void testUpdateBookingStatusForStaff_ReactivateWithoutCapacity() {
+        // Arrange
+        String token = mockBooking.getToken();
+        mockBooking.setStatus(BookingStatus.CANCELLED);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+        when(capacityLedger.tryReserve(mockMunicipality.getId(), 32)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.updateBookingStatusForStaff(token, BookingStatus.RECEIVED));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff - Não deve permitir que um agendamento concluído mude de estado")
+    void testUpdateBookingStatusForStaff_CompletedIsFinal() {
+        // Arrange
+        String token = mockBooking.getToken();
+        mockBooking.setStatus(BookingStatus.COMPLETED);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> bookingService.updateBookingStatusForStaff(token, BookingStatus.RECEIVED));
+        assertEquals("Um agendamento concluído não pode mudar de estado", exception.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(capacityLedger, availabilityCalendar, bookingEventBus);
+        assertEquals(1L, bookingStateMachine.stats().getRejectedTransitions().get("COMPLETED->RECEIVED"));
+    }
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff - Não deve permitir recuar no processo de recolha")
+    void testUpdateBookingStatusForStaff_NoBackwardTransition() {
+        // Arrange
+        String token = mockBooking.getToken();
+        mockBooking.setStatus(BookingStatus.IN_PROGRESS);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.updateBookingStatusForStaff(token, BookingStatus.ASSIGNED));
+        verify(bookingRepository, never()).save(any(Booking.class));
+        assertEquals(BookingStatus.IN_PROGRESS, mockBooking.getStatus());
+    }
+
+        // ==================== TESTES DE CONFLITOS DE VERSÃO ====================
+
+    @Test
+    @DisplayName("updateBookingStatusForStaff - Deve repetir a mudança de estado após um conflito de versão")
+    void testUpdateBookingStatusForStaff_RetriesOnConflict() {
+        // Arrange: entre a leitura e a gravação, outro pedido alterou a reserva
+        String token = mockBooking.getToken();
+        Booking reloaded = reloaded(BookingStatus.RECEIVED);
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(mockBooking), Optional.of(reloaded));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, token))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        BookingResponseDTO result = bookingService.updateBookingStatusForStaff(token, BookingStatus.ASSIGNED);
+
+        // Assert
+        assertEquals(BookingStatus.ASSIGNED, result.getStatus());
+        assertEquals(2, reloaded.getHistory().size());
+        verify(bookingRepository, times(2)).findByToken(token);
+        verify(bookingLookupCache, times(1)).invalidate(token);
+        verify(bookingEventBus, times(1)).publish(any());
+    }
+
+    @Test
+    @DisplayName("cancelBooking - Após um conflito, deve recusar com 409 se o novo estado já não permite cancelar")
+    void testCancelBooking_ConflictWithIncompatibleChange() {
+        // Arrange: o staff iniciou a recolha enquanto o cidadão cancelava
+        String token = mockBooking.getToken();
+        when(bookingRepository.findByToken(token))
+                .thenReturn(Optional.of(mockBooking), Optional.of(reloaded(BookingStatus.IN_PROGRESS)));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, token));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> bookingService.cancelBooking(token));
+        assertEquals("O agendamento não pode ser cancelado no estado atual", exception.getMessage());
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(capacityLedger, never()).release(anyLong());
+        verifyNoInteractions(bookingEventBus);
+    }
+
+    @Test
+    @DisplayName("cancelBooking - Conflitos repetidos devem terminar com IllegalStateException após 3 tentativas")
+    void testCancelBooking_GivesUpAfterMaxAttempts() {
+        // Arrange
+        String token = mockBooking.getToken();
+        when(bookingRepository.findByToken(token)).thenReturn(Optional.of(reloaded(BookingStatus.RECEIVED)),
+                Optional.of(reloaded(BookingStatus.RECEIVED)), Optional.of(reloaded(BookingStatus.RECEIVED)));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, token));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> bookingService.cancelBooking(token));
+        assertTrue(exception.getMessage().contains("alterado por outro pedido"));
+        verify(bookingRepository, times(3)).findByToken(token);
+        verify(bookingRepository, times(3)).save(any(Booking.class));
+        verifyNoInteractions(capacityLedger, bookingEventBus);
+    }
+
+        // ==================== MÉTODOS AUXILIARES ====================
+
+    // Outra leitura da mesma reserva (mesmo token), como a devolvida pela base
+    // de dados depois de uma alteração concorrente
+    private Booking reloaded(BookingStatus status) {
+        Booking booking = new Booking(mockMunicipality, "Sofá velho", validDate, TimeSlot.AFTERNOON);
+        ReflectionTestUtils.setField(booking, "token", mockBooking.getToken());
+        booking.addStateChange(new StateChange(status, OffsetDateTime.now()));
+        return booking;
+    }
 
     private BookingRequestDTO createRequestDTO(String municipalityName, LocalDate date) {
         BookingRequestDTO dto = new BookingRequestDTO();
@@ -828,4 +1580,19 @@ class BookingServiceImplementationTest {
         assertEquals(cause, exception.getCause());
         assertEquals("Causa raiz", exception.getCause().getMessage());
     }
+
+    // Projeção com os mesmos valores do booking indicado
+    private static BookingSummary mockSummary(Booking booking) {
+        BookingSummary summary = mock(BookingSummary.class);
+        when(summary.getId()).thenReturn(booking.getId());
+        when(summary.getToken()).thenReturn(booking.getToken());
+        when(summary.getMunicipalityName()).thenReturn(booking.getMunicipality().getName());
+        when(summary.getDescription()).thenReturn(booking.getDescription());
+        when(summary.getRequestedDate()).thenReturn(booking.getRequestedDate());
+        when(summary.getTimeSlot()).thenReturn(booking.getTimeSlot());
+        when(summary.getStatus()).thenReturn(booking.getStatus());
+        when(summary.getCreatedAt()).thenReturn(booking.getCreatedAt());
+        when(summary.getUpdatedAt()).thenReturn(booking.getUpdatedAt());
+        return summary;
+    }
 }
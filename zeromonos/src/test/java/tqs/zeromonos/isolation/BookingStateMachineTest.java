@@ -0,0 +1,111 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.TransitionStatsDTO;
+import tqs.zeromonos.services.BookingConflictException;
+import tqs.zeromonos.services.BookingStateMachine;
+import tqs.zeromonos.services.BookingStateMachine.Actor;
+
+@DisplayName("Testes Unitários de BookingStateMachine")
+class BookingStateMachineTest {
+
+    private BookingStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        stateMachine = new BookingStateMachine();
+    }
+
+    @Test
+    @DisplayName("isAllowed - O staff pode avançar, saltar passos e cancelar até ao fim")
+    void testIsAllowed_StaffForward() {
+        // Assert
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.RECEIVED, BookingStatus.ASSIGNED));
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.RECEIVED, BookingStatus.COMPLETED));
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.ASSIGNED, BookingStatus.IN_PROGRESS));
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.IN_PROGRESS, BookingStatus.COMPLETED));
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.IN_PROGRESS, BookingStatus.CANCELLED));
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.CANCELLED, BookingStatus.RECEIVED));
+        assertTrue(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.CANCELLED, BookingStatus.ASSIGNED));
+    }
+
+    @Test
+    @DisplayName("isAllowed - O staff não pode recuar, sair de COMPLETED nem repetir o estado atual")
+    void testIsAllowed_StaffRejected() {
+        // Assert
+        assertFalse(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.IN_PROGRESS, BookingStatus.RECEIVED));
+        assertFalse(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.CANCELLED, BookingStatus.COMPLETED));
+        for (BookingStatus status : BookingStatus.values()) {
+            assertFalse(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.COMPLETED, status));
+            assertFalse(BookingStateMachine.isAllowed(Actor.STAFF, status, status));
+        }
+        assertFalse(BookingStateMachine.isAllowed(Actor.STAFF, null, BookingStatus.ASSIGNED));
+        assertFalse(BookingStateMachine.isAllowed(Actor.STAFF, BookingStatus.RECEIVED, null));
+    }
+
+    @Test
+    @DisplayName("isAllowed - O cidadão só pode cancelar antes do início da recolha")
+    void testIsAllowed_Citizen() {
+        // Assert
+        for (BookingStatus from : BookingStatus.values()) {
+            for (BookingStatus to : BookingStatus.values()) {
+                boolean expected = to == BookingStatus.CANCELLED
+                        && (from == BookingStatus.RECEIVED || from == BookingStatus.ASSIGNED);
+                assertEquals(expected, BookingStateMachine.isAllowed(Actor.CITIZEN, from, to), from + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("tryTransition - Deve contar as transições aceites e as recusadas por par origem->destino")
+    void testTryTransition_Metrics() {
+        // Act
+        assertTrue(stateMachine.tryTransition(Actor.STAFF, BookingStatus.RECEIVED, BookingStatus.ASSIGNED));
+        assertFalse(stateMachine.tryTransition(Actor.STAFF, BookingStatus.COMPLETED, BookingStatus.RECEIVED));
+        assertFalse(stateMachine.tryTransition(Actor.STAFF, BookingStatus.COMPLETED, BookingStatus.RECEIVED));
+        assertFalse(stateMachine.tryTransition(Actor.CITIZEN, BookingStatus.IN_PROGRESS, BookingStatus.CANCELLED));
+        TransitionStatsDTO stats = stateMachine.stats();
+
+        // Assert
+        assertEquals(1, stats.getAccepted());
+        assertEquals(3, stats.getRejected());
+        assertEquals(Map.of("COMPLETED->RECEIVED", 2L, "IN_PROGRESS->CANCELLED", 1L), stats.getRejectedTransitions());
+    }
+
+    @Test
+    @DisplayName("checkTransition - Deve lançar IllegalStateException com o motivo da recusa")
+    void testCheckTransition_Rejected() {
+        // Act & Assert
+        assertDoesNotThrow(() -> stateMachine.checkTransition(Actor.STAFF, BookingStatus.ASSIGNED,
+                BookingStatus.IN_PROGRESS));
+        IllegalStateException sameStatus = assertThrows(IllegalStateException.class,
+                () -> stateMachine.checkTransition(Actor.STAFF, BookingStatus.ASSIGNED, BookingStatus.ASSIGNED));
+        assertEquals("O agendamento já está no estado ASSIGNED", sameStatus.getMessage());
+        IllegalStateException backward = assertThrows(IllegalStateException.class,
+                () -> stateMachine.checkTransition(Actor.STAFF, BookingStatus.IN_PROGRESS, BookingStatus.RECEIVED));
+        assertTrue(backward.getMessage().contains("IN_PROGRESS para RECEIVED"));
+    }
+
+    @Test
+    @DisplayName("checkTransition - Deve reutilizar o mesmo erro (sem stack trace) para a mesma transição recusada")
+    void testCheckTransition_ReusesPrecomputedError() {
+        // Act
+        IllegalStateException first = assertThrows(IllegalStateException.class,
+                () -> stateMachine.checkTransition(Actor.CITIZEN, BookingStatus.COMPLETED, BookingStatus.CANCELLED));
+        IllegalStateException second = assertThrows(IllegalStateException.class,
+                () -> stateMachine.checkTransition(Actor.CITIZEN, BookingStatus.COMPLETED, BookingStatus.CANCELLED));
+
+        // Assert
+        assertSame(first, second);
+        assertInstanceOf(BookingConflictException.class, first);
+        assertEquals(0, first.getStackTrace().length);
+    }
+}
@@ -0,0 +1,156 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.zeromonos.dto.TokenFilterStatsDTO;
+import tqs.zeromonos.services.BookingTokenFilter;
+import tqs.zeromonos.services.BookingTokenFilter.TokenSource;
+import tqs.zeromonos.utils.BookingToken;
+
+@DisplayName("Testes Unitários de BookingTokenFilter")
+class BookingTokenFilterTest {
+
+    private static List<String> tokens(int count) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tokens.add(BookingToken.generate());
+        }
+        return tokens;
+    }
+
+    @Test
+    @DisplayName("mightContain - Antes da primeira construção todos os tokens devem passar")
+    void testMightContain_NotBuiltPassesEverything() {
+        // Arrange
+        BookingTokenFilter filter = new BookingTokenFilter(1000, 0.01, TokenSource.of(List.of()));
+
+        // Act & Assert
+        assertTrue(filter.mightContain(BookingToken.generate()));
+        assertTrue(filter.mightContain("token-inexistente"));
+        assertFalse(filter.stats().isReady());
+    }
+
+    @Test
+    @DisplayName("rebuild - Todos os tokens existentes devem passar o filtro (sem falsos negativos)")
+    void testRebuild_NoFalseNegatives() {
+        // Arrange
+        List<String> existing = tokens(5000);
+        BookingTokenFilter filter = new BookingTokenFilter(1000, 0.01, TokenSource.of(existing));
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        for (String token : existing) {
+            assertTrue(filter.mightContain(token));
+        }
+        TokenFilterStatsDTO stats = filter.stats();
+        assertTrue(stats.isReady());
+        assertEquals(5000, stats.getTokens());
+        assertEquals(10000, stats.getCapacity());
+        assertEquals(0, stats.getRejected());
+    }
+
+    @Test
+    @DisplayName("mightContain - Tokens desconhecidos devem ser rejeitados com taxa de falsos positivos próxima da configurada")
+    void testMightContain_FalsePositiveRate() {
+        // Arrange
+        BookingTokenFilter filter = new BookingTokenFilter(10000, 0.01, TokenSource.of(tokens(10000)));
+        filter.rebuild();
+
+        // Act
+        int passed = 0;
+        for (String token : tokens(20000)) {
+            if (filter.mightContain(token)) {
+                passed++;
+            }
+        }
+
+        // Assert
+        assertTrue(passed < 20000 * 0.02, "Falsos positivos: " + passed);
+        assertTrue(filter.stats().getEstimatedFalsePositiveRate() < 0.02);
+        // A reconstrução dimensiona o filtro para o dobro dos tokens existentes;
+        // a 1% de falsos positivos gasta cerca de 1,2 bytes por token de capacidade
+        TokenFilterStatsDTO stats = filter.stats();
+        assertEquals(20000, stats.getCapacity());
+        assertTrue(stats.getMemoryBytes() < stats.getCapacity() * 5 / 4, "Memória: " + stats.getMemoryBytes());
+    }
+
+    @Test
+    @DisplayName("mightContain - Texto que não é um token deve ser rejeitado; token antigo (UUID) deve passar")
+    void testMightContain_InvalidAndLegacyTokens() {
+        // Arrange
+        UUID legacy = UUID.randomUUID();
+        BookingTokenFilter filter = new BookingTokenFilter(1000, 0.01,
+                TokenSource.of(List.of(BookingToken.normalize(legacy.toString()))));
+        filter.rebuild();
+
+        // Act & Assert
+        assertFalse(filter.mightContain("token-inexistente"));
+        assertFalse(filter.mightContain(null));
+        assertTrue(filter.mightContain(legacy.toString()));
+    }
+
+    @Test
+    @DisplayName("add - Tokens criados depois da construção (e durante uma reconstrução) devem passar")
+    void testAdd_DuringRebuild() {
+        // Arrange: um token é criado enquanto a reconstrução lê a base de dados
+        List<String> existing = tokens(10);
+        String createdDuringRebuild = BookingToken.generate();
+        BookingTokenFilter[] holder = new BookingTokenFilter[1];
+        TokenSource source = new TokenSource() {
+            @Override
+            public long count() {
+                return existing.size();
+            }
+
+            @Override
+            public void forEachToken(Consumer<String> action) {
+                holder[0].add(createdDuringRebuild);
+                existing.forEach(action);
+            }
+        };
+        BookingTokenFilter filter = new BookingTokenFilter(1000, 0.01, source);
+        holder[0] = filter;
+
+        // Act
+        filter.rebuild();
+        String createdAfter = BookingToken.generate();
+        filter.add(createdAfter);
+
+        // Assert
+        assertTrue(filter.mightContain(createdDuringRebuild));
+        assertTrue(filter.mightContain(createdAfter));
+        assertEquals(12, filter.stats().getTokens());
+    }
+
+    @Test
+    @DisplayName("rebuildIfSaturated - Deve reconstruir com mais capacidade quando o filtro fica cheio")
+    void testRebuildIfSaturated() {
+        // Arrange
+        List<String> existing = new ArrayList<>();
+        BookingTokenFilter filter = new BookingTokenFilter(100, 0.01, TokenSource.of(existing));
+        filter.rebuild();
+        for (String token : tokens(150)) {
+            existing.add(token);
+            filter.add(token);
+        }
+
+        // Act
+        filter.rebuildIfSaturated();
+
+        // Assert
+        TokenFilterStatsDTO stats = filter.stats();
+        assertEquals(2, stats.getRebuilds());
+        assertEquals(300, stats.getCapacity());
+        assertEquals(150, stats.getTokens());
+    }
+}
@@ -0,0 +1,91 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.zeromonos.utils.BookingToken;
+
+@DisplayName("Testes Unitários de BookingToken")
+class BookingTokenTest {
+
+    @Test
+    @DisplayName("generate - Deve gerar tokens base62 de 22 caracteres, únicos e com o instante nos primeiros bits")
+    void testGenerate_FormatAndUniqueness() {
+        // Act
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(BookingToken.generate());
+        }
+
+        // Assert
+        assertEquals(1000, tokens.size());
+        assertTrue(tokens.stream().allMatch(token -> token.matches("[0-9A-Za-z]{22}")));
+        byte[] bytes = BookingToken.toBytes(BookingToken.generate(0x0123456789ABL));
+        assertEquals(0x01, bytes[0]);
+        assertEquals((byte) 0xAB, bytes[5]);
+        assertEquals(0x70, bytes[6] & 0xF0);
+    }
+
+    @Test
+    @DisplayName("generate - Tokens criados mais tarde devem ser maiores, como texto e como bytes")
+    void testGenerate_SortedByTime() {
+        // Act
+        String earlier = BookingToken.generate(1_700_000_000_000L);
+        String later = BookingToken.generate(1_700_000_000_001L);
+
+        // Assert
+        assertTrue(earlier.compareTo(later) < 0);
+        assertTrue(Arrays.compareUnsigned(BookingToken.toBytes(earlier), BookingToken.toBytes(later)) < 0);
+    }
+
+    @Test
+    @DisplayName("toBytes/fromBytes - Devem ser inversos, incluindo os valores extremos")
+    void testRoundTrip() {
+        // Arrange
+        byte[] zeros = new byte[16];
+        byte[] ones = new byte[16];
+        Arrays.fill(ones, (byte) 0xFF);
+        String token = BookingToken.generate();
+
+        // Act & Assert
+        assertEquals(token, BookingToken.fromBytes(BookingToken.toBytes(token)));
+        assertEquals("0000000000000000000000", BookingToken.fromBytes(zeros));
+        assertArrayEquals(ones, BookingToken.toBytes(BookingToken.fromBytes(ones)));
+    }
+
+    @Test
+    @DisplayName("toBytes - Um token antigo (UUID) deve corresponder aos mesmos 16 bytes")
+    void testToBytes_LegacyUuid() {
+        // Arrange
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+        // Act
+        byte[] bytes = BookingToken.toBytes(uuid.toString());
+        String base62 = BookingToken.normalize(" " + uuid + " ");
+
+        // Assert
+        assertEquals(0x12, bytes[0]);
+        assertEquals(0x00, bytes[15]);
+        assertEquals(22, base62.length());
+        assertArrayEquals(bytes, BookingToken.toBytes(base62));
+    }
+
+    @Test
+    @DisplayName("toBytes - Deve devolver null para textos que não são tokens")
+    void testToBytes_Invalid() {
+        // Act & Assert
+        assertNull(BookingToken.toBytes(null));
+        assertNull(BookingToken.toBytes("invalid-token-123"));
+        assertNull(BookingToken.toBytes("zzzzzzzzzzzzzzzzzzzzzz"));
+        assertNull(BookingToken.toBytes("000000000000000000000-"));
+        assertNull(BookingToken.toBytes("123e4567-e89b-12d3-a456-42661417400g"));
+        assertEquals("invalid-token-123", BookingToken.normalize(" invalid-token-123 "));
+    }
+}
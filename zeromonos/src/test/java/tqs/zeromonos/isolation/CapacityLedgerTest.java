@@ -0,0 +1,252 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.services.CapacityLedger;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários de CapacityLedger")
+class CapacityLedgerTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private CapacityLedger capacityLedger;
+
+    @BeforeEach
+    void setUp() {
+        capacityLedger = new CapacityLedger(bookingRepository);
+    }
+
+    @Test
+    @DisplayName("warmUp - Deve carregar a ocupação com uma única query agregada")
+    void testWarmUp_LoadsCountsFromDatabase() {
+        // Arrange
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 5L });
+        rows.add(new Object[] { 2L, 31L });
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenReturn(rows);
+
+        // Act
+        capacityLedger.warmUp();
+
+        // Assert
+        assertEquals(5, capacityLedger.used(1L));
+        assertEquals(31, capacityLedger.used(2L));
+        verify(bookingRepository, never()).countByMunicipalityIdAndStatusNot(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("tryReserve - Deve rejeitar quando o limite é atingido")
+    void testTryReserve_RejectsAtLimit() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(31L);
+
+        // Act & Assert
+        assertTrue(capacityLedger.tryReserve(1L, 32));
+        assertFalse(capacityLedger.tryReserve(1L, 32));
+        assertEquals(32, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("tryReserve (lote) - Deve conceder apenas as vagas que restam até ao limite")
+    void testTryReserveBatch_GrantsUpToLimit() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(29L);
+
+        // Act
+        int granted = capacityLedger.tryReserve(1L, 32, 5);
+        int none = capacityLedger.tryReserve(1L, 32, 2);
+
+        // Assert
+        assertEquals(3, granted);
+        assertEquals(0, none);
+        assertEquals(32, capacityLedger.used(1L));
+
+        // As vagas pendentes do lote não são desfeitas pela reconciliação
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenReturn(List.of());
+        capacityLedger.reconcile();
+        assertEquals(3, capacityLedger.used(1L));
+        capacityLedger.confirm(1L, 3);
+        capacityLedger.reconcile();
+        assertEquals(0, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("release - Deve devolver a vaga e nunca ficar negativo")
+    void testRelease_NeverNegative() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(1L);
+
+        // Act
+        capacityLedger.release(1L);
+        capacityLedger.release(1L);
+
+        // Assert
+        assertEquals(0, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("rollback - Deve desfazer uma reserva não persistida")
+    void testRollback_UndoesReservation() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(0L);
+
+        // Act
+        assertTrue(capacityLedger.tryReserve(1L, 32));
+        capacityLedger.rollback(1L);
+
+        // Assert
+        assertEquals(0, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("reconcile - Deve manter reservas ainda não persistidas")
+    void testReconcile_KeepsPendingReservations() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(3L);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 3L });
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenReturn(rows);
+
+        // Act: uma reserva concedida mas ainda não confirmada
+        assertTrue(capacityLedger.tryReserve(1L, 32));
+        capacityLedger.reconcile();
+
+        // Assert
+        assertEquals(4, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("reconcile - Não deve perder uma confirmação que chega durante a query")
+    void testReconcile_ConfirmDuringQueryIsNotLost() {
+        // Arrange: 3 reservas persistidas e 1 concedida mas ainda não confirmada
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(3L);
+        assertTrue(capacityLedger.tryReserve(1L, 4));
+
+        // A query agregada não vê a reserva, mas a confirmação chega antes do fim
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 3L });
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenAnswer(invocation -> {
+            capacityLedger.confirm(1L);
+            return rows;
+        });
+
+        // Act
+        capacityLedger.reconcile();
+
+        // Assert: a vaga continua ocupada e o limite não pode ser ultrapassado
+        assertEquals(4, capacityLedger.used(1L));
+        assertFalse(capacityLedger.tryReserve(1L, 4));
+    }
+
+    @Test
+    @DisplayName("reconcile - Deve adiar a correção se o município mudou durante a query")
+    void testReconcile_SkipsStripeChangedDuringQuery() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(5L);
+        capacityLedger.used(1L);
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenAnswer(invocation -> {
+            capacityLedger.release(1L);
+            return List.of();
+        });
+
+        // Act
+        capacityLedger.reconcile();
+
+        // Assert: o cancelamento concorrente é mantido e a correção fica para depois
+        assertEquals(4, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("reconcile - Não deve descontar duas vezes um cancelamento gravado mas ainda não devolvido")
+    void testReconcile_CancellationBetweenCommitAndRelease() {
+        // Arrange: 5 reservas; uma é cancelada e gravada antes da query, mas a
+        // vaga só é devolvida depois da reconciliação
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(5L);
+        capacityLedger.prepareRelease(1L);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 4L });
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenReturn(rows);
+
+        // Act
+        capacityLedger.reconcile();
+        capacityLedger.release(1L);
+
+        // Assert
+        assertEquals(4, capacityLedger.used(1L));
+
+        // Sem cancelamentos em curso, a ronda seguinte volta a corrigir
+        rows.set(0, new Object[] { 1L, 2L });
+        capacityLedger.reconcile();
+        assertEquals(2, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("abortRelease - Um cancelamento que não foi gravado não deve bloquear a reconciliação")
+    void testAbortRelease_AllowsReconcile() {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(5L);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 3L });
+        when(bookingRepository.countActiveGroupedByMunicipality(BookingStatus.CANCELLED)).thenReturn(rows);
+
+        // Act
+        capacityLedger.prepareRelease(1L);
+        capacityLedger.abortRelease(1L);
+        capacityLedger.reconcile();
+
+        // Assert
+        assertEquals(3, capacityLedger.used(1L));
+    }
+
+    @Test
+    @DisplayName("tryReserve - Pedidos concorrentes nunca devem ultrapassar o limite")
+    void testTryReserve_ConcurrentRequestsNeverOversubscribe() throws InterruptedException {
+        // Arrange
+        when(bookingRepository.countByMunicipalityIdAndStatusNot(1L, BookingStatus.CANCELLED)).thenReturn(0L);
+        int threads = 16;
+        int attemptsPerThread = 10;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (capacityLedger.tryReserve(1L, 32)) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(32, granted.get());
+        assertEquals(32, capacityLedger.used(1L));
+    }
+}
@@ -0,0 +1,252 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import tqs.zeromonos.data.IdempotencyRecord;
+import tqs.zeromonos.data.IdempotencyRecordRepository;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.BookingRequestDTO;
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.services.IdempotencyStore;
+import tqs.zeromonos.utils.LogHash;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários de IdempotencyStore")
+class IdempotencyStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-16T10:00:00Z");
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(repository, objectMapper, 2, Duration.ofHours(24),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static BookingRequestDTO request(String description) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName("Lisboa");
+        request.setDescription(description);
+        request.setRequestedDate(LocalDate.of(2026, 10, 20));
+        request.setTimeSlot(TimeSlot.MORNING);
+        return request;
+    }
+
+    private static BookingResponseDTO response(String token) {
+        BookingResponseDTO response = new BookingResponseDTO();
+        response.setToken(token);
+        response.setMunicipalityName("Lisboa");
+        return response;
+    }
+
+    @Test
+    @DisplayName("execute - Deve criar apenas uma vez e devolver a resposta original nas repetições")
+    void testExecute_ReplaysOriginalResponse() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+
+        // Act
+        BookingResponseDTO first = store.execute("key-1", request("Sofá"), () -> {
+            calls.incrementAndGet();
+            return response("token-1");
+        });
+        BookingResponseDTO replay = store.execute("key-1", request("Sofá"), () -> {
+            calls.incrementAndGet();
+            return response("token-2");
+        });
+
+        // Assert
+        assertEquals(1, calls.get());
+        assertSame(first, replay);
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(captor.capture());
+        assertEquals("key-1", captor.getValue().getKey());
+        assertEquals("token-1", captor.getValue().getBookingToken());
+        assertEquals(64, captor.getValue().getRequestHash().length());
+    }
+
+    @Test
+    @DisplayName("execute - Deve rejeitar a mesma chave com um pedido diferente")
+    void testExecute_SameKeyDifferentRequest() {
+        // Arrange
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+        store.execute("key-1", request("Sofá"), () -> response("token-1"));
+        BookingRequestDTO other = request("Frigorífico");
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> store.execute("key-1", other, () -> response("token-2")));
+        assertTrue(exception.getMessage().contains("pedido diferente"));
+    }
+
+    @Test
+    @DisplayName("execute - Deve devolver a resposta guardada na base de dados quando a chave não está em memória")
+    void testExecute_ReplaysFromDatabase() throws Exception {
+        // Arrange: o hash é o calculado numa primeira execução noutra instância
+        IdempotencyStore other = new IdempotencyStore(repository, objectMapper, 2, Duration.ofHours(24),
+                Clock.fixed(NOW.minusSeconds(60), ZoneOffset.UTC));
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+        other.execute("key-1", request("Sofá"), () -> response("token-1"));
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(captor.capture());
+        when(repository.findById("key-1")).thenReturn(Optional.of(captor.getValue()));
+
+        // Act
+        BookingResponseDTO replay = store.execute("key-1", request("Sofá"), () -> fail("Não deve criar outra reserva"));
+
+        // Assert
+        assertEquals("token-1", replay.getToken());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("execute - Uma chave expirada na base de dados deve permitir nova criação")
+    void testExecute_ExpiredKeyIsReused() {
+        // Arrange
+        IdempotencyRecord expired = new IdempotencyRecord("key-1", "0".repeat(64), "token-1", "{}",
+                OffsetDateTime.ofInstant(NOW.minus(Duration.ofHours(25)), ZoneOffset.UTC));
+        when(repository.findById("key-1")).thenReturn(Optional.of(expired));
+
+        // Act
+        BookingResponseDTO result = store.execute("key-1", request("Sofá"), () -> response("token-2"));
+
+        // Assert
+        assertEquals("token-2", result.getToken());
+        verify(repository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("execute - Deve rejeitar com 409 um pedido com a mesma chave ainda em curso")
+    void testExecute_ConcurrentSameKey() throws Exception {
+        // Arrange
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = new Thread(() -> store.execute("key-1", request("Sofá"), () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response("token-1");
+        }));
+        first.start();
+        started.await();
+
+        // Act & Assert
+        BookingRequestDTO same = request("Sofá");
+        assertThrows(IllegalStateException.class, () -> store.execute("key-1", same, () -> response("token-2")));
+        release.countDown();
+        first.join();
+        assertEquals("token-1", store.execute("key-1", same, () -> response("token-3")).getToken());
+    }
+
+    @Test
+    @DisplayName("execute - Deve rejeitar chaves vazias ou demasiado longas")
+    void testExecute_InvalidKey() {
+        // Arrange
+        BookingRequestDTO request = request("Sofá");
+        String tooLong = "k".repeat(IdempotencyRecord.MAX_KEY_LENGTH + 1);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> store.execute(" ", request, () -> response("t")));
+        assertThrows(IllegalArgumentException.class, () -> store.execute(tooLong, request, () -> response("t")));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("execute - Uma falha a guardar na base de dados não deve falhar a criação")
+    void testExecute_DatabaseSaveFailure() {
+        // Arrange
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+        when(repository.save(any(IdempotencyRecord.class))).thenThrow(new IllegalStateException("base de dados"));
+        Logger storeLogger = (Logger) LoggerFactory.getLogger(IdempotencyStore.class);
+        ListAppender<ILoggingEvent> events = new ListAppender<>();
+        events.start();
+        storeLogger.addAppender(events);
+
+        // Act
+        BookingResponseDTO result;
+        try {
+            result = store.execute("key-1", request("Sofá"), () -> response("token-1"));
+        } finally {
+            storeLogger.detachAppender(events);
+        }
+
+        // Assert: a repetição continua protegida pela memória
+        assertEquals("token-1", result.getToken());
+        assertSame(result, store.execute("key-1", request("Sofá"), () -> response("token-2")));
+
+        // A chave é um segredo do cliente: no log só aparece o hash
+        String message = events.list.stream()
+                .filter(event -> event.getLevel() == Level.WARN)
+                .map(ILoggingEvent::getFormattedMessage)
+                .findFirst()
+                .orElseThrow();
+        assertTrue(message.contains(LogHash.of("key-1")));
+        assertFalse(message.contains("key-1"));
+    }
+
+    @Test
+    @DisplayName("execute - A falha na criação não deve guardar a chave")
+    void testExecute_ActionFailureIsNotRemembered() {
+        // Arrange
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+        BookingRequestDTO request = request("Sofá");
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> store.execute("key-1", request, () -> {
+            throw new IllegalStateException("Sem vagas");
+        }));
+        BookingResponseDTO retry = store.execute("key-1", request, () -> response("token-1"));
+
+        // Assert
+        assertEquals("token-1", retry.getToken());
+        verify(repository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("purgeExpired - Deve remover da base de dados as chaves mais antigas que o tempo de vida")
+    void testPurgeExpired() {
+        // Act
+        store.purgeExpired();
+
+        // Assert
+        verify(repository).deleteCreatedBefore(OffsetDateTime.ofInstant(NOW.minus(Duration.ofHours(24)),
+                ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,126 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.dto.MunicipalitySnapshot;
+import tqs.zeromonos.services.MunicipalityImportService;
+import tqs.zeromonos.services.MunicipalityIndex;
+import tqs.zeromonos.services.MunicipalitySnapshotStore;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários de MunicipalityImportService")
+class MunicipalityImportServiceTest {
+
+    @Mock
+    private WebClient.Builder webClientBuilder;
+
+    @Mock
+    private MunicipalityRepository municipalityRepository;
+
+    @Mock
+    private MunicipalitySnapshotStore snapshotStore;
+
+    @Mock
+    private MunicipalityIndex municipalityIndex;
+
+    @Mock
+    private Executor taskExecutor;
+
+    private MunicipalityImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new MunicipalityImportService(webClientBuilder, municipalityRepository, snapshotStore,
+                municipalityIndex, taskExecutor);
+    }
+
+    @Test
+    @DisplayName("upsertMunicipalities - Deve inserir apenas os municípios em falta num único saveAll")
+    @SuppressWarnings("unchecked")
+    void testUpsert_InsertsOnlyMissingInOneBatch() {
+        // Arrange
+        when(municipalityRepository.findAllNames()).thenReturn(new HashSet<>(Set.of("Lisboa", "Porto")));
+
+        // Act
+        int created = importService.upsertMunicipalities(
+                Arrays.asList("Lisboa", " Aveiro ", "Porto", "Braga", "Aveiro", "", null));
+
+        // Assert
+        assertEquals(2, created);
+        ArgumentCaptor<List<Municipality>> captor = ArgumentCaptor.forClass(List.class);
+        verify(municipalityRepository).saveAll(captor.capture());
+        assertEquals(List.of("Aveiro", "Braga"), captor.getValue().stream().map(Municipality::getName).toList());
+        verify(municipalityRepository, never()).findByName(anyString());
+        verify(municipalityRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("upsertMunicipalities - Não deve escrever quando todos os municípios já existem")
+    void testUpsert_NothingMissing() {
+        // Arrange
+        when(municipalityRepository.findAllNames()).thenReturn(Set.of("Lisboa", "Porto"));
+
+        // Act
+        int created = importService.upsertMunicipalities(List.of("Porto", "Lisboa"));
+
+        // Assert
+        assertEquals(0, created);
+        verify(municipalityRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("run - Deve carregar o snapshot local e agendar a atualização remota em segundo plano")
+    void testRun_LoadsSnapshotAndSchedulesRefresh() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(importService, "refreshEnabled", true);
+        when(snapshotStore.load()).thenReturn(new MunicipalitySnapshot(1, LocalDate.of(2026, 10, 16),
+                "https://json.geoapi.pt/municipios", List.of("Lisboa", "Porto")));
+        when(municipalityRepository.findAllNames()).thenReturn(Set.of());
+
+        // Act
+        importService.run(null);
+
+        // Assert: a lista local é inserida já, a API fica para o executor
+        verify(municipalityRepository).saveAll(anyList());
+        verify(municipalityIndex).refresh();
+        verify(taskExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("run - Não deve agendar a atualização remota quando está desativada")
+    void testRun_RefreshDisabled() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(importService, "refreshEnabled", false);
+        when(snapshotStore.load()).thenReturn(new MunicipalitySnapshot(1, LocalDate.of(2026, 10, 16),
+                "https://json.geoapi.pt/municipios", List.of("Lisboa")));
+        when(municipalityRepository.findAllNames()).thenReturn(Set.of("Lisboa"));
+
+        // Act
+        importService.run(null);
+
+        // Assert
+        verify(municipalityRepository, never()).saveAll(any());
+        verifyNoInteractions(taskExecutor);
+    }
+}
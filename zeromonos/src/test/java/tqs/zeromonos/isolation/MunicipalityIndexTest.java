@@ -0,0 +1,156 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.dto.EncodedMunicipalityList;
+import tqs.zeromonos.services.MunicipalityIndex;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários de MunicipalityIndex")
+class MunicipalityIndexTest {
+
+    @Mock
+    private MunicipalityRepository municipalityRepository;
+
+    private MunicipalityIndex municipalityIndex;
+
+    @BeforeEach
+    void setUp() {
+        municipalityIndex = new MunicipalityIndex(municipalityRepository, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("findByName - Deve carregar uma única vez e depois responder sem consultar a base de dados")
+    void testFindByName_LoadsOnceThenServesFromMemory() {
+        // Arrange
+        Municipality lisboa = new Municipality("Lisboa");
+        when(municipalityRepository.findAll()).thenReturn(List.of(lisboa, new Municipality("Porto")));
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            assertSame(lisboa, municipalityIndex.findByName("Lisboa").orElseThrow());
+        }
+
+        // Assert
+        assertTrue(municipalityIndex.findByName("Inexistente").isEmpty());
+        assertTrue(municipalityIndex.findByName(null).isEmpty());
+        verify(municipalityRepository, times(1)).findAll();
+        verify(municipalityRepository, never()).findByName(anyString());
+    }
+
+    @Test
+    @DisplayName("names - Deve devolver os nomes por ordem alfabética portuguesa e imutáveis")
+    void testNames_SortedAndImmutable() {
+        // Arrange
+        when(municipalityRepository.findAll()).thenReturn(List.of(new Municipality("Porto"),
+                new Municipality("Évora"), new Municipality("Aveiro"), new Municipality("Estremoz")));
+
+        // Act
+        List<String> names = municipalityIndex.names();
+
+        // Assert
+        assertEquals(List.of("Aveiro", "Estremoz", "Évora", "Porto"), names);
+        assertThrows(UnsupportedOperationException.class, () -> names.add("Lisboa"));
+        assertSame(names, municipalityIndex.names());
+    }
+
+    @Test
+    @DisplayName("refresh - Deve publicar uma nova vista sem alterar a anterior")
+    void testRefresh_SwapsView() {
+        // Arrange
+        when(municipalityRepository.findAll())
+                .thenReturn(List.of(new Municipality("Lisboa")))
+                .thenReturn(List.of(new Municipality("Lisboa"), new Municipality("Porto")));
+        municipalityIndex.refresh();
+        List<String> before = municipalityIndex.names();
+
+        // Act
+        municipalityIndex.refresh();
+
+        // Assert
+        assertEquals(List.of("Lisboa"), before);
+        assertEquals(List.of("Lisboa", "Porto"), municipalityIndex.names());
+        assertEquals(2, municipalityIndex.size());
+        assertTrue(municipalityIndex.findByName("Porto").isPresent());
+    }
+
+    @Test
+    @DisplayName("findByName - Deve resolver nomes sem acentos, com maiúsculas ou espaços a mais")
+    void testFindByName_AccentAndCaseInsensitive() {
+        // Arrange
+        Municipality evora = new Municipality("Évora");
+        Municipality povoa = new Municipality("Póvoa de Varzim");
+        when(municipalityRepository.findAll()).thenReturn(List.of(evora, povoa, new Municipality("Santarém")));
+
+        // Act & Assert
+        assertSame(evora, municipalityIndex.findByName("evora").orElseThrow());
+        assertSame(evora, municipalityIndex.findByName("ÉVORA").orElseThrow());
+        assertSame(povoa, municipalityIndex.findByName("  povoa   de varzim ").orElseThrow());
+        assertEquals("Santarém", municipalityIndex.findByName("SANTAREM").orElseThrow().getName());
+        assertTrue(municipalityIndex.findByName("evor").isEmpty());
+    }
+
+    @Test
+    @DisplayName("suggest - Deve devolver primeiro os nomes que começam pelo prefixo e depois as palavras interiores")
+    void testSuggest_PrefixThenWordMatches() {
+        // Arrange
+        when(municipalityRepository.findAll()).thenReturn(List.of(new Municipality("Vila Nova de Gaia"),
+                new Municipality("Gavião"), new Municipality("Gaia Teste"), new Municipality("Porto"),
+                new Municipality("Idanha-a-Nova")));
+
+        // Act & Assert
+        assertEquals(List.of("Gaia Teste", "Gavião", "Vila Nova de Gaia"), municipalityIndex.suggest("GA", 10));
+        assertEquals(List.of("Gaia Teste", "Vila Nova de Gaia"), municipalityIndex.suggest("gaia", 10));
+        assertEquals(List.of("Idanha-a-Nova", "Vila Nova de Gaia"), municipalityIndex.suggest("nova", 10));
+        assertEquals(List.of("Gaia Teste"), municipalityIndex.suggest("ga", 1));
+        assertEquals(List.of("Gavião"), municipalityIndex.suggest("gaviao", 10));
+        assertTrue(municipalityIndex.suggest("  ", 10).isEmpty());
+        assertTrue(municipalityIndex.suggest("xyz", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("encodedNames - Deve manter a lista em JSON e gzip, com ETag que só muda quando a lista muda")
+    void testEncodedNames_JsonGzipAndStableEtag() throws IOException {
+        // Arrange
+        when(municipalityRepository.findAll())
+                .thenReturn(List.of(new Municipality("Porto"), new Municipality("Évora")))
+                .thenReturn(List.of(new Municipality("Évora"), new Municipality("Porto")))
+                .thenReturn(List.of(new Municipality("Évora"), new Municipality("Porto"), new Municipality("Lisboa")));
+
+        // Act
+        municipalityIndex.refresh();
+        EncodedMunicipalityList first = municipalityIndex.encodedNames();
+        municipalityIndex.refresh();
+        EncodedMunicipalityList sameSet = municipalityIndex.encodedNames();
+        municipalityIndex.refresh();
+        EncodedMunicipalityList changed = municipalityIndex.encodedNames();
+
+        // Assert
+        assertEquals("[\"Évora\",\"Porto\"]", new String(first.getJson(), StandardCharsets.UTF_8));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.getGzip()))) {
+            assertArrayEquals(first.getJson(), in.readAllBytes());
+        }
+        assertEquals(first.getEtag(), sameSet.getEtag());
+        assertNotEquals(first.getEtag(), changed.getEtag());
+        assertNotEquals(first.getEtag(), first.getGzipEtag());
+        assertTrue(first.getEtag().startsWith("\"") && first.getGzipEtag().endsWith("-gzip\""));
+    }
+}
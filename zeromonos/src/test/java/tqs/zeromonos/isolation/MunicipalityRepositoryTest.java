@@ -2,9 +2,13 @@ package tqs.zeromonos.isolation;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,7 +20,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.MunicipalityRepository;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @DisplayName("Testes Unitários de MunicipalityRepository com JPA")
 class MunicipalityRepositoryTest {
 
@@ -397,6 +401,44 @@ class MunicipalityRepositoryTest {
         assertFalse(foundById.isPresent());
     }
 
+    // ==================== TESTES DE IMPORTAÇÃO EM BLOCO ====================
+
+    @Test
+    @DisplayName("findAllNames - Deve devolver os nomes de todos os municípios numa única query")
+    void testFindAllNames_SingleQuery() {
+        // Arrange
+        Statistics statistics = statistics();
+
+        // Act
+        Set<String> names = municipalityRepository.findAllNames();
+
+        // Assert
+        assertEquals(Set.of("Lisboa", "Porto", "Coimbra"), names);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("saveAll - Deve agrupar os INSERT de muitos municípios em batches JDBC")
+    void testSaveAll_BatchesInserts() {
+        // Arrange
+        List<Municipality> municipalities = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            municipalities.add(new Municipality("Município " + i));
+        }
+        Statistics statistics = statistics();
+
+        // Act
+        municipalityRepository.saveAll(municipalities);
+        entityManager.flush();
+
+        // Assert: 3 batches de INSERT e poucas idas à sequência, em vez de 120 INSERT
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 3 + 120 / Municipality.ID_ALLOCATION_SIZE + 2,
+                "Statements preparados: " + statistics.getPrepareStatementCount());
+        assertEquals(123, municipalityRepository.count());
+    }
+
     // ==================== MÉTODOS AUXILIARES ====================
 
     /**
@@ -404,7 +446,15 @@ class MunicipalityRepositoryTest {
      * Usado em assertThrows para ter apenas uma invocação no lambda.
      */
     private void saveAndFlush(Municipality municipality) {
-        municipalityRepository.save(municipality);
-        entityManager.flush();
+        // O INSERT só acontece no flush (ids por sequência); o flush tem de
+        // passar pelo repositório para a exceção ser traduzida pelo Spring
+        municipalityRepository.saveAndFlush(municipality);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
     }
 }
@@ -0,0 +1,86 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.zeromonos.dto.MunicipalitySnapshot;
+import tqs.zeromonos.services.MunicipalitySnapshotStore;
+
+@DisplayName("Testes Unitários de MunicipalitySnapshotStore")
+class MunicipalitySnapshotStoreTest {
+
+    private static final String BUNDLED = "classpath:municipalities-snapshot.json";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    private Path tempDir;
+
+    private MunicipalitySnapshotStore store(String cacheFile) {
+        return new MunicipalitySnapshotStore(objectMapper, new DefaultResourceLoader(), BUNDLED, cacheFile);
+    }
+
+    @Test
+    @DisplayName("load - O snapshot incluído deve ter os 308 municípios, sem repetidos")
+    void testLoad_BundledSnapshotHasAllMunicipalities() {
+        // Act
+        MunicipalitySnapshot snapshot = store("").load();
+
+        // Assert
+        assertEquals(308, snapshot.getMunicipalities().size());
+        assertEquals(308, new HashSet<>(snapshot.getMunicipalities()).size());
+        assertTrue(snapshot.getMunicipalities().containsAll(List.of("Lisboa", "Porto", "Aveiro", "Funchal")));
+        assertTrue(snapshot.getVersion() >= 1);
+    }
+
+    @Test
+    @DisplayName("save - Deve guardar em disco e preferir esse snapshot no arranque seguinte")
+    void testSave_CacheFilePreferredOnNextLoad() {
+        // Arrange
+        Path cacheFile = tempDir.resolve("cache/municipalities.json");
+        MunicipalitySnapshotStore store = store(cacheFile.toString());
+
+        // Act
+        boolean saved = store.save(List.of("Aveiro", "Lisboa"), "https://example.test/municipios");
+        MunicipalitySnapshot loaded = store(cacheFile.toString()).load();
+
+        // Assert
+        assertTrue(saved);
+        assertEquals(List.of("Aveiro", "Lisboa"), loaded.getMunicipalities());
+        assertEquals("https://example.test/municipios", loaded.getSource());
+    }
+
+    @Test
+    @DisplayName("load - Deve ignorar um snapshot em disco de versão anterior ou inválido")
+    void testLoad_IgnoresOutdatedOrInvalidCacheFile() throws IOException {
+        // Arrange
+        Path outdated = tempDir.resolve("outdated.json");
+        Files.writeString(outdated, "{\"version\":0,\"municipalities\":[\"Lisboa\"]}");
+        Path invalid = tempDir.resolve("invalid.json");
+        Files.writeString(invalid, "{ não é json");
+
+        // Act & Assert
+        assertEquals(308, store(outdated.toString()).load().getMunicipalities().size());
+        assertEquals(308, store(invalid.toString()).load().getMunicipalities().size());
+    }
+
+    @Test
+    @DisplayName("save - Não deve escrever nada quando não há ficheiro configurado")
+    void testSave_DisabledWithoutCacheFile() {
+        // Act & Assert
+        assertFalse(store("").save(List.of("Lisboa"), "https://example.test/municipios"));
+    }
+}
@@ -0,0 +1,117 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import tqs.zeromonos.boundary.RequestSummaryFilter;
+import tqs.zeromonos.utils.BookingToken;
+import tqs.zeromonos.utils.LogHash;
+
+@DisplayName("Testes Unitários de RequestSummaryFilter")
+class RequestSummaryFilterTest {
+
+    private final Logger summaryLogger = (Logger) LoggerFactory.getLogger(RequestSummaryFilter.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        events.start();
+        summaryLogger.addAppender(events);
+    }
+
+    @AfterEach
+    void tearDown() {
+        summaryLogger.detachAppender(events);
+    }
+
+    private static MockHttpServletRequest lookup(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bookings/" + token);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/bookings/{token}");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("token", token));
+        return request;
+    }
+
+    private static void run(RequestSummaryFilter filter, MockHttpServletRequest request, int status)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(status);
+        filter.doFilter(request, response, new MockFilterChain());
+    }
+
+    @Test
+    @DisplayName("doFilter - Deve registar um evento com rota, estado e hash do token (sem o token)")
+    void testDoFilter_LogsOneSummaryEvent() throws Exception {
+        // Arrange
+        RequestSummaryFilter filter = new RequestSummaryFilter(true, 1.0);
+        String token = BookingToken.generate();
+
+        // Act
+        run(filter, lookup(token), 200);
+
+        // Assert
+        assertEquals(1, events.list.size());
+        String message = events.list.get(0).getFormattedMessage();
+        assertTrue(message.contains("route=/api/bookings/{token}"));
+        assertTrue(message.contains("status=200"));
+        assertTrue(message.contains("token=" + LogHash.ofToken(token)));
+        assertFalse(message.contains(token));
+    }
+
+    @Test
+    @DisplayName("doFilter - Com amostragem a zero, só os erros devem ser registados")
+    void testDoFilter_SamplesSuccessfulLookupsOnly() throws Exception {
+        // Arrange
+        RequestSummaryFilter filter = new RequestSummaryFilter(true, 0.0);
+
+        // Act
+        run(filter, lookup(BookingToken.generate()), 200);
+        run(filter, lookup(BookingToken.generate()), 404);
+        run(filter, new MockHttpServletRequest("POST", "/api/bookings"), 200);
+
+        // Assert
+        assertEquals(2, events.list.size());
+        assertTrue(events.list.get(0).getFormattedMessage().contains("status=404"));
+        assertTrue(events.list.get(1).getFormattedMessage().contains("method=POST"));
+    }
+
+    @Test
+    @DisplayName("doFilter - Pedidos fora da API ou com o registo desativado não devem ser registados")
+    void testDoFilter_SkipsNonApiAndDisabled() throws Exception {
+        // Act
+        run(new RequestSummaryFilter(true, 1.0), new MockHttpServletRequest("GET", "/index.html"), 200);
+        run(new RequestSummaryFilter(false, 1.0), lookup(BookingToken.generate()), 404);
+
+        // Assert
+        assertTrue(events.list.isEmpty());
+    }
+
+    @Test
+    @DisplayName("LogHash.ofToken - Token antigo (UUID) e o mesmo token em base62 devem ter o mesmo hash")
+    void testHashToken_CanonicalForm() {
+        // Arrange
+        String legacy = UUID.randomUUID().toString();
+
+        // Act
+        String legacyHash = LogHash.ofToken(legacy);
+        String base62Hash = LogHash.ofToken(BookingToken.normalize(legacy));
+
+        // Assert
+        assertEquals(legacyHash, base62Hash);
+        assertEquals(12, legacyHash.length());
+    }
+}
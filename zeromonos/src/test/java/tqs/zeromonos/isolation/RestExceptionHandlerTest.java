@@ -11,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.context.request.WebRequest;
@@ -19,7 +20,14 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 import tqs.zeromonos.boundary.RestExceptionHandler;
 import tqs.zeromonos.boundary.RestExceptionHandler.ApiError;
 import tqs.zeromonos.boundary.SpringDocException;
+import tqs.zeromonos.services.BookingConflictException;
+import tqs.zeromonos.services.BookingNotFoundException;
+import tqs.zeromonos.services.InvalidBookingRequestException;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.OffsetDateTime;
 import java.util.NoSuchElementException;
 
 /**
@@ -58,6 +66,20 @@ class RestExceptionHandlerTest {
         assertNotNull(response.getBody().getTimestamp());
     }
 
+    @Test
+    @DisplayName("handleConcurrentModification - Deve retornar 409 CONFLICT para OptimisticLockingFailureException")
+    void testHandleConcurrentModification() {
+        // Arrange
+        ObjectOptimisticLockingFailureException ex = new ObjectOptimisticLockingFailureException(Object.class, 1L);
+
+        // Act
+        ResponseEntity<ApiError> response = exceptionHandler.handleConcurrentModification(ex, webRequest);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(409, response.getBody().getStatus());
+    }
+
     @Test
     @DisplayName("handleNotFound - Deve retornar 404 NOT_FOUND para NoSuchElementException")
     void testHandleNotFound() {
@@ -235,4 +257,53 @@ class RestExceptionHandlerTest {
         assertEquals(cause, exception.getCause());
         assertEquals("Causa raiz", exception.getCause().getMessage());
     }
+
+    @Test
+    @DisplayName("handleBusinessError - Deve retornar 404 com o corpo JSON pré-calculado para BookingNotFoundException")
+    void testHandleBusinessError_NotFound() throws Exception {
+        // Act
+        ResponseEntity<byte[]> response = exceptionHandler.handleBusinessError(BookingNotFoundException.TOKEN,
+                webRequest);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        JsonNode body = new ObjectMapper().readTree(response.getBody());
+        assertEquals(404, body.get("status").asInt());
+        assertEquals("Not Found", body.get("error").asText());
+        assertEquals("Agendamento não encontrado para o token fornecido", body.get("message").asText());
+        assertEquals("/api/bookings/test", body.get("path").asText());
+        assertNotNull(OffsetDateTime.parse(body.get("timestamp").asText()));
+    }
+
+    @Test
+    @DisplayName("handleBusinessError - Deve retornar 400 e 409 e escapar mensagens com aspas")
+    void testHandleBusinessError_BadRequestAndConflict() throws Exception {
+        // Act
+        ResponseEntity<byte[]> badRequest = exceptionHandler.handleBusinessError(
+                InvalidBookingRequestException.SUNDAY, webRequest);
+        ResponseEntity<byte[]> conflict = exceptionHandler.handleBusinessError(
+                new BookingConflictException("Sem vagas para o município \"Évora\""), webRequest);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, badRequest.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        JsonNode body = new ObjectMapper().readTree(conflict.getBody());
+        assertEquals(409, body.get("status").asInt());
+        assertEquals("Sem vagas para o município \"Évora\"", body.get("message").asText());
+    }
+
+    @Test
+    @DisplayName("Erros de negócio - Devem ser criados sem stack trace")
+    void testBusinessErrors_Stackless() {
+        // Act
+        BookingNotFoundException notFound = BookingNotFoundException.municipality("Atlântida");
+        BookingConflictException conflict = new BookingConflictException("Conflito", new RuntimeException("causa"));
+
+        // Assert
+        assertEquals(0, notFound.getStackTrace().length);
+        assertEquals(0, conflict.getStackTrace().length);
+        assertEquals(0, InvalidBookingRequestException.PAST_DATE.getStackTrace().length);
+        assertEquals("causa", conflict.getCause().getMessage());
+        assertInstanceOf(NoSuchElementException.class, notFound);
+    }
 }
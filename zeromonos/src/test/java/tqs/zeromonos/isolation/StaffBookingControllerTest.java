@@ -1,17 +1,20 @@
 package tqs.zeromonos.isolation;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -21,11 +24,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.test.web.servlet.MvcResult;
 
+import tqs.zeromonos.boundary.BookingEventStreams;
 import tqs.zeromonos.boundary.StaffBookingController;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.BookingBatchItemDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.StaffBookingFilter;
+import tqs.zeromonos.services.BookingExportService;
 import tqs.zeromonos.services.BookingService;
 
 @WebMvcTest(StaffBookingController.class)
@@ -38,6 +50,12 @@ class StaffBookingControllerTest {
     @MockitoBean
     private BookingService bookingService;
 
+    @MockitoBean
+    private BookingEventStreams bookingEventStreams;
+
+    @MockitoBean
+    private BookingExportService bookingExportService;
+
     private BookingResponseDTO booking1;
     private BookingResponseDTO booking2;
     private BookingResponseDTO booking3;
@@ -95,7 +113,7 @@ class StaffBookingControllerTest {
     @DisplayName("GET /api/staff/bookings - Deve retornar todos os bookings (200 OK)")
     void testListBookings_All() throws Exception {
         // Arrange
-        when(bookingService.listForStaff(null)).thenReturn(allBookings);
+        when(bookingService.listForStaff(null, false)).thenReturn(allBookings);
 
         // Act & Assert
         mockMvc.perform(get("/api/staff/bookings")
@@ -108,14 +126,54 @@ class StaffBookingControllerTest {
                 .andExpect(jsonPath("$[1].token").value("token-2"))
                 .andExpect(jsonPath("$[2].token").value("token-3"));
 
-        verify(bookingService, times(1)).listForStaff(null);
+        verify(bookingService, times(1)).listForStaff(null, false);
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/page - Deve retornar página com cursor seguinte (200 OK)")
+    void testListBookingsPage_WithFilters() throws Exception {
+        // Arrange
+        BookingPageDTO page = new BookingPageDTO(List.of(booking1, booking2), "cursor-2");
+        when(bookingService.listForStaffPage(any(StaffBookingFilter.class), eq("cursor-1"), eq(2), eq(false))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/page")
+                .param("municipality", "Lisboa")
+                .param("status", "RECEIVED")
+                .param("timeSlot", "AFTERNOON")
+                .param("from", validDate.toString())
+                .param("cursor", "cursor-1")
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].token").value("token-1"))
+                .andExpect(jsonPath("$.nextCursor").value("cursor-2"))
+                .andExpect(jsonPath("$.size").value(2));
+
+        verify(bookingService, times(1)).listForStaffPage(argThat(filter -> "Lisboa".equals(filter.getMunicipalityName())
+                && filter.getStatus() == BookingStatus.RECEIVED
+                && filter.getTimeSlot() == TimeSlot.AFTERNOON
+                && validDate.equals(filter.getFrom())
+                && filter.getTo() == null), eq("cursor-1"), eq(2), eq(false));
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/page - Deve retornar 400 para cursor inválido")
+    void testListBookingsPage_InvalidCursor() throws Exception {
+        // Arrange
+        when(bookingService.listForStaffPage(any(StaffBookingFilter.class), eq("???"), anyInt(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("Cursor inválido"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/page").param("cursor", "???"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     @DisplayName("GET /api/staff/bookings - Deve retornar lista vazia quando não há bookings")
     void testListBookings_Empty() throws Exception {
         // Arrange
-        when(bookingService.listForStaff(null)).thenReturn(new ArrayList<>());
+        when(bookingService.listForStaff(null, false)).thenReturn(new ArrayList<>());
 
         // Act & Assert
         mockMvc.perform(get("/api/staff/bookings")
@@ -124,14 +182,14 @@ class StaffBookingControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(bookingService, times(1)).listForStaff(null);
+        verify(bookingService, times(1)).listForStaff(null, false);
     }
 
     @Test
     @DisplayName("GET /api/staff/bookings?municipality=all - Deve retornar todos os bookings")
     void testListBookings_WithAllParameter() throws Exception {
         // Arrange
-        when(bookingService.listForStaff("all")).thenReturn(allBookings);
+        when(bookingService.listForStaff("all", false)).thenReturn(allBookings);
 
         // Act & Assert
         mockMvc.perform(get("/api/staff/bookings")
@@ -140,7 +198,7 @@ class StaffBookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(3));
 
-        verify(bookingService, times(1)).listForStaff("all");
+        verify(bookingService, times(1)).listForStaff("all", false);
     }
 
     @Test
@@ -148,7 +206,7 @@ class StaffBookingControllerTest {
     void testListBookings_ByMunicipality() throws Exception {
         // Arrange
         List<BookingResponseDTO> lisboaBookings = List.of(booking1, booking2);
-        when(bookingService.listForStaff("Lisboa")).thenReturn(lisboaBookings);
+        when(bookingService.listForStaff("Lisboa", false)).thenReturn(lisboaBookings);
 
         // Act & Assert
         mockMvc.perform(get("/api/staff/bookings")
@@ -160,7 +218,7 @@ class StaffBookingControllerTest {
                 .andExpect(jsonPath("$[0].municipalityName").value("Lisboa"))
                 .andExpect(jsonPath("$[1].municipalityName").value("Lisboa"));
 
-        verify(bookingService, times(1)).listForStaff("Lisboa");
+        verify(bookingService, times(1)).listForStaff("Lisboa", false);
     }
 
     @Test
@@ -168,7 +226,7 @@ class StaffBookingControllerTest {
     void testListBookings_ByPorto() throws Exception {
         // Arrange
         List<BookingResponseDTO> portoBookings = List.of(booking3);
-        when(bookingService.listForStaff("Porto")).thenReturn(portoBookings);
+        when(bookingService.listForStaff("Porto", false)).thenReturn(portoBookings);
 
         // Act & Assert
         mockMvc.perform(get("/api/staff/bookings")
@@ -178,14 +236,14 @@ class StaffBookingControllerTest {
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].municipalityName").value("Porto"));
 
-        verify(bookingService, times(1)).listForStaff("Porto");
+        verify(bookingService, times(1)).listForStaff("Porto", false);
     }
 
     @Test
     @DisplayName("GET /api/staff/bookings?municipality=Inexistente - Deve retornar 404 quando município não existe")
     void testListBookings_MunicipalityNotFound() throws Exception {
         // Arrange
-        when(bookingService.listForStaff("Inexistente"))
+        when(bookingService.listForStaff("Inexistente", false))
                 .thenThrow(new NoSuchElementException("Município não encontrado: Inexistente"));
 
         // Act & Assert
@@ -194,7 +252,52 @@ class StaffBookingControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
 
-        verify(bookingService, times(1)).listForStaff("Inexistente");
+        verify(bookingService, times(1)).listForStaff("Inexistente", false);
+    }
+
+    // ==================== TESTES DE PATCH /api/staff/bookings/status (lote)
+    // ====================
+
+    @Test
+    @DisplayName("PATCH /api/staff/bookings/status - Deve mudar o estado de vários agendamentos")
+    void testUpdateStatuses_Batch() throws Exception {
+        // Arrange
+        BookingResponseDTO updatedBooking = new BookingResponseDTO();
+        updatedBooking.setToken("token-1");
+        updatedBooking.setStatus(BookingStatus.ASSIGNED);
+        BookingBatchResponseDTO batch = new BookingBatchResponseDTO(List.of(
+                BookingBatchItemDTO.created(0, updatedBooking),
+                BookingBatchItemDTO.rejected(1, 404, "Agendamento não encontrado")));
+        when(bookingService.updateBookingStatusForStaff(List.of("token-1", "token-x"), BookingStatus.ASSIGNED))
+                .thenReturn(batch);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/staff/bookings/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tokens\":[\"token-1\",\"token-x\"],\"status\":\"ASSIGNED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].booking.status").value("ASSIGNED"))
+                .andExpect(jsonPath("$.items[1].status").value(404));
+
+        verify(bookingService, times(1)).updateBookingStatusForStaff(List.of("token-1", "token-x"),
+                BookingStatus.ASSIGNED);
+    }
+
+    @Test
+    @DisplayName("PATCH /api/staff/bookings/status - Deve retornar erro quando o estado é inválido")
+    void testUpdateStatuses_InvalidStatus() throws Exception {
+        // Act & Assert
+        mockMvc.perform(patch("/api/staff/bookings/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tokens\":[\"token-1\"],\"status\":\"PERDIDO\"}"))
+                .andExpect(result -> {
+                    int status = result.getResponse().getStatus();
+                    assertTrue(status >= 400, "Deve retornar erro (status >= 400), mas retornou: " + status);
+                });
+
+        verify(bookingService, never()).updateBookingStatusForStaff(anyList(), any(BookingStatus.class));
     }
 
     // ==================== TESTES DE PATCH /api/staff/bookings/{token}/status
@@ -406,4 +509,159 @@ class StaffBookingControllerTest {
             reset(bookingService); // Reset para próximo loop
         }
     }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings - Sem includeHistory não deve devolver o campo history")
+    void testListBookings_OmitsHistoryByDefault() throws Exception {
+        // Arrange
+        booking1.setHistory(null);
+        when(bookingService.listForStaff(null, false)).thenReturn(List.of(booking1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].token").value("token-1"))
+                .andExpect(jsonPath("$[0].history").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings?includeHistory=true - Deve pedir o histórico ao serviço")
+    void testListBookings_IncludeHistory() throws Exception {
+        // Arrange
+        booking1.setHistory(List.of("RECEIVED @ 2025-01-01T10:00Z"));
+        when(bookingService.listForStaff("Lisboa", true)).thenReturn(List.of(booking1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings")
+                .param("municipality", "Lisboa")
+                .param("includeHistory", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].history.length()").value(1));
+
+        verify(bookingService, never()).listForStaff("Lisboa", false);
+    }
+
+    // ==================== TESTES DE EXPORTAÇÃO ====================
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/export - Deve exportar em NDJSON, uma reserva por linha")
+    @SuppressWarnings("unchecked")
+    void testExportBookings_Ndjson() throws Exception {
+        // Arrange
+        when(bookingExportService.resolveMunicipality(null)).thenReturn(null);
+        when(bookingExportService.exportForStaff(isNull(), any())).thenAnswer(invocation -> {
+            Consumer<BookingResponseDTO> sink = invocation.getArgument(1);
+            sink.accept(booking1);
+            sink.accept(booking2);
+            return 2L;
+        });
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/staff/bookings/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"token\":\"token-1\""));
+        assertTrue(lines[1].contains("\"token\":\"token-2\""));
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/export?format=csv - Deve exportar em CSV com cabeçalho")
+    @SuppressWarnings("unchecked")
+    void testExportBookings_Csv() throws Exception {
+        // Arrange
+        Municipality lisboa = new Municipality("Lisboa");
+        booking1.setDescription("Sofá, \"velho\"");
+        when(bookingExportService.resolveMunicipality("Lisboa")).thenReturn(lisboa);
+        when(bookingExportService.exportForStaff(eq(lisboa), any())).thenAnswer(invocation -> {
+            Consumer<BookingResponseDTO> sink = invocation.getArgument(1);
+            sink.accept(booking1);
+            return 1L;
+        });
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/staff/bookings/export")
+                .param("municipality", "Lisboa")
+                .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"));
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,token,municipality"));
+        assertTrue(lines[1].contains(",token-1,Lisboa,\"Sofá, \"\"velho\"\"\","));
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/export - Deve retornar 404 para município inexistente")
+    void testExportBookings_UnknownMunicipality() throws Exception {
+        // Arrange
+        when(bookingExportService.resolveMunicipality("Atlantida"))
+                .thenThrow(new NoSuchElementException("Município não encontrado: Atlantida"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/export").param("municipality", "Atlantida"))
+                .andExpect(status().isNotFound());
+        verify(bookingExportService, never()).exportForStaff(any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/export - Deve retornar 400 para formato inválido")
+    void testExportBookings_InvalidFormat() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bookingExportService);
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/events - Deve abrir o canal de eventos do município")
+    void testStreamBookingEvents() throws Exception {
+        // Arrange
+        when(bookingExportService.resolveMunicipality("lisboa ")).thenReturn(new Municipality("Lisboa"));
+        when(bookingEventStreams.openForMunicipality("Lisboa")).thenReturn(new SseEmitter());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/events").param("municipality", "lisboa "))
+                .andExpect(request().asyncStarted());
+
+        verify(bookingEventStreams, times(1)).openForMunicipality("Lisboa");
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/events - Deve abrir o canal de todos os municípios sem filtro")
+    void testStreamBookingEvents_AllMunicipalities() throws Exception {
+        // Arrange
+        when(bookingExportService.resolveMunicipality("all")).thenReturn(null);
+        when(bookingEventStreams.openForMunicipality(null)).thenReturn(new SseEmitter());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/events").param("municipality", "all"))
+                .andExpect(request().asyncStarted());
+
+        verify(bookingEventStreams, times(1)).openForMunicipality(null);
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/bookings/events - Deve retornar 404 para município inexistente")
+    void testStreamBookingEvents_UnknownMunicipality() throws Exception {
+        // Arrange
+        when(bookingExportService.resolveMunicipality("Atlantida"))
+                .thenThrow(new NoSuchElementException("Município não encontrado: Atlantida"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/bookings/events").param("municipality", "Atlantida"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(bookingEventStreams);
+    }
 }
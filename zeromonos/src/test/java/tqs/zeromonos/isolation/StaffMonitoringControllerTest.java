@@ -0,0 +1,108 @@
+package tqs.zeromonos.isolation;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tqs.zeromonos.boundary.StaffMonitoringController;
+import tqs.zeromonos.config.VirtualThreadDiagnostics;
+import tqs.zeromonos.dto.CacheStatsDTO;
+import tqs.zeromonos.dto.ThreadingStatsDTO;
+import tqs.zeromonos.dto.TokenFilterStatsDTO;
+import tqs.zeromonos.dto.TransitionStatsDTO;
+import tqs.zeromonos.services.BookingLookupCache;
+import tqs.zeromonos.services.BookingStateMachine;
+import tqs.zeromonos.services.BookingTokenFilter;
+
+@WebMvcTest(StaffMonitoringController.class)
+@DisplayName("Testes Unitários de StaffMonitoringController com MockMvc")
+class StaffMonitoringControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private BookingLookupCache bookingLookupCache;
+
+    @MockitoBean
+    private VirtualThreadDiagnostics virtualThreadDiagnostics;
+
+    @MockitoBean
+    private BookingStateMachine bookingStateMachine;
+
+    @MockitoBean
+    private BookingTokenFilter bookingTokenFilter;
+
+    @Test
+    @DisplayName("GET /api/staff/monitoring/lookup-cache - Deve retornar os contadores da cache")
+    void testLookupCacheStats() throws Exception {
+        // Arrange
+        when(bookingLookupCache.stats()).thenReturn(new CacheStatsDTO("booking-lookup", 10, 100, 30, 10, 2));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/monitoring/lookup-cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.hits").value(30))
+                .andExpect(jsonPath("$.misses").value(10))
+                .andExpect(jsonPath("$.evictions").value(2))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/monitoring/threads - Deve retornar o modo de execução e os locais de pinning")
+    void testThreadingStats() throws Exception {
+        // Arrange
+        when(virtualThreadDiagnostics.stats()).thenReturn(new ThreadingStatsDTO("virtual", true, 3,
+                Map.of("tqs.zeromonos.services.CapacityLedger.stripeFor", 3L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/monitoring/threads"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode").value("virtual"))
+                .andExpect(jsonPath("$.pinningDiagnostics").value(true))
+                .andExpect(jsonPath("$.pinnedEvents").value(3))
+                .andExpect(jsonPath("$.pinnedSites['tqs.zeromonos.services.CapacityLedger.stripeFor']").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/monitoring/transitions - Deve retornar os contadores de transições recusadas")
+    void testTransitionStats() throws Exception {
+        // Arrange
+        when(bookingStateMachine.stats()).thenReturn(new TransitionStatsDTO(12, 3,
+                Map.of("COMPLETED->RECEIVED", 2L, "IN_PROGRESS->CANCELLED", 1L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/monitoring/transitions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(12))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.rejectedTransitions['COMPLETED->RECEIVED']").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/staff/monitoring/token-filter - Deve retornar a dimensão e os contadores do filtro de tokens")
+    void testTokenFilterStats() throws Exception {
+        // Arrange
+        when(bookingTokenFilter.stats()).thenReturn(new TokenFilterStatsDTO(true, 500, 1000, 9600, 7, 1200, 0.01,
+                0.0005, 100, 60, 4, 1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/staff/monitoring/token-filter"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ready").value(true))
+                .andExpect(jsonPath("$.tokens").value(500))
+                .andExpect(jsonPath("$.memoryBytes").value(1200))
+                .andExpect(jsonPath("$.rejected").value(60))
+                .andExpect(jsonPath("$.observedFalsePositiveRate").value(0.1));
+    }
+}
@@ -0,0 +1,52 @@
+package tqs.zeromonos.isolation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tqs.zeromonos.data.TimeOrderedUuidGenerator;
+
+@DisplayName("Testes Unitários de TimeOrderedUuidGenerator")
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    @DisplayName("next - Deve gerar UUIDs versão 7 (variante IETF) com o instante nos primeiros 48 bits")
+    void testNext_Layout() {
+        // Act
+        UUID uuid = TimeOrderedUuidGenerator.next(0x0123456789ABL);
+
+        // Assert
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(0x0123456789ABL, uuid.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    @DisplayName("next - UUIDs de instantes posteriores devem ser maiores (comparação sem sinal)")
+    void testNext_SortedByTime() {
+        // Act
+        UUID earlier = TimeOrderedUuidGenerator.next(1_700_000_000_000L);
+        UUID later = TimeOrderedUuidGenerator.next(1_700_000_000_001L);
+
+        // Assert
+        assertTrue(Long.compareUnsigned(earlier.getMostSignificantBits(), later.getMostSignificantBits()) < 0);
+    }
+
+    @Test
+    @DisplayName("next - Não deve repetir UUIDs no mesmo milissegundo")
+    void testNext_Unique() {
+        // Act
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(TimeOrderedUuidGenerator.next(1_700_000_000_000L));
+        }
+
+        // Assert
+        assertEquals(10_000, ids.size());
+    }
+}